@@ -0,0 +1,62 @@
+package edu.depaul.email;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+/**
+ * Builds deterministic HTML for the benchmarks: paragraphs of filler text
+ * with an email address and a link mixed in every so often.
+ */
+final class BenchmarkPages {
+
+  private static final String[] WORDS = {
+    "department", "faculty", "research", "student", "program", "office", "the", "of",
+    "and", "computing", "digital", "media", "contact", "information", "hours", "room"
+  };
+
+  private BenchmarkPages() {}
+
+  /**
+   * Returns a page of roughly the given size in bytes.  About one word in
+   * emailEvery is an email address and one in linkEvery is a link.
+   */
+  static String html(int bytes, int emailEvery, int linkEvery, long seed) {
+    Random random = new Random(seed);
+    StringBuilder page = new StringBuilder(bytes + 256);
+    page.append("<!DOCTYPE html><html><head><title>Benchmark</title></head><body>\n<p>");
+    int words = 0;
+    while (page.length() < bytes) {
+      words++;
+      if (words % emailEvery == 0) {
+        page.append("user").append(random.nextInt(100000)).append("@example.edu ");
+      } else if (words % linkEvery == 0) {
+        page.append("<a href=\"/page-").append(random.nextInt(100000)).append(".html\">link</a> ");
+      } else {
+        page.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+      }
+      if (words % 80 == 0) {
+        page.append("</p>\n<p>");
+      }
+    }
+    page.append("</p></body></html>\n");
+    return page.toString();
+  }
+
+  static Path write(Path dir, String name, String html) throws IOException {
+    Path file = dir.resolve(name);
+    Files.write(file, html.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  static void deleteTree(Path dir) throws IOException {
+    if (dir == null || !Files.exists(dir)) {
+      return;
+    }
+    Files.walk(dir)
+        .sorted((a, b) -> b.compareTo(a))
+        .forEach(path -> path.toFile().delete());
+  }
+}
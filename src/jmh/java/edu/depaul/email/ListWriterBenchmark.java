@@ -0,0 +1,80 @@
+package edu.depaul.email;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures writing large lists to disk, through ListWriter and
+ * ChannelListWriter directly and through StorageService.storeList().
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ListWriterBenchmark {
+
+  @Param({"10000", "1000000"})
+  public int items;
+
+  private List<String> list;
+  private Path dir;
+  private Path target;
+  private StorageService storage;
+
+  @Setup
+  public void setup() throws IOException {
+    list = new ArrayList<>(items);
+    for (int i = 0; i < items; i++) {
+      list.add("someone" + i + "@example.edu");
+    }
+    dir = Files.createTempDirectory("writer-bench");
+    target = dir.resolve("list.txt");
+    storage = new StorageService().addLocation(StorageService.StorageType.EMAIL, target.toString());
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    BenchmarkPages.deleteTree(dir);
+  }
+
+  @Benchmark
+  public void writeList() throws IOException {
+    try (OutputStream out = new FileOutputStream(target.toFile())) {
+      new ListWriter(out).writeList(list);
+    }
+  }
+
+  @Benchmark
+  public void writeChannel() throws IOException {
+    try (ChannelListWriter writer = ChannelListWriter.open(target, ChannelListWriter.Compression.NONE)) {
+      writer.writeList(list);
+    }
+  }
+
+  @Benchmark
+  public void writeChannelGzip() throws IOException {
+    try (ChannelListWriter writer = ChannelListWriter.open(target, ChannelListWriter.Compression.GZIP)) {
+      writer.writeList(list);
+    }
+  }
+
+  @Benchmark
+  public void storeList() {
+    storage.storeList(StorageService.StorageType.EMAIL, list);
+  }
+}
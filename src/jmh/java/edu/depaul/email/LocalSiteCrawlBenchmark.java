@@ -0,0 +1,68 @@
+package edu.depaul.email;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Crawls a generated site served by LocalSiteServer over loopback HTTP,
+ * with injected latency and errors standing in for slow production hosts.
+ * Raise pages (e.g. -p pages=100000) for large-scale runs.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class LocalSiteCrawlBenchmark {
+
+  @Param({"2000"})
+  public int pages;
+
+  @Param({"8", "64"})
+  public int workers;
+
+  @Param({"20"})
+  public long latencyMillis;
+
+  @Param({"0.01"})
+  public double errorRate;
+
+  @Param({"false", "true"})
+  public boolean asyncHttp;
+
+  private LocalSiteServer server;
+
+  @Setup
+  public void setup() throws IOException {
+    SiteGenerator site = new SiteGenerator(pages, 8, 20, 1, 8192, 42);
+    server = new LocalSiteServer(site)
+        .withLatency(latencyMillis, latencyMillis / 2)
+        .withErrorRate(errorRate);
+  }
+
+  @TearDown
+  public void tearDown() {
+    server.close();
+  }
+
+  @Benchmark
+  public int crawlSite() {
+    PageFetcher fetcher = asyncHttp ? new PageFetcher(new AsyncHttpBackend()) : new PageFetcher();
+    try {
+      PageCrawler crawler = new PageCrawler(new StorageService(), Integer.MAX_VALUE, workers)
+          .setFetcher(fetcher);
+      crawler.crawl(server.rootUrl());
+      return crawler.getGoodLinks().size();
+    } finally {
+      fetcher.close();
+    }
+  }
+}
@@ -0,0 +1,57 @@
+package edu.depaul.email;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Crawls a generated site of local files from end to end.  The crawl has
+ * to discover the whole site through the frontier.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class PageCrawlerBenchmark {
+
+  @Param({"500"})
+  public int pages;
+
+  @Param({"1", "8"})
+  public int workers;
+
+  @Param({"false", "true"})
+  public boolean streaming;
+
+  private Path dir;
+  private String root;
+
+  @Setup
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("crawler-bench");
+    root = new SiteGenerator(pages, 4, 20, 1, 8192, 42).writeTo(dir).toString();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    BenchmarkPages.deleteTree(dir);
+  }
+
+  @Benchmark
+  public int crawlSite() {
+    PageCrawler crawler = new PageCrawler(new StorageService(), Integer.MAX_VALUE, workers)
+        .setStreaming(streaming);
+    crawler.crawl(root);
+    return crawler.getGoodLinks().size();
+  }
+}
@@ -0,0 +1,49 @@
+package edu.depaul.email;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Measures PageFetcher.get() on local files of different sizes.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageFetcherBenchmark {
+
+  @Param({"4096", "1048576"})
+  public int pageBytes;
+
+  private final PageFetcher fetcher = new PageFetcher();
+  private Path dir;
+  private String path;
+
+  @Setup
+  public void setup() throws IOException {
+    dir = Files.createTempDirectory("fetcher-bench");
+    path = BenchmarkPages.write(dir, "page.html", BenchmarkPages.html(pageBytes, 50, 30, 7)).toString();
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    BenchmarkPages.deleteTree(dir);
+  }
+
+  @Benchmark
+  public Document getLocalFile() {
+    return fetcher.get(path);
+  }
+}
@@ -0,0 +1,74 @@
+package edu.depaul.email;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Measures email and link extraction on a small page and on a
+ * multi-megabyte page, through PageParser (Jsoup DOM), StreamingExtractor
+ * and, for emails alone, ByteEmailScanner.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PageParserBenchmark {
+
+  @Param({"4096", "4194304"})
+  public int pageBytes;
+
+  private final PageParser parser = new PageParser();
+  private final StreamingExtractor extractor = new StreamingExtractor();
+  private String html;
+  private byte[] raw;
+  private Document doc;
+
+  @Setup
+  public void setup() {
+    html = BenchmarkPages.html(pageBytes, 50, 30, 42);
+    raw = html.getBytes(StandardCharsets.UTF_8);
+    doc = Jsoup.parse(html);
+  }
+
+  @Benchmark
+  public Set<String> findEmails() {
+    return parser.findEmails(doc);
+  }
+
+  @Benchmark
+  public Set<String> findLinks() {
+    return parser.findLinks(doc);
+  }
+
+  @Benchmark
+  public int parseAndFindBoth() {
+    Document parsed = Jsoup.parse(html);
+    return parser.findEmails(parsed).size() + parser.findLinks(parsed).size();
+  }
+
+  @Benchmark
+  public PageContent streamingExtract() {
+    return extractor.extract(raw);
+  }
+
+  @Benchmark
+  public Set<String> byteScanEmails() {
+    return ByteEmailScanner.findEmails(raw);
+  }
+
+  @Benchmark
+  public Set<String> decodeAndFindEmails() {
+    return parser.findEmails(Jsoup.parse(new String(raw, StandardCharsets.UTF_8)));
+  }
+}
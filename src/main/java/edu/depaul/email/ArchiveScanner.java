@@ -0,0 +1,418 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static edu.depaul.email.StorageService.StorageType.EMAIL;
+import static edu.depaul.email.StorageService.StorageType.GOODLINKS;
+import static edu.depaul.email.StorageService.StorageType.BADLINKS;
+
+/**
+ * Finds email addresses in saved copies of sites: WARC files (.warc,
+ * .warc.gz) and zip and tar archives (.zip, .tar, .tar.gz, .tgz).  They
+ * are read as streams, never unpacked to disk.
+ * The work runs on a fork-join pool.  Archives are split between workers,
+ * and each archive forks a task per page, which parses it with PageParser
+ * and returns its own small result set.  Results are merged as tasks are
+ * joined, so workers never contend on shared sets.  Zip entries are
+ * decompressed inside their page tasks; WARC and tar streams are read in
+ * order by the archive's task while the pages it has already read are
+ * parsed on other workers.  At most a few pages per worker are held in
+ * memory at once, and entries larger than WarcReader.DEFAULT_MAX_RECORD
+ * are skipped; a zip entry that does not give its size and turns out to
+ * be larger is reported as a bad link.
+ * The same three lists as PageCrawler's are written by report(), with
+ * record URIs (WARC) or archive!/entry names in place of URLs.
+ */
+public class ArchiveScanner {
+  private static final Logger logger = LoggerFactory.getLogger(ArchiveScanner.class);
+
+  private static final int TAR_BLOCK = 512;
+
+  private final StorageService storage;
+  private final int maxEmails;
+  private final int parallelism;
+  private final int window;
+  private final PageParser parser = new PageParser();
+  private final Set<String> extensions = new HashSet<>(CorpusScanner.DEFAULT_EXTENSIONS);
+  private final EmailStore emails = new EmailStore();
+  private final Set<String> goodLinks = new HashSet<>();
+  private final Set<String> badLinks = new HashSet<>();
+  private boolean byteScan = false;
+
+  public ArchiveScanner(StorageService storage, int maxEmails) {
+    this(storage, maxEmails, Runtime.getRuntime().availableProcessors());
+  }
+
+  public ArchiveScanner(StorageService storage, int maxEmails, int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("parallelism must be at least 1");
+    }
+    this.storage = storage;
+    this.maxEmails = maxEmails;
+    this.parallelism = parallelism;
+    this.window = parallelism * 4;
+  }
+
+  /**
+   * When set, pages are searched for emails by ByteEmailScanner instead of
+   * being parsed with Jsoup, so they are never decoded at all.
+   */
+  public ArchiveScanner setByteScan(boolean byteScan) {
+    this.byteScan = byteScan;
+    return this;
+  }
+
+  /**
+   * True if the file name is one of the archive types that can be scanned.
+   */
+  public static boolean isArchive(Path file) {
+    String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+    return name.endsWith(".warc") || name.endsWith(".warc.gz") || name.endsWith(".zip")
+        || name.endsWith(".tar") || name.endsWith(".tar.gz") || name.endsWith(".tgz");
+  }
+
+  public Set<String> getEmails() {
+    return emails;
+  }
+
+  public Set<String> getGoodLinks() {
+    return goodLinks;
+  }
+
+  public Set<String> getBadLinks() {
+    return badLinks;
+  }
+
+  /**
+   * Scans the given archives and keeps up to maxEmails of the addresses
+   * found.  An archive that cannot be read is listed as a bad link, along
+   * with whatever was found in it before the error.
+   */
+  public void scan(List<Path> archives) {
+    if (archives.isEmpty()) {
+      return;
+    }
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      Result result = pool.invoke(new ArchivesTask(archives, 0, archives.size()));
+      for (String email : result.emails) {
+        if (emails.size() >= maxEmails) {
+          break;
+        }
+        emails.add(email);
+      }
+      goodLinks.addAll(result.good);
+      badLinks.addAll(result.bad);
+    } finally {
+      pool.shutdown();
+    }
+    logger.info("scanned {} archives: {} pages, {} failed, {} emails",
+        archives.size(), goodLinks.size(), badLinks.size(), emails.size());
+  }
+
+  public void report() {
+    storage.storeList(EMAIL, emails);
+    storage.storeList(GOODLINKS, goodLinks);
+    storage.storeList(BADLINKS, badLinks);
+  }
+
+  /**
+   * What one task found.  Merging adds the smaller result to the larger.
+   */
+  private static final class Result {
+    Set<String> emails = new HashSet<>();
+    Set<String> good = new HashSet<>();
+    Set<String> bad = new HashSet<>();
+
+    Result merge(Result other) {
+      emails = union(emails, other.emails);
+      good = union(good, other.good);
+      bad = union(bad, other.bad);
+      return this;
+    }
+
+    private static Set<String> union(Set<String> a, Set<String> b) {
+      if (a.size() < b.size()) {
+        b.addAll(a);
+        return b;
+      }
+      a.addAll(b);
+      return a;
+    }
+  }
+
+  /**
+   * Scans a range of the archive list, splitting it in half until each
+   * task has a single archive.
+   */
+  private final class ArchivesTask extends RecursiveTask<Result> {
+    private final List<Path> archives;
+    private final int from;
+    private final int to;
+
+    ArchivesTask(List<Path> archives, int from, int to) {
+      this.archives = archives;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected Result compute() {
+      if (to - from == 1) {
+        return scanArchive(archives.get(from));
+      }
+      int mid = (from + to) >>> 1;
+      ArchivesTask left = new ArchivesTask(archives, from, mid);
+      left.fork();
+      Result right = new ArchivesTask(archives, mid, to).compute();
+      return right.merge(left.join());
+    }
+  }
+
+  /**
+   * Parses one page.
+   */
+  private final class PageTask extends RecursiveTask<Result> {
+    private final RawPage page;
+
+    PageTask(RawPage page) {
+      this.page = page;
+    }
+
+    @Override
+    protected Result compute() {
+      return parse(page);
+    }
+  }
+
+  /**
+   * Decompresses and parses one zip entry.
+   */
+  private final class ZipEntryTask extends RecursiveTask<Result> {
+    private final ZipFile zip;
+    private final ZipEntry entry;
+    private final String name;
+
+    ZipEntryTask(ZipFile zip, ZipEntry entry, String name) {
+      this.zip = zip;
+      this.entry = entry;
+      this.name = name;
+    }
+
+    @Override
+    protected Result compute() {
+      try (InputStream in = zip.getInputStream(entry)) {
+        byte[] body = WarcReader.readAll(in, WarcReader.DEFAULT_MAX_RECORD);
+        return parse(new RawPage(name, body, null));
+      } catch (IOException e) {
+        Result result = new Result();
+        result.bad.add(name);
+        return result;
+      }
+    }
+  }
+
+  /**
+   * The page tasks forked by one archive.  Once the window is full the
+   * oldest task is joined before another is forked, which bounds the
+   * pages held in memory while the archive is being read.
+   */
+  private final class Batch {
+    private final Deque<ForkJoinTask<Result>> pending = new ArrayDeque<>();
+    private final Result result = new Result();
+
+    void add(ForkJoinTask<Result> task) {
+      task.fork();
+      pending.addLast(task);
+      if (pending.size() > window) {
+        result.merge(pending.pollFirst().join());
+      }
+    }
+
+    Result finish() {
+      while (!pending.isEmpty()) {
+        result.merge(pending.pollFirst().join());
+      }
+      return result;
+    }
+  }
+
+  private Result scanArchive(Path archive) {
+    String name = archive.getFileName().toString().toLowerCase(Locale.ROOT);
+    Batch batch = new Batch();
+    try {
+      if (name.endsWith(".zip")) {
+        scanZip(archive, batch);
+      } else if (name.endsWith(".warc") || name.endsWith(".warc.gz")) {
+        scanWarc(archive, batch);
+      } else {
+        scanTar(archive, batch);
+      }
+    } catch (IOException | RuntimeException e) {
+      logger.warn("unable to read {}: {}", archive, e.getMessage());
+      batch.result.bad.add(archive.toString());
+    }
+    return batch.finish();
+  }
+
+  private void scanWarc(Path archive, Batch batch) throws IOException {
+    try (WarcReader reader = WarcReader.open(archive)) {
+      RawPage page;
+      while ((page = reader.next()) != null) {
+        batch.add(new PageTask(page));
+      }
+    }
+  }
+
+  /**
+   * Forks a task per entry; the entries are decompressed in parallel, so
+   * every task is joined before the zip file is closed.
+   */
+  private void scanZip(Path archive, Batch batch) throws IOException {
+    try (ZipFile zip = new ZipFile(archive.toFile())) {
+      Enumeration<? extends ZipEntry> entries = zip.entries();
+      try {
+        while (entries.hasMoreElements()) {
+          ZipEntry entry = entries.nextElement();
+          if (!entry.isDirectory() && entry.getSize() <= WarcReader.DEFAULT_MAX_RECORD
+              && CorpusScanner.isPage(entry.getName(), extensions)) {
+            batch.add(new ZipEntryTask(zip, entry, archive + "!/" + entry.getName()));
+          }
+        }
+      } finally {
+        batch.finish();
+      }
+    }
+  }
+
+  /**
+   * Reads a (ustar or GNU) tar stream, gzip-compressed or not, forking a
+   * task for every regular file that looks like a page.
+   */
+  private void scanTar(Path archive, Batch batch) throws IOException {
+    InputStream raw = Files.newInputStream(archive);
+    String name = archive.getFileName().toString().toLowerCase(Locale.ROOT);
+    if (name.endsWith(".gz") || name.endsWith(".tgz")) {
+      raw = new GZIPInputStream(raw, 64 * 1024);
+    }
+    try (InputStream in = new BufferedInputStream(raw, 64 * 1024)) {
+      byte[] header = new byte[TAR_BLOCK];
+      while (readFully(in, header) && !isZero(header)) {
+        String entry = tarString(header, 0, 100);
+        String prefix = tarString(header, 345, 155);
+        if (tarString(header, 257, 6).trim().equals("ustar") && !prefix.isEmpty()) {
+          entry = prefix + "/" + entry;
+        }
+        String size = tarString(header, 124, 12).trim();
+        long length = size.isEmpty() ? 0 : Long.parseLong(size, 8);
+        long padding = (TAR_BLOCK - length % TAR_BLOCK) % TAR_BLOCK;
+        byte type = header[156];
+        if ((type == '0' || type == 0) && length <= WarcReader.DEFAULT_MAX_RECORD
+            && CorpusScanner.isPage(entry, extensions)) {
+          byte[] body = new byte[(int) length];
+          if (!readFully(in, body)) {
+            throw new EOFException("truncated tar entry " + entry);
+          }
+          batch.add(new PageTask(new RawPage(archive + "!/" + entry, body, null)));
+          skip(in, padding);
+        } else {
+          skip(in, length + padding);
+        }
+      }
+    }
+  }
+
+  private Result parse(RawPage page) {
+    Result result = new Result();
+    if (byteScan) {
+      result.emails.addAll(EmailNormalizer.normalizeAll(ByteEmailScanner.findEmails(page.getBody())));
+      result.good.add(page.getUrl());
+      return result;
+    }
+    try {
+      Document doc = Jsoup.parse(new ByteArrayInputStream(page.getBody()), page.getCharset(), page.getUrl());
+      result.emails.addAll(EmailNormalizer.normalizeAll(parser.findEmails(doc)));
+      result.good.add(page.getUrl());
+    } catch (IOException | RuntimeException e) {
+      logger.debug("unable to parse {}: {}", page.getUrl(), e.getMessage());
+      result.bad.add(page.getUrl());
+    }
+    return result;
+  }
+
+  private static String tarString(byte[] header, int offset, int length) {
+    int end = offset;
+    while (end < offset + length && header[end] != 0) {
+      end++;
+    }
+    return new String(header, offset, end - offset, StandardCharsets.UTF_8);
+  }
+
+  private static boolean isZero(byte[] block) {
+    for (byte b : block) {
+      if (b != 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Fills the buffer, returning false if the stream ends first.
+   */
+  private static boolean readFully(InputStream in, byte[] buf) throws IOException {
+    int off = 0;
+    while (off < buf.length) {
+      int count = in.read(buf, off, buf.length - off);
+      if (count < 0) {
+        return false;
+      }
+      off += count;
+    }
+    return true;
+  }
+
+  private static void skip(InputStream in, long length) throws IOException {
+    long left = length;
+    while (left > 0) {
+      long count = in.skip(left);
+      if (count <= 0) {
+        if (in.read() < 0) {
+          throw new EOFException("truncated tar file");
+        }
+        count = 1;
+      }
+      left -= count;
+    }
+  }
+}
@@ -0,0 +1,247 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequests;
+import org.apache.hc.client5.http.async.methods.SimpleRequestProducer;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.Message;
+import org.apache.hc.core5.http.nio.entity.AbstractBinAsyncEntityConsumer;
+import org.apache.hc.core5.http.nio.support.BasicResponseConsumer;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.jsoup.HttpStatusException;
+
+/**
+ * A backend built on the httpclient5 asynchronous client.  Connections are
+ * pooled and kept alive between requests, and HTTP/2 is negotiated where
+ * the server supports it so that requests to one host share a single
+ * multiplexed connection.  The number of requests in flight at any moment
+ * is bounded; callers of fetch() block until a slot frees up.  Like
+ * Jsoup, only the first 2 MB of a response body are kept by default, and
+ * the rest is discarded as it arrives.
+ */
+public class AsyncHttpBackend implements FetchBackend {
+
+  public static final int DEFAULT_MAX_IN_FLIGHT = 256;
+  public static final int DEFAULT_MAX_PER_HOST = 8;
+  public static final int DEFAULT_MAX_BODY_SIZE = 2 * 1024 * 1024;
+
+  private static final Timeout TIMEOUT = Timeout.ofSeconds(30);
+
+  private final CloseableHttpAsyncClient client;
+  private final Semaphore inFlight;
+  private final int maxBodySize;
+
+  public AsyncHttpBackend() {
+    this(DEFAULT_MAX_IN_FLIGHT, DEFAULT_MAX_PER_HOST);
+  }
+
+  public AsyncHttpBackend(int maxInFlight, int maxPerHost) {
+    this(maxInFlight, maxPerHost, DEFAULT_MAX_BODY_SIZE);
+  }
+
+  /**
+   * @param maxBodySize bytes of a response body to keep; longer bodies
+   *     are truncated
+   */
+  public AsyncHttpBackend(int maxInFlight, int maxPerHost, int maxBodySize) {
+    if (maxBodySize < 0) {
+      throw new IllegalArgumentException("maxBodySize must not be negative");
+    }
+    PoolingAsyncClientConnectionManager connections = PoolingAsyncClientConnectionManagerBuilder.create()
+        .setMaxConnTotal(maxInFlight)
+        .setMaxConnPerRoute(maxPerHost)
+        .build();
+    RequestConfig config = RequestConfig.custom()
+        .setConnectTimeout(TIMEOUT)
+        .setResponseTimeout(TIMEOUT)
+        .build();
+    this.client = HttpAsyncClients.custom()
+        .setConnectionManager(connections)
+        .setVersionPolicy(HttpVersionPolicy.NEGOTIATE)
+        .setDefaultRequestConfig(config)
+        .build();
+    this.inFlight = new Semaphore(maxInFlight);
+    this.maxBodySize = maxBodySize;
+    client.start();
+  }
+
+  @Override
+  public RawPage fetch(String url) throws IOException {
+    return fetch(url, null, null);
+  }
+
+  @Override
+  public RawPage fetch(String url, String etag, String lastModified) throws IOException {
+    try {
+      return fetchAsync(url, etag, lastModified).get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("interrupted while fetching " + url);
+    } catch (ExecutionException e) {
+      Throwable cause = e.getCause();
+      if (cause instanceof IOException) {
+        throw (IOException) cause;
+      }
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
+      }
+      throw new IOException(cause);
+    }
+  }
+
+  /**
+   * Starts a request and returns without waiting for the response.  Blocks
+   * only while the in-flight limit has been reached.
+   */
+  public CompletableFuture<RawPage> fetchAsync(String url) throws InterruptedException {
+    return fetchAsync(url, null, null);
+  }
+
+  /**
+   * Starts a conditional request (see FetchBackend.fetch(url, etag,
+   * lastModified)).
+   */
+  public CompletableFuture<RawPage> fetchAsync(String url, String etag, String lastModified)
+      throws InterruptedException {
+    URI uri = URI.create(url);
+    SimpleHttpRequest request = SimpleHttpRequests.get(uri);
+    if (etag != null) {
+      request.setHeader("If-None-Match", etag);
+    }
+    if (lastModified != null) {
+      request.setHeader("If-Modified-Since", lastModified);
+    }
+    CompletableFuture<RawPage> result = new CompletableFuture<>();
+    inFlight.acquire();
+    try {
+      client.execute(SimpleRequestProducer.create(request),
+          new BasicResponseConsumer<>(new CappedBodyConsumer(maxBodySize)), callback(url, result));
+    } catch (RuntimeException e) {
+      inFlight.release();
+      throw e;
+    }
+    return result;
+  }
+
+  private FutureCallback<Message<HttpResponse, byte[]>> callback(String url, CompletableFuture<RawPage> result) {
+    return new FutureCallback<Message<HttpResponse, byte[]>>() {
+      @Override
+      public void completed(Message<HttpResponse, byte[]> message) {
+        inFlight.release();
+        HttpResponse response = message.getHead();
+        if (response.getCode() >= 400) {
+          result.completeExceptionally(
+              new HttpStatusException("HTTP error fetching URL", response.getCode(), url));
+        } else if (response.getCode() == 304) {
+          result.complete(RawPage.notModified(url));
+        } else {
+          byte[] body = message.getBody();
+          result.complete(new RawPage(url, body == null ? new byte[0] : body, charset(response),
+              header(response, "ETag"), header(response, "Last-Modified")));
+        }
+      }
+
+      @Override
+      public void failed(Exception err) {
+        inFlight.release();
+        result.completeExceptionally(err);
+      }
+
+      @Override
+      public void cancelled() {
+        inFlight.release();
+        result.cancel(false);
+      }
+    };
+  }
+
+  private static String header(HttpResponse response, String name) {
+    Header header = response.getFirstHeader(name);
+    return header == null ? null : header.getValue();
+  }
+
+  private static String charset(HttpResponse response) {
+    String value = header(response, "Content-Type");
+    ContentType type = value == null ? null : ContentType.parseLenient(value);
+    Charset charset = type == null ? null : type.getCharset();
+    return charset == null ? null : charset.name();
+  }
+
+  /**
+   * Collects a response body up to a limit and drops whatever follows.
+   */
+  private static class CappedBodyConsumer extends AbstractBinAsyncEntityConsumer<byte[]> {
+    private final int limit;
+    private final ByteArrayOutputStream body = new ByteArrayOutputStream();
+
+    CappedBodyConsumer(int limit) {
+      this.limit = limit;
+    }
+
+    @Override
+    protected void streamStart(ContentType contentType) {
+    }
+
+    @Override
+    protected int capacityIncrement() {
+      return Integer.MAX_VALUE;
+    }
+
+    @Override
+    protected void data(ByteBuffer src, boolean endOfStream) {
+      int keep = Math.min(src.remaining(), limit - body.size());
+      if (keep > 0) {
+        byte[] chunk = new byte[keep];
+        src.get(chunk);
+        body.write(chunk, 0, keep);
+      }
+      src.position(src.limit());
+    }
+
+    @Override
+    protected byte[] generateContent() {
+      return body.toByteArray();
+    }
+
+    @Override
+    public void releaseResources() {
+      body.reset();
+    }
+  }
+
+  @Override
+  public void close() {
+    client.close(CloseMode.GRACEFUL);
+    try {
+      client.awaitShutdown(TimeValue.ofSeconds(5));
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A VisitedSet backed by a Bloom filter.  Its size is fixed up front from
+ * the expected number of URLs and the false-positive rate, e.g. about 1.8
+ * bytes per URL at 1 in 1000.  A false positive makes the crawler treat a
+ * new URL as already seen and skip it, so this trades a small, known
+ * fraction of missed pages for a tiny fixed memory footprint.
+ * Bits are set with compare-and-set, so no locks are taken.
+ */
+public class BloomVisitedSet implements VisitedSet {
+
+  public static final double DEFAULT_FPP = 0.001;
+
+  private final AtomicLongArray words;
+  private final long bits;
+  private final int hashes;
+  private final LongAdder count = new LongAdder();
+
+  public BloomVisitedSet(long expected) {
+    this(expected, DEFAULT_FPP);
+  }
+
+  public BloomVisitedSet(long expected, double fpp) {
+    if (expected < 1 || fpp <= 0 || fpp >= 1) {
+      throw new IllegalArgumentException("expected must be positive and fpp between 0 and 1");
+    }
+    double ln2 = Math.log(2);
+    long wanted = (long) Math.ceil(-expected * Math.log(fpp) / (ln2 * ln2));
+    long wordCount = Math.max(1, (wanted + 63) / 64);
+    if (wordCount > Integer.MAX_VALUE) {
+      throw new IllegalArgumentException("Bloom filter too large");
+    }
+    this.words = new AtomicLongArray((int) wordCount);
+    this.bits = wordCount * 64;
+    this.hashes = Math.max(1, (int) Math.round((double) bits / expected * ln2));
+  }
+
+  /**
+   * Returns true if any of the URL's bits was not set yet.
+   */
+  @Override
+  public boolean add(String url) {
+    long h1 = VisitedSet.fingerprint(url);
+    long h2 = VisitedSet.mix(h1) | 1;
+    boolean added = false;
+    for (int i = 0; i < hashes; i++) {
+      long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+      int index = (int) (bit >>> 6);
+      long mask = 1L << bit;
+      long word = words.get(index);
+      while ((word & mask) == 0) {
+        if (words.compareAndSet(index, word, word | mask)) {
+          added = true;
+          break;
+        }
+        word = words.get(index);
+      }
+    }
+    if (added) {
+      count.increment();
+    }
+    return added;
+  }
+
+  @Override
+  public boolean contains(String url) {
+    long h1 = VisitedSet.fingerprint(url);
+    long h2 = VisitedSet.mix(h1) | 1;
+    for (int i = 0; i < hashes; i++) {
+      long bit = ((h1 + i * h2) & Long.MAX_VALUE) % bits;
+      if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public long size() {
+    return count.sum();
+  }
+
+  @Override
+  public long sizeInBytes() {
+    return bits / 8;
+  }
+
+  int getHashCount() {
+    return hashes;
+  }
+}
@@ -0,0 +1,168 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Finds email addresses in raw page bytes, using the same pattern as
+ * EmailMatcher, without decoding the page.  The search for '@' looks at
+ * eight bytes at a time (SWAR: one 64-bit load, xor and a borrow trick
+ * per word), and only around each '@' are bytes looked at one by one.
+ * Only the matched spans are turned into Strings.
+ * Addresses are pure ASCII, so any ASCII-compatible encoding (UTF-8,
+ * ISO-8859-x, windows-125x) works; UTF-16 pages do not.  Unlike
+ * PageParser, which looks at the document's text, the whole page is
+ * scanned: addresses in mailto links, attributes, comments and scripts
+ * are found too, while ones hidden behind character references (&amp;#64;)
+ * are not.
+ */
+public class ByteEmailScanner {
+
+  /**
+   * Receives each match as the range [start, end) of the scanned buffer.
+   */
+  public interface Sink {
+    void accept(ByteBuffer buf, int start, int end);
+  }
+
+  private static final long ATS = 0x4040404040404040L;
+  private static final long ONES = 0x0101010101010101L;
+  private static final long HIGHS = 0x8080808080808080L;
+  private static final int OVERLAP = 1024;
+
+  private ByteEmailScanner() {}
+
+  public static Set<String> findEmails(byte[] page) {
+    return findEmails(ByteBuffer.wrap(page));
+  }
+
+  /**
+   * Returns the addresses between the buffer's position and limit.  The
+   * buffer itself is not changed.
+   */
+  public static Set<String> findEmails(ByteBuffer page) {
+    Set<String> emails = new HashSet<>();
+    find(page, page.position(), page.limit(), (buf, start, end) -> emails.add(decode(buf, start, end)));
+    return emails;
+  }
+
+  /**
+   * Memory-maps a file and scans it in place, one map window at a time.
+   */
+  public static Set<String> findEmails(FileChannel channel) throws IOException {
+    return findEmails(channel, StreamingExtractor.MAP_WINDOW);
+  }
+
+  /**
+   * Windows overlap by a little more than the longest plausible address.
+   * A match touching the edge of a window may be cut short, so it is only
+   * kept if it is at the edge of the file as well; otherwise the
+   * neighbouring window sees it whole.
+   */
+  static Set<String> findEmails(FileChannel channel, long window) throws IOException {
+    Set<String> emails = new HashSet<>();
+    long size = channel.size();
+    for (long offset = 0; offset < size; offset += window) {
+      int length = (int) Math.min(window + OVERLAP, size - offset);
+      boolean first = offset == 0;
+      boolean last = offset + length == size;
+      ByteBuffer map = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+      find(map, 0, length, (buf, start, end) -> {
+        if ((first || start > 0) && (last || end < length)) {
+          emails.add(decode(buf, start, end));
+        }
+      });
+    }
+    return emails;
+  }
+
+  /**
+   * Reports every email address within [from, to) of the buffer to the
+   * sink, in order.
+   */
+  public static void find(ByteBuffer page, int from, int to, Sink sink) {
+    ByteBuffer buf = page.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+    int at = indexOfAt(buf, from, to);
+    while (at >= 0) {
+      int start = at;
+      while (start > from && EmailMatcher.isLocalChar(buf.get(start - 1))) {
+        start--;
+      }
+      int end = start < at ? matchDomain(buf, at + 1, to) : -1;
+      if (end < 0) {
+        from = at + 1;
+      } else {
+        sink.accept(page, start, end);
+        from = end;
+      }
+      at = indexOfAt(buf, from, to);
+    }
+  }
+
+  /**
+   * Makes a String of a matched span, which is known to be ASCII.
+   */
+  public static String decode(ByteBuffer buf, int start, int end) {
+    char[] chars = new char[end - start];
+    for (int i = start; i < end; i++) {
+      chars[i - start] = (char) buf.get(i);
+    }
+    return new String(chars);
+  }
+
+  /**
+   * Returns the end of [a-zA-Z0-9-]+\.[a-zA-Z0-9-.]+ starting at pos, or -1
+   * if the domain does not match there.
+   */
+  private static int matchDomain(ByteBuffer buf, int pos, int to) {
+    int end = pos;
+    while (end < to && EmailMatcher.isDomainChar(buf.get(end))) {
+      end++;
+    }
+    if (end == pos || end + 1 >= to || buf.get(end) != '.') {
+      return -1;
+    }
+    end++;
+    byte next = buf.get(end);
+    if (!EmailMatcher.isDomainChar(next) && next != '.') {
+      return -1;
+    }
+    while (end < to && (EmailMatcher.isDomainChar(buf.get(end)) || buf.get(end) == '.')) {
+      end++;
+    }
+    return end;
+  }
+
+  /**
+   * Finds the next '@' in [from, to).  Each 64-bit word is xored with
+   * '@' in every byte, which turns '@' bytes into zero bytes; the lowest
+   * zero byte is then exactly the lowest bit set in (x - 0x01..) &amp; ~x &amp;
+   * 0x80.. (bits above it may be false positives, but are never looked at).
+   * The buffer must be little-endian so that the lowest byte comes first.
+   */
+  static int indexOfAt(ByteBuffer buf, int from, int to) {
+    int i = from;
+    for (; i + Long.BYTES <= to; i += Long.BYTES) {
+      long x = buf.getLong(i) ^ ATS;
+      long found = (x - ONES) & ~x & HIGHS;
+      if (found != 0) {
+        return i + (Long.numberOfTrailingZeros(found) >>> 3);
+      }
+    }
+    for (; i < to; i++) {
+      if (buf.get(i) == '@') {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,173 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * A faster ListWriter for large lists.  Items are encoded as UTF-8 straight
+ * into one reusable direct buffer, which is written to the channel only
+ * when it fills up, so a million-line list costs a few dozen writes rather
+ * than two per line, and no byte array per item.
+ * Output can optionally be gzip-compressed (see open()).
+ * Not thread-safe; ListAppender adds the locking for shared use.
+ */
+public class ChannelListWriter implements AutoCloseable {
+
+  public enum Compression {NONE, GZIP};
+
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final WritableByteChannel channel;
+  private final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+  private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder()
+      .onMalformedInput(CodingErrorAction.REPLACE)
+      .onUnmappableCharacter(CodingErrorAction.REPLACE);
+  private CharBuffer chars = CharBuffer.allocate(256);
+
+  public ChannelListWriter(WritableByteChannel channel) {
+    this.channel = channel;
+  }
+
+  /**
+   * Creates (or truncates) a file and returns a writer for it.
+   */
+  public static ChannelListWriter open(Path path, Compression compression) throws IOException {
+    FileChannel file = FileChannel.open(path, StandardOpenOption.CREATE,
+        StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    if (compression == Compression.GZIP) {
+      try {
+        return new ChannelListWriter(new GzipChannel(file));
+      } catch (IOException err) {
+        file.close();
+        throw err;
+      }
+    }
+    return new ChannelListWriter(file);
+  }
+
+  public void writeList(Collection<String> aList) throws IOException {
+    for (String item : aList) {
+      write(item);
+    }
+    flush();
+  }
+
+  /**
+   * Adds one item and a newline to the buffer.
+   */
+  public void write(String item) throws IOException {
+    int length = item.length();
+    if (chars.capacity() < length) {
+      chars = CharBuffer.allocate(Math.max(length, chars.capacity() * 2));
+    }
+    chars.clear();
+    item.getChars(0, length, chars.array(), 0);
+    chars.limit(length);
+    encoder.reset();
+    while (true) {
+      CoderResult result = encoder.encode(chars, buffer, true);
+      if (result.isOverflow()) {
+        drain();
+      } else {
+        break;
+      }
+    }
+    while (encoder.flush(buffer).isOverflow()) {
+      drain();
+    }
+    if (!buffer.hasRemaining()) {
+      drain();
+    }
+    buffer.put((byte) '\n');
+  }
+
+  /**
+   * Writes out everything buffered so far.
+   */
+  public void flush() throws IOException {
+    drain();
+    if (channel instanceof Flushable) {
+      ((Flushable) channel).flush();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    try {
+      drain();
+    } finally {
+      channel.close();
+    }
+  }
+
+  private void drain() throws IOException {
+    buffer.flip();
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+    buffer.clear();
+  }
+
+  /**
+   * Compresses whatever is written to it into a file channel.  Flushing
+   * does a gzip sync flush, so everything written so far can be read back
+   * while the file is still open.
+   */
+  private static class GzipChannel implements WritableByteChannel, Flushable {
+    private final GZIPOutputStream gzip;
+    private final byte[] chunk = new byte[BUFFER_SIZE];
+    private boolean open = true;
+
+    GzipChannel(FileChannel file) throws IOException {
+      OutputStream out = Channels.newOutputStream(file);
+      this.gzip = new GZIPOutputStream(out, BUFFER_SIZE, true);
+    }
+
+    @Override
+    public int write(ByteBuffer src) throws IOException {
+      int written = 0;
+      while (src.hasRemaining()) {
+        int count = Math.min(src.remaining(), chunk.length);
+        src.get(chunk, 0, count);
+        gzip.write(chunk, 0, count);
+        written += count;
+      }
+      return written;
+    }
+
+    @Override
+    public void flush() throws IOException {
+      gzip.flush();
+    }
+
+    @Override
+    public boolean isOpen() {
+      return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+      open = false;
+      gzip.close();
+    }
+  }
+}
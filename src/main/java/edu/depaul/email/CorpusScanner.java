@@ -0,0 +1,222 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static edu.depaul.email.StorageService.StorageType.EMAIL;
+import static edu.depaul.email.StorageService.StorageType.GOODLINKS;
+import static edu.depaul.email.StorageService.StorageType.BADLINKS;
+
+/**
+ * Finds email addresses in an offline copy of a site, such as a wget
+ * mirror, instead of crawling it over the network.  The directory tree is
+ * walked and every page file is memory-mapped and scanned in place by
+ * StreamingExtractor, on one thread per core, so nothing but the addresses
+ * themselves is copied onto the heap.  Links are not followed: every file
+ * under the directory is scanned anyway.
+ * The same three lists as PageCrawler's are written by report(), with
+ * file paths in place of URLs.
+ */
+public class CorpusScanner {
+  private static final Logger logger = LoggerFactory.getLogger(CorpusScanner.class);
+
+  /**
+   * The file name extensions scanned by default.  Files without an
+   * extension are scanned too, as wget saves some pages that way.
+   */
+  public static final List<String> DEFAULT_EXTENSIONS = Arrays.asList(
+      "html", "htm", "shtml", "xhtml", "php", "asp", "aspx", "jsp", "txt");
+
+  private final StorageService storage;
+  private final int maxEmails;
+  private final int threads;
+  private final StreamingExtractor extractor = new StreamingExtractor();
+  private final Set<String> extensions = new HashSet<>(DEFAULT_EXTENSIONS);
+  private final EmailStore emails = new EmailStore();
+  private final Set<String> goodLinks = ConcurrentHashMap.newKeySet();
+  private final Set<String> badLinks = ConcurrentHashMap.newKeySet();
+  private final LongAdder bytesScanned = new LongAdder();
+  private volatile boolean stopped = false;
+  private boolean byteScan = false;
+
+  public CorpusScanner(StorageService storage, int maxEmails) {
+    this(storage, maxEmails, Runtime.getRuntime().availableProcessors());
+  }
+
+  public CorpusScanner(StorageService storage, int maxEmails, int threads) {
+    if (threads < 1) {
+      throw new IllegalArgumentException("threads must be at least 1");
+    }
+    this.storage = storage;
+    this.maxEmails = maxEmails;
+    this.threads = threads;
+  }
+
+  /**
+   * Replaces the extensions of the files to scan.  An empty list scans
+   * every regular file.
+   */
+  public CorpusScanner setExtensions(List<String> extensions) {
+    this.extensions.clear();
+    for (String extension : extensions) {
+      this.extensions.add(extension.toLowerCase(Locale.ROOT));
+    }
+    return this;
+  }
+
+  /**
+   * When set, files are searched for emails only, by ByteEmailScanner,
+   * which skips through the mapped bytes eight at a time instead of
+   * running the HTML state machine over every byte.
+   */
+  public CorpusScanner setByteScan(boolean byteScan) {
+    this.byteScan = byteScan;
+    return this;
+  }
+
+  public Set<String> getEmails() {
+    return emails;
+  }
+
+  public Set<String> getGoodLinks() {
+    return goodLinks;
+  }
+
+  public Set<String> getBadLinks() {
+    return badLinks;
+  }
+
+  public long getBytesScanned() {
+    return bytesScanned.sum();
+  }
+
+  /**
+   * Scans every page file under the given directory, stopping early once
+   * maxEmails addresses have been found.  At most a few files per thread
+   * are waiting to be scanned at any time, however large the tree.
+   */
+  public void scan(Path root) {
+    if (!Files.isDirectory(root)) {
+      throw new EmailFinderException("not a directory: " + root, null);
+    }
+    ExecutorService pool = Executors.newFixedThreadPool(threads);
+    Semaphore slots = new Semaphore(threads * 4);
+    try (Stream<Path> files = Files.walk(root)) {
+      Iterator<Path> it = files.iterator();
+      while (it.hasNext() && !stopped) {
+        Path file = it.next();
+        if (!Files.isRegularFile(file) || !isPage(file)) {
+          continue;
+        }
+        slots.acquire();
+        pool.execute(() -> {
+          try {
+            if (!stopped) {
+              scanFile(file);
+            }
+          } finally {
+            slots.release();
+          }
+        });
+      }
+    } catch (IOException e) {
+      throw new EmailFinderException("unable to walk " + root, e);
+    } catch (UncheckedIOException e) {
+      throw new EmailFinderException("unable to walk " + root, e.getCause());
+    } catch (InterruptedException e) {
+      stopped = true;
+      Thread.currentThread().interrupt();
+    } finally {
+      pool.shutdown();
+      try {
+        pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        pool.shutdownNow();
+        Thread.currentThread().interrupt();
+      }
+    }
+    logger.info("scanned {} files ({} bytes), found {} emails",
+        goodLinks.size(), getBytesScanned(), emails.size());
+  }
+
+  private boolean isPage(Path file) {
+    return isPage(file.getFileName().toString(), extensions);
+  }
+
+  /**
+   * True if the file name has one of the given (lowercase) extensions or
+   * none at all, or if no extensions are given.
+   */
+  static boolean isPage(String name, Set<String> extensions) {
+    if (extensions.isEmpty()) {
+      return true;
+    }
+    int slash = name.lastIndexOf('/');
+    int dot = name.lastIndexOf('.');
+    return dot <= slash || extensions.contains(name.substring(dot + 1).toLowerCase(Locale.ROOT));
+  }
+
+  private void scanFile(Path file) {
+    Set<String> found;
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      found = EmailNormalizer.normalizeAll(byteScan
+          ? ByteEmailScanner.findEmails(channel) : extractor.extract(channel).getEmails());
+      bytesScanned.add(channel.size());
+    } catch (IOException e) {
+      badLinks.add(file.toString());
+      logger.debug("unable to scan {}: {}", file, e.getMessage());
+      return;
+    }
+    goodLinks.add(file.toString());
+    if (!found.isEmpty()) {
+      addEmails(found);
+    }
+  }
+
+  /**
+   * Merges the addresses found in one file.  Files are merged one at a
+   * time so that exactly maxEmails addresses are kept.
+   */
+  private synchronized void addEmails(Set<String> found) {
+    for (String email : found) {
+      if (emails.size() >= maxEmails) {
+        break;
+      }
+      emails.add(email);
+    }
+    if (emails.size() >= maxEmails) {
+      stopped = true;
+    }
+  }
+
+  public void report() {
+    storage.storeList(EMAIL, emails);
+    storage.storeList(GOODLINKS, goodLinks);
+    storage.storeList(BADLINKS, badLinks);
+  }
+}
@@ -0,0 +1,254 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An append-only log of crawl progress, so that a crawl that dies can be
+ * resumed without fetching again the pages it had already finished.
+ * Each line is a record type, a tab and a value:
+ *   Q  a URL that was added to the frontier, after its link depth and
+ *      another tab
+ *   G  a URL that was fetched successfully
+ *   B  a URL that could not be fetched
+ *   E  an email address that was found
+ * Records are buffered and flushed to disk (and synced) every few seconds,
+ * so a crash loses at most the last interval; a half-written last line is
+ * ignored on reload.  On resume, every URL that was queued but never
+ * finished goes back into the frontier at the depth it was queued at.
+ */
+public class CrawlCheckpoint {
+
+  private static final Logger logger = LoggerFactory.getLogger(CrawlCheckpoint.class);
+
+  public static final long DEFAULT_FLUSH_SECONDS = 5;
+
+  private final Path file;
+  private final FileOutputStream stream;
+  private final Writer out;
+  private final ScheduledExecutorService flusher;
+
+  private final Map<String, Integer> queued = new LinkedHashMap<>();
+  private final Set<String> good = new LinkedHashSet<>();
+  private final Set<String> bad = new LinkedHashSet<>();
+  private final Set<String> emails = new LinkedHashSet<>();
+
+  /**
+   * Opens a checkpoint log.  With resume set, an existing log is read
+   * back and appended to; otherwise any existing log is discarded.
+   */
+  public CrawlCheckpoint(Path file, boolean resume) {
+    this(file, resume, DEFAULT_FLUSH_SECONDS);
+  }
+
+  public CrawlCheckpoint(Path file, boolean resume, long flushSeconds) {
+    this.file = file;
+    try {
+      if (resume && Files.exists(file)) {
+        load();
+      }
+      stream = new FileOutputStream(file.toFile(), resume);
+      out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 64 * 1024);
+    } catch (IOException e) {
+      throw new EmailFinderException("unable to open checkpoint " + file, e);
+    }
+    flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "crawl-checkpoint");
+      thread.setDaemon(true);
+      return thread;
+    });
+    flusher.scheduleWithFixedDelay(this::flushQuietly, flushSeconds, flushSeconds, TimeUnit.SECONDS);
+  }
+
+  private void load() throws IOException {
+    boolean complete = endsWithNewline();
+    List<String> lines = new ArrayList<>();
+    try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+      String line;
+      while ((line = reader.readLine()) != null) {
+        lines.add(line);
+      }
+    }
+    if (!complete && !lines.isEmpty()) {
+      lines.remove(lines.size() - 1);
+    }
+    for (String line : lines) {
+      if (line.length() < 3 || line.charAt(1) != '\t') {
+        continue;
+      }
+      String value = line.substring(2);
+      switch (line.charAt(0)) {
+        case 'Q':
+          loadQueued(value);
+          break;
+        case 'G':
+          good.add(value);
+          break;
+        case 'B':
+          bad.add(value);
+          break;
+        case 'E':
+          emails.add(value);
+          break;
+        default:
+          break;
+      }
+    }
+    logger.info("resuming from {}: {} done, {} emails", file, good.size() + bad.size(), emails.size());
+  }
+
+  /**
+   * Reads a "depth, tab, URL" value.  A URL queued more than once keeps
+   * the depth it was first queued at.
+   */
+  private void loadQueued(String value) {
+    int tab = value.indexOf('\t');
+    if (tab <= 0) {
+      return;
+    }
+    try {
+      queued.putIfAbsent(value.substring(tab + 1), Integer.parseInt(value.substring(0, tab)));
+    } catch (NumberFormatException e) {
+      // not a record this version writes
+    }
+  }
+
+  private boolean endsWithNewline() throws IOException {
+    try (RandomAccessFile raf = new RandomAccessFile(file.toFile(), "r")) {
+      if (raf.length() == 0) {
+        return true;
+      }
+      raf.seek(raf.length() - 1);
+      return raf.read() == '\n';
+    }
+  }
+
+  /**
+   * True if an earlier crawl's progress was loaded.
+   */
+  public boolean isResumed() {
+    return !queued.isEmpty();
+  }
+
+  /**
+   * Every URL that was queued, finished or not, in the order it was
+   * queued.
+   */
+  public Set<String> getQueued() {
+    return queued.keySet();
+  }
+
+  public Set<String> getGoodLinks() {
+    return good;
+  }
+
+  public Set<String> getBadLinks() {
+    return bad;
+  }
+
+  public Set<String> getEmails() {
+    return emails;
+  }
+
+  /**
+   * The URLs that were queued but never finished, with their link depths,
+   * in the order they were queued.
+   */
+  public Map<String, Integer> getPending() {
+    Map<String, Integer> pending = new LinkedHashMap<>();
+    for (Map.Entry<String, Integer> entry : queued.entrySet()) {
+      if (!good.contains(entry.getKey()) && !bad.contains(entry.getKey())) {
+        pending.put(entry.getKey(), entry.getValue());
+      }
+    }
+    return pending;
+  }
+
+  public void queued(String url, int depth) {
+    append('Q', depth + "\t" + url);
+  }
+
+  public void good(String url) {
+    append('G', url);
+  }
+
+  public void bad(String url) {
+    append('B', url);
+  }
+
+  public void email(String email) {
+    append('E', email);
+  }
+
+  private synchronized void append(char type, String value) {
+    if (value.indexOf('\n') >= 0 || value.indexOf('\r') >= 0) {
+      return;
+    }
+    try {
+      out.write(type);
+      out.write('\t');
+      out.write(value);
+      out.write('\n');
+    } catch (IOException e) {
+      throw new EmailFinderException("unable to write checkpoint " + file, e);
+    }
+  }
+
+  /**
+   * Writes buffered records out and forces them to disk.
+   */
+  public synchronized void flush() {
+    try {
+      out.flush();
+      stream.getFD().sync();
+    } catch (IOException e) {
+      throw new EmailFinderException("unable to write checkpoint " + file, e);
+    }
+  }
+
+  private void flushQuietly() {
+    try {
+      flush();
+    } catch (EmailFinderException e) {
+      logger.warn(e.getMessage(), e.getCause());
+    }
+  }
+
+  public synchronized void close() {
+    flusher.shutdownNow();
+    try {
+      flush();
+    } finally {
+      try {
+        out.close();
+      } catch (IOException e) {
+        logger.warn("unable to close checkpoint {}", file, e);
+      }
+    }
+  }
+}
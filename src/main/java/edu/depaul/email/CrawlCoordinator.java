@@ -0,0 +1,89 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.io.Closeable;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Lets several crawler processes (nodes) share one crawl.  Hosts are
+ * hash-partitioned between the nodes, so every host belongs to exactly
+ * one node: only that node fetches its pages and remembers which of them
+ * it has seen, which keeps per-host politeness and the visited set local.
+ * Links to another node's hosts are sent to that node instead of being
+ * queued.
+ * Each node reports regularly whether it is idle and how many emails it
+ * has found.  The crawl is over when every node is idle and every batch
+ * of links that was sent has been received, or as soon as one node stops
+ * (for instance because the cluster has found enough emails).  Node 0
+ * then collects what every node found and writes it out.
+ */
+public interface CrawlCoordinator extends Closeable {
+
+  /**
+   * What update() found out about the cluster.
+   */
+  enum State {RUNNING, FINISHED, STOPPED}
+
+  /**
+   * Receives each link sent to this node, with its link depth.
+   */
+  interface Sink {
+    void accept(String url, int depth);
+  }
+
+  /**
+   * This node's number, from 0 to getNodes() - 1.
+   */
+  int getNode();
+
+  int getNodes();
+
+  /**
+   * The node that crawls the URL's host.
+   */
+  default int ownerOf(String url) {
+    return (int) Math.floorMod(VisitedSet.fingerprint(HostScheduler.hostOf(url)), (long) getNodes());
+  }
+
+  /**
+   * Sends links found at the given depth to the node that owns them.
+   */
+  void send(int node, List<String> urls, int depth);
+
+  /**
+   * Passes the links that other nodes have sent since the last call to
+   * the sink, without waiting for more.  Returns how many there were.
+   */
+  int receive(Sink sink);
+
+  /**
+   * Publishes this node's state and checks on the others.
+   *
+   * @param idle nothing is queued or in progress on this node
+   * @param stopped this node has stopped crawling, and so should the rest
+   * @param emails the number of emails this node has found
+   */
+  State update(boolean idle, boolean stopped, long emails);
+
+  /**
+   * The number of emails found by all nodes together, as of the last
+   * update().  Addresses found by more than one node are counted again.
+   */
+  long getTotalEmails();
+
+  /**
+   * Hands this node's results over for collect().
+   */
+  void publish(Collection<String> emails, Collection<String> goodLinks, Collection<String> badLinks);
+
+  /**
+   * Waits for every node to publish its results and adds them to the
+   * given collections.
+   */
+  void collect(Collection<String> emails, Collection<String> goodLinks, Collection<String> badLinks);
+}
@@ -0,0 +1,258 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.lang.management.ManagementFactory;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+import java.util.stream.Collectors;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Counters, gauges and latency histograms describing a running crawl.
+ * The crawler records into it from its worker threads; the numbers can
+ * be read through JMX (see CrawlMetricsMBean) or written out as a
+ * periodic key=value log line.
+ */
+public class CrawlMetrics implements CrawlMetricsMBean {
+
+  private static final Logger logger = LoggerFactory.getLogger(CrawlMetrics.class);
+  private static final int TOP_HOSTS = 5;
+
+  private final long started = System.nanoTime();
+  private final LongAdder pages = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+  private final LongAdder emails = new LongAdder();
+  private final AtomicInteger inFlight = new AtomicInteger();
+  private final LatencyHistogram fetchLatency = new LatencyHistogram();
+  private final LatencyHistogram parseLatency = new LatencyHistogram();
+  private final Map<String, LongAdder> hostErrors = new ConcurrentHashMap<>();
+  private volatile LongSupplier queueDepth = () -> 0;
+  private volatile LongSupplier bytes = () -> 0;
+  private volatile LongSupplier parseQueueDepth = () -> 0;
+  private volatile LongSupplier storeQueueDepth = () -> 0;
+
+  private ScheduledExecutorService reporter;
+  private ObjectName objectName;
+
+  public CrawlMetrics setQueueDepth(LongSupplier queueDepth) {
+    this.queueDepth = queueDepth;
+    return this;
+  }
+
+  public CrawlMetrics setBytesFetched(LongSupplier bytes) {
+    this.bytes = bytes;
+    return this;
+  }
+
+  public CrawlMetrics setParseQueueDepth(LongSupplier depth) {
+    this.parseQueueDepth = depth;
+    return this;
+  }
+
+  public CrawlMetrics setStoreQueueDepth(LongSupplier depth) {
+    this.storeQueueDepth = depth;
+    return this;
+  }
+
+  public void fetchStarted() {
+    inFlight.incrementAndGet();
+  }
+
+  public void fetchFinished() {
+    inFlight.decrementAndGet();
+  }
+
+  public void recordFetch(long nanos) {
+    fetchLatency.record(nanos);
+  }
+
+  public void recordParse(long nanos) {
+    parseLatency.record(nanos);
+  }
+
+  public void recordPage() {
+    pages.increment();
+  }
+
+  public void recordFailure(String host) {
+    failures.increment();
+    hostErrors.computeIfAbsent(host.isEmpty() ? "local" : host, h -> new LongAdder()).increment();
+  }
+
+  public void recordEmails(int count) {
+    emails.add(count);
+  }
+
+  @Override
+  public long getPagesFetched() {
+    return pages.sum();
+  }
+
+  @Override
+  public long getPagesFailed() {
+    return failures.sum();
+  }
+
+  @Override
+  public long getBytesFetched() {
+    return bytes.getAsLong();
+  }
+
+  @Override
+  public long getEmailsFound() {
+    return emails.sum();
+  }
+
+  @Override
+  public double getPagesPerSecond() {
+    return perSecond(pages.sum());
+  }
+
+  @Override
+  public double getEmailsPerSecond() {
+    return perSecond(emails.sum());
+  }
+
+  @Override
+  public long getQueueDepth() {
+    return queueDepth.getAsLong();
+  }
+
+  @Override
+  public long getParseQueueDepth() {
+    return parseQueueDepth.getAsLong();
+  }
+
+  @Override
+  public long getStoreQueueDepth() {
+    return storeQueueDepth.getAsLong();
+  }
+
+  @Override
+  public int getInFlight() {
+    return inFlight.get();
+  }
+
+  @Override
+  public double getFetchLatencyP50Millis() {
+    return fetchLatency.percentileMillis(0.50);
+  }
+
+  @Override
+  public double getFetchLatencyP99Millis() {
+    return fetchLatency.percentileMillis(0.99);
+  }
+
+  @Override
+  public double getParseLatencyP50Millis() {
+    return parseLatency.percentileMillis(0.50);
+  }
+
+  @Override
+  public double getParseLatencyP99Millis() {
+    return parseLatency.percentileMillis(0.99);
+  }
+
+  @Override
+  public Map<String, Long> getHostErrors() {
+    Map<String, Long> copy = new HashMap<>();
+    hostErrors.forEach((host, count) -> copy.put(host, count.sum()));
+    return copy;
+  }
+
+  private double perSecond(long count) {
+    double seconds = (System.nanoTime() - started) / 1e9;
+    return seconds <= 0 ? 0 : count / seconds;
+  }
+
+  /**
+   * A single structured line with the current numbers, suitable for
+   * logging and for grepping out of logs later.
+   */
+  public String summary() {
+    String worstHosts = hostErrors.entrySet().stream()
+        .sorted(Comparator.comparingLong((Map.Entry<String, LongAdder> e) -> e.getValue().sum()).reversed())
+        .limit(TOP_HOSTS)
+        .map(e -> e.getKey() + ":" + e.getValue().sum())
+        .collect(Collectors.joining(","));
+    return String.format(
+        "pages=%d failed=%d bytes=%d emails=%d pagesPerSec=%.1f emailsPerSec=%.1f queue=%d parseQueue=%d"
+            + " storeQueue=%d inFlight=%d"
+            + " fetchP50ms=%.1f fetchP99ms=%.1f parseP50ms=%.2f parseP99ms=%.2f hostErrors=[%s]",
+        getPagesFetched(), getPagesFailed(), getBytesFetched(), getEmailsFound(),
+        getPagesPerSecond(), getEmailsPerSecond(), getQueueDepth(), getParseQueueDepth(),
+        getStoreQueueDepth(), getInFlight(),
+        getFetchLatencyP50Millis(), getFetchLatencyP99Millis(),
+        getParseLatencyP50Millis(), getParseLatencyP99Millis(), worstHosts);
+  }
+
+  /**
+   * Logs summary() at INFO level every period until stopReporting() is called.
+   */
+  public synchronized void startReporting(long period, TimeUnit unit) {
+    if (reporter != null) {
+      return;
+    }
+    reporter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "crawl-metrics");
+      thread.setDaemon(true);
+      return thread;
+    });
+    reporter.scheduleAtFixedRate(() -> logger.info("crawl {}", summary()), period, period, unit);
+  }
+
+  public synchronized void stopReporting() {
+    if (reporter != null) {
+      reporter.shutdownNow();
+      reporter = null;
+    }
+  }
+
+  /**
+   * Publishes these metrics as an MBean named
+   * edu.depaul.email:type=CrawlMetrics,name=&lt;name&gt;.
+   */
+  public synchronized void register(String name) {
+    try {
+      MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+      ObjectName objName = new ObjectName("edu.depaul.email:type=CrawlMetrics,name=" + ObjectName.quote(name));
+      if (server.isRegistered(objName)) {
+        server.unregisterMBean(objName);
+      }
+      server.registerMBean(this, objName);
+      objectName = objName;
+    } catch (JMException e) {
+      throw new EmailFinderException("unable to register crawl metrics", e);
+    }
+  }
+
+  public synchronized void unregister() {
+    if (objectName == null) {
+      return;
+    }
+    try {
+      ManagementFactory.getPlatformMBeanServer().unregisterMBean(objectName);
+    } catch (JMException e) {
+      logger.warn("unable to unregister {}", objectName, e);
+    }
+    objectName = null;
+  }
+}
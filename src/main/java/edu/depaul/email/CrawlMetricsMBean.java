@@ -0,0 +1,44 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.util.Map;
+
+/**
+ * The JMX view of CrawlMetrics.
+ */
+public interface CrawlMetricsMBean {
+
+  long getPagesFetched();
+
+  long getPagesFailed();
+
+  long getBytesFetched();
+
+  long getEmailsFound();
+
+  double getPagesPerSecond();
+
+  double getEmailsPerSecond();
+
+  long getQueueDepth();
+
+  long getParseQueueDepth();
+
+  long getStoreQueueDepth();
+
+  int getInFlight();
+
+  double getFetchLatencyP50Millis();
+
+  double getFetchLatencyP99Millis();
+
+  double getParseLatencyP50Millis();
+
+  double getParseLatencyP99Millis();
+
+  Map<String, Long> getHostErrors();
+}
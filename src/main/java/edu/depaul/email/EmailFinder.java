@@ -5,7 +5,21 @@
  */
 package edu.depaul.email;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import edu.depaul.email.ChannelListWriter.Compression;
+import edu.depaul.email.Frontier.Traversal;
 import edu.depaul.email.StorageService.StorageType;
+import edu.depaul.email.WorkerPools.ThreadMode;
 import static edu.depaul.email.StorageService.StorageType.EMAIL;
 import static edu.depaul.email.StorageService.StorageType.GOODLINKS;
 import static edu.depaul.email.StorageService.StorageType.BADLINKS;
@@ -13,37 +27,259 @@ import static edu.depaul.email.StorageService.StorageType.BADLINKS;
 /**
  * This is the main class for this application.
  * Usage:
- *   EmailFinder <a root URL>
+ *   EmailFinder [options] <a root URL> [max emails] [worker threads]
+ *   EmailFinder --corpus [options] <a directory> [max emails] [threads]
+ *   EmailFinder --archive [options] <an archive or directory> [max emails] [threads]
+ * Options:
+ *   --archive   scan WARC (.warc, .warc.gz), zip and tar archives of saved
+ *               sites: the given file, or every archive under the given
+ *               directory
+ *   --corpus    scan the files of an offline mirror under the given
+ *               directory (memory-mapped, one thread per core by default)
+ *               instead of crawling
+ *   --virtual   run one virtual thread per in-flight URL (Java 21+); the
+ *               worker count then caps the number of concurrent fetches
+ *   --async-http  fetch with the pooled httpclient5 async client (HTTP/2
+ *               where available) instead of Jsoup's connector
+ *   --streaming scan pages in a single pass instead of building a DOM
+ *   --byte-scan find emails in the raw bytes of each page (mailto links
+ *               and markup included) without decoding the page
+ *   --parse-workers=N  parse pages on N threads (default: one per core)
+ *   --stage-queue=N  let at most N pages wait for each of the parse and
+ *               store stages before fetching pauses (default 64)
+ *   --traversal=ORDER  crawl each host bfs (the default), dfs, or best
+ *               (pages whose URLs match the keywords first)
+ *   --keywords=A,B,...  keywords for --traversal=best (default contact,
+ *               staff, directory, people, faculty, team, about, email)
+ *   --max-depth=N  follow links at most N clicks from the root URL
+ *   --max-pages=N  stop after visiting N pages
+ *   --max-bytes=N  stop after downloading N bytes
+ *   --rate=N    send at most N requests per second to any one host
+ *   --per-host=N  keep at most N requests open to any one host
+ *   --metrics=N log a line of crawl metrics every N seconds (they are
+ *               also available over JMX while the crawl runs)
+ *   --cache=DIR keep fetched pages in DIR and only revalidate them on the
+ *               next run (If-None-Match / If-Modified-Since)
+ *   --cache-size=MB  bound the cache to MB megabytes (default 256)
+ *   --parse-cache=N  remember what was found on the last N distinct page
+ *               bodies, so duplicate pages are not parsed again
+ *   --checkpoint[=FILE]  log crawl progress to FILE (default
+ *               crawl-checkpoint.log) so that a crash can be resumed
+ *   --resume    continue the crawl recorded in the checkpoint file
+ *   --incremental  write results to the output files as they are found
+ *   --gzip      write gzip-compressed output files (email.txt.gz etc.)
+ *   --db=PATH   store results, and the pages each email was found on, in
+ *               an H2 database at PATH instead of text files (implies
+ *               --incremental)
+ *   --visited=TYPE  how seen URLs are remembered: exact (the default),
+ *               offheap, or bloom
+ *   --expected-urls=N  size the visited set for N URLs
+ *   --fpp=P     false-positive rate of the bloom visited set
+ *   --cluster=DIR  crawl as one of several nodes sharing the directory
+ *               DIR; every node is given the same root URL and options
+ *   --nodes=N   the number of nodes in the cluster
+ *   --node=K    this node's number, from 0 to N - 1; node 0 writes the
+ *               merged results
  * Example:
- *   EmailFinder http://cdm.depaul.edu
+ *   EmailFinder http://cdm.depaul.edu 50 16
  */
 public class EmailFinder {
 
-  private StorageService setupStorage() {
+  static final String DEFAULT_CHECKPOINT = "crawl-checkpoint.log";
+
+  private StorageService setupStorage(boolean gzip) {
     StorageService storage = new StorageService();
+    String suffix = gzip ? ".gz" : "";
     storage
-        .addLocation(EMAIL, "email.txt")
-        .addLocation(GOODLINKS, "good-links.txt")
-        .addLocation(BADLINKS, "badlinks.txt");
+        .addLocation(EMAIL, "email.txt" + suffix)
+        .addLocation(GOODLINKS, "good-links.txt" + suffix)
+        .addLocation(BADLINKS, "badlinks.txt" + suffix)
+        .setCompression(gzip ? Compression.GZIP : Compression.NONE);
     return storage;
   }
 
   public void run(String[] args) {
+    Map<String, String> options = new HashMap<>();
+    List<String> params = new ArrayList<>();
+    for (String arg : args) {
+      if (arg.startsWith("--")) {
+        int eq = arg.indexOf('=');
+        if (eq < 0) {
+          options.put(arg, "");
+        } else {
+          options.put(arg.substring(0, eq), arg.substring(eq + 1));
+        }
+      } else {
+        params.add(arg);
+      }
+    }
+    ThreadMode mode = options.containsKey("--virtual") ? ThreadMode.VIRTUAL : ThreadMode.PLATFORM;
+    boolean byteScan = options.containsKey("--byte-scan");
+
     int limit = 5;
-    if (args.length >=2) {
-      limit = Integer.parseInt(args[1]);
-    }
-    if (args.length >= 1) {
-      String root = args[0];
-      StorageService storage = setupStorage();
-      PageCrawler crawler = new PageCrawler(storage, limit);
-      crawler.crawl(root);
-      crawler.report();
+    int workers = mode == ThreadMode.VIRTUAL
+        ? PageCrawler.DEFAULT_VIRTUAL_WORKERS
+        : PageCrawler.DEFAULT_WORKERS;
+    if (params.size() >=2) {
+      limit = Integer.parseInt(params.get(1));
+    }
+    if (params.size() >= 3) {
+      workers = Integer.parseInt(params.get(2));
+    }
+    if (params.size() >= 1) {
+      String root = params.get(0);
+      StorageService storage = setupStorage(options.containsKey("--gzip"));
+      boolean database = options.containsKey("--db");
+      if (database) {
+        storage.setBackend(H2StorageBackend.atPath(Paths.get(options.get("--db")).toAbsolutePath().toString()));
+      }
+      if (options.containsKey("--archive")) {
+        int threads = params.size() >= 3 ? workers : Runtime.getRuntime().availableProcessors();
+        scanArchives(root, limit, threads, byteScan, storage);
+        return;
+      }
+      if (options.containsKey("--corpus")) {
+        int threads = params.size() >= 3 ? workers : Runtime.getRuntime().availableProcessors();
+        scanCorpus(root, limit, threads, byteScan, storage);
+        return;
+      }
+      PageFetcher fetcher = options.containsKey("--async-http")
+          ? new PageFetcher(new AsyncHttpBackend())
+          : new PageFetcher();
+      boolean cluster = options.containsKey("--cluster");
+      if (cluster && (options.containsKey("--incremental") || options.containsKey("--checkpoint")
+          || options.containsKey("--resume"))) {
+        throw new EmailFinderException("--cluster cannot be combined with --incremental or checkpoints", null);
+      }
+      PageCrawler crawler = new PageCrawler(storage, limit, workers);
+      HostScheduler scheduler = new HostScheduler(
+          Double.parseDouble(options.getOrDefault("--rate", "0")),
+          Integer.parseInt(options.getOrDefault("--per-host", "0")));
+      crawler.setThreadMode(mode).setFetcher(fetcher).setHostScheduler(scheduler)
+          .setStreaming(options.containsKey("--streaming"))
+          .setByteScan(byteScan)
+          .setIncremental(!cluster && (database || options.containsKey("--incremental")))
+          .setReportInterval(Long.parseLong(options.getOrDefault("--metrics", "0")));
+      crawler.setVisitedSet(visitedSet(options));
+      crawler.setTraversal(traversal(options.getOrDefault("--traversal", "bfs")));
+      if (options.containsKey("--keywords")) {
+        crawler.setLinkScorer(new KeywordScorer(Arrays.asList(options.get("--keywords").split(","))));
+      }
+      if (options.containsKey("--max-depth")) {
+        crawler.setMaxDepth(Integer.parseInt(options.get("--max-depth")));
+      }
+      if (options.containsKey("--max-pages")) {
+        crawler.setMaxPages(Long.parseLong(options.get("--max-pages")));
+      }
+      if (options.containsKey("--max-bytes")) {
+        crawler.setMaxBytes(Long.parseLong(options.get("--max-bytes")));
+      }
+      if (options.containsKey("--parse-workers")) {
+        crawler.setParseWorkers(Integer.parseInt(options.get("--parse-workers")));
+      }
+      crawler.setStageCapacity(Integer.parseInt(options.getOrDefault("--stage-queue",
+          String.valueOf(PageCrawler.DEFAULT_STAGE_CAPACITY))));
+      int parsed = Integer.parseInt(options.getOrDefault("--parse-cache", "0"));
+      if (parsed > 0) {
+        crawler.setParseCache(new ParseCache(parsed));
+      }
+      if (options.containsKey("--cache")) {
+        long megabytes = Long.parseLong(options.getOrDefault("--cache-size", "256"));
+        crawler.setResponseCache(new ResponseCache(Paths.get(options.get("--cache")), megabytes * 1024 * 1024));
+      }
+      FileCoordinator coordinator = null;
+      if (cluster) {
+        coordinator = new FileCoordinator(Paths.get(options.get("--cluster")),
+            Integer.parseInt(options.getOrDefault("--node", "0")),
+            Integer.parseInt(options.getOrDefault("--nodes", "1")));
+        crawler.setCoordinator(coordinator);
+      }
+      CrawlCheckpoint checkpoint = null;
+      boolean resume = options.containsKey("--resume");
+      if (resume || options.containsKey("--checkpoint")) {
+        String file = options.getOrDefault("--checkpoint", "");
+        checkpoint = new CrawlCheckpoint(Paths.get(file.isEmpty() ? DEFAULT_CHECKPOINT : file), resume);
+        crawler.setCheckpoint(checkpoint);
+      }
+      try {
+        crawler.crawl(root);
+        crawler.report();
+      } finally {
+        storage.close();
+        if (checkpoint != null) {
+          checkpoint.close();
+        }
+        if (coordinator != null) {
+          coordinator.close();
+        }
+        fetcher.close();
+      }
     } else {
       System.out.println("NO starting URL");
     }
   }
 
+  private void scanCorpus(String root, int limit, int threads, boolean byteScan, StorageService storage) {
+    CorpusScanner scanner = new CorpusScanner(storage, limit, threads).setByteScan(byteScan);
+    try {
+      scanner.scan(Paths.get(root));
+      scanner.report();
+    } finally {
+      storage.close();
+    }
+  }
+
+  private void scanArchives(String root, int limit, int threads, boolean byteScan,
+      StorageService storage) {
+    ArchiveScanner scanner = new ArchiveScanner(storage, limit, threads).setByteScan(byteScan);
+    try {
+      Path path = Paths.get(root);
+      List<Path> archives = new ArrayList<>();
+      if (Files.isDirectory(path)) {
+        try (Stream<Path> files = Files.walk(path)) {
+          files.filter(Files::isRegularFile).filter(ArchiveScanner::isArchive).forEach(archives::add);
+        }
+      } else {
+        archives.add(path);
+      }
+      scanner.scan(archives);
+      scanner.report();
+    } catch (IOException e) {
+      throw new EmailFinderException("unable to list archives in " + root, e);
+    } finally {
+      storage.close();
+    }
+  }
+
+  private Traversal traversal(String order) {
+    switch (order) {
+      case "bfs":
+        return Traversal.BFS;
+      case "dfs":
+        return Traversal.DFS;
+      case "best":
+        return Traversal.BEST_FIRST;
+      default:
+        throw new EmailFinderException("unknown traversal " + order, null);
+    }
+  }
+
+  private VisitedSet visitedSet(Map<String, String> options) {
+    String type = options.getOrDefault("--visited", "exact");
+    long expected = Long.parseLong(options.getOrDefault("--expected-urls", "65536"));
+    switch (type) {
+      case "exact":
+        return new FingerprintSet(expected, false);
+      case "offheap":
+        return new FingerprintSet(expected, true);
+      case "bloom":
+        return new BloomVisitedSet(expected,
+            Double.parseDouble(options.getOrDefault("--fpp", String.valueOf(BloomVisitedSet.DEFAULT_FPP))));
+      default:
+        throw new EmailFinderException("unknown visited set " + type, null);
+    }
+  }
+
   public static void main(String[] args) {
     EmailFinder finder = new EmailFinder();
     finder.run(args);
@@ -0,0 +1,124 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+/**
+ * A hand-written matcher for the email pattern used throughout the project:
+ *   [a-zA-Z0-9_.+-]+@[a-zA-Z0-9-]+\.[a-zA-Z0-9-.]+
+ * Instead of trying the regex at every position, it jumps from one '@' to
+ * the next and only then expands left over the local part and right over
+ * the domain, so text without an '@' costs one linear search.  Nothing is
+ * compiled per call and nothing is copied: matches are reported to a Sink
+ * as offsets into the caller's text, and the Sink decides whether to make
+ * Strings out of them.
+ */
+public class EmailMatcher {
+
+  /**
+   * Receives each match as the range [start, end) of the scanned text.
+   */
+  public interface Sink {
+    void accept(CharSequence text, int start, int end);
+  }
+
+  private static final byte LOCAL = 1;
+  private static final byte DOMAIN = 2;
+  private static final byte[] CLASSES = new byte[128];
+
+  static {
+    for (int c = 'a'; c <= 'z'; c++) {
+      CLASSES[c] = LOCAL | DOMAIN;
+      CLASSES[c - 'a' + 'A'] = LOCAL | DOMAIN;
+    }
+    for (int c = '0'; c <= '9'; c++) {
+      CLASSES[c] = LOCAL | DOMAIN;
+    }
+    CLASSES['-'] = LOCAL | DOMAIN;
+    CLASSES['_'] = LOCAL;
+    CLASSES['.'] = LOCAL;
+    CLASSES['+'] = LOCAL;
+  }
+
+  private EmailMatcher() {}
+
+  /**
+   * True for the characters allowed before the '@'.
+   */
+  public static boolean isLocalChar(int c) {
+    return c >= 0 && c < 128 && (CLASSES[c] & LOCAL) != 0;
+  }
+
+  /**
+   * True for the characters allowed in a domain label.
+   */
+  public static boolean isDomainChar(int c) {
+    return c >= 0 && c < 128 && (CLASSES[c] & DOMAIN) != 0;
+  }
+
+  /**
+   * Reports every email address in the text to the sink, in order.
+   */
+  public static void find(CharSequence text, Sink sink) {
+    find(text, 0, text.length(), sink);
+  }
+
+  /**
+   * Reports every email address within [from, to) of the text to the sink.
+   */
+  public static void find(CharSequence text, int from, int to, Sink sink) {
+    int at = indexOfAt(text, from, to);
+    while (at >= 0) {
+      int start = at;
+      while (start > from && isLocalChar(text.charAt(start - 1))) {
+        start--;
+      }
+      int end = start < at ? matchDomain(text, at + 1, to) : -1;
+      if (end < 0) {
+        from = at + 1;
+      } else {
+        sink.accept(text, start, end);
+        from = end;
+      }
+      at = indexOfAt(text, from, to);
+    }
+  }
+
+  /**
+   * Returns the end of [a-zA-Z0-9-]+\.[a-zA-Z0-9-.]+ starting at pos, or -1
+   * if the domain does not match there.
+   */
+  private static int matchDomain(CharSequence text, int pos, int to) {
+    int end = pos;
+    while (end < to && isDomainChar(text.charAt(end))) {
+      end++;
+    }
+    if (end == pos || end + 1 >= to || text.charAt(end) != '.') {
+      return -1;
+    }
+    end++;
+    char next = text.charAt(end);
+    if (!isDomainChar(next) && next != '.') {
+      return -1;
+    }
+    while (end < to && (isDomainChar(text.charAt(end)) || text.charAt(end) == '.')) {
+      end++;
+    }
+    return end;
+  }
+
+  private static int indexOfAt(CharSequence text, int from, int to) {
+    if (text instanceof String) {
+      int at = ((String) text).indexOf('@', from);
+      return at < to ? at : -1;
+    }
+    for (int i = from; i < to; i++) {
+      if (text.charAt(i) == '@') {
+        return i;
+      }
+    }
+    return -1;
+  }
+}
@@ -0,0 +1,144 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Turns what the email pattern matched into one canonical spelling of the
+ * address, or rejects it.  The pattern is deliberately loose, so it also
+ * picks up sentence punctuation (foo@example.com.), retina image names
+ * (logo@2x.png) and version strings (lib@1.2.3).  An address is:
+ * - trimmed of dots and hyphens at either end,
+ * - lowercased, both the domain and the local part (local parts are
+ *   case-sensitive in theory, but no mail system in use treats them so),
+ * - rejected unless every domain label is well formed and the last one
+ *   looks like a real top-level domain: letters only, or an IDN "xn--"
+ *   label, and not an image or other file extension.
+ */
+public class EmailNormalizer {
+
+  /**
+   * File name extensions that the pattern mistakes for top-level domains.
+   * None of them is a delegated TLD.
+   */
+  static final Set<String> FILE_EXTENSIONS = new HashSet<>(Arrays.asList(
+      "png", "jpg", "jpeg", "gif", "svg", "webp", "bmp", "ico", "tif", "tiff",
+      "avif", "heic", "css", "js", "json", "pdf", "htm", "html", "php", "asp", "aspx"));
+
+  private static final int MAX_LOCAL = 64;
+  private static final int MAX_DOMAIN = 253;
+  private static final int MAX_LABEL = 63;
+
+  private EmailNormalizer() {}
+
+  /**
+   * Returns the canonical form of the address, or null if it is not a
+   * plausible email address.
+   */
+  public static String normalize(String raw) {
+    int at = raw.lastIndexOf('@');
+    if (at < 0) {
+      return null;
+    }
+    int start = 0;
+    while (start < at && isTrimmed(raw.charAt(start))) {
+      start++;
+    }
+    int end = raw.length();
+    while (end > at + 1 && isTrimmed(raw.charAt(end - 1))) {
+      end--;
+    }
+    int localEnd = at;
+    while (localEnd > start && raw.charAt(localEnd - 1) == '.') {
+      localEnd--;
+    }
+    if (localEnd == start || localEnd - start > MAX_LOCAL
+        || end == at + 1 || end - at - 1 > MAX_DOMAIN) {
+      return null;
+    }
+    String local = raw.substring(start, localEnd).toLowerCase(Locale.ROOT);
+    String domain = raw.substring(at + 1, end).toLowerCase(Locale.ROOT);
+    if (!isLocal(local) || !isDomain(domain)) {
+      return null;
+    }
+    return local + '@' + domain;
+  }
+
+  /**
+   * Normalizes each of the addresses, dropping the ones that are rejected.
+   */
+  public static Set<String> normalizeAll(Collection<String> found) {
+    Set<String> emails = new HashSet<>();
+    for (String raw : found) {
+      String email = normalize(raw);
+      if (email != null) {
+        emails.add(email);
+      }
+    }
+    return emails;
+  }
+
+  private static boolean isTrimmed(char c) {
+    return c == '.' || c == '-';
+  }
+
+  private static boolean isLocal(String local) {
+    for (int i = 0; i < local.length(); i++) {
+      char c = local.charAt(i);
+      if (!EmailMatcher.isLocalChar(c) || (c == '.' && i > 0 && local.charAt(i - 1) == '.')) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /**
+   * Checks the labels one at a time: each is 1 to 63 letters, digits or
+   * hyphens, not starting or ending with a hyphen, and there are at least
+   * two of them.
+   */
+  private static boolean isDomain(String domain) {
+    int labelStart = 0;
+    int labels = 0;
+    for (int i = 0; i <= domain.length(); i++) {
+      if (i < domain.length() && domain.charAt(i) != '.') {
+        if (!EmailMatcher.isDomainChar(domain.charAt(i))) {
+          return false;
+        }
+        continue;
+      }
+      int length = i - labelStart;
+      if (length == 0 || length > MAX_LABEL
+          || domain.charAt(labelStart) == '-' || domain.charAt(i - 1) == '-') {
+        return false;
+      }
+      labels++;
+      labelStart = i + 1;
+    }
+    return labels >= 2 && isTld(domain.substring(domain.lastIndexOf('.') + 1));
+  }
+
+  static boolean isTld(String tld) {
+    if (tld.startsWith("xn--")) {
+      return tld.length() > 4;
+    }
+    if (tld.length() < 2 || FILE_EXTENSIONS.contains(tld)) {
+      return false;
+    }
+    for (int i = 0; i < tld.length(); i++) {
+      char c = tld.charAt(i);
+      if (c < 'a' || c > 'z') {
+        return false;
+      }
+    }
+    return true;
+  }
+}
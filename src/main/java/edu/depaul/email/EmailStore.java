@@ -0,0 +1,287 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+
+/**
+ * A set of email addresses that stores them compactly instead of as one
+ * String (and one hash map node) each.  Most addresses in a crawl share a
+ * handful of domains, so each domain is stored once in a dictionary and
+ * given a number; the local parts are packed one after another into a
+ * single byte array as [length][ASCII bytes][domain number as a varint].
+ * An open-addressing table of offsets into that array (with the hashes
+ * kept alongside, so lookups rarely touch the array) makes it a set.
+ * Strings are only made again when the set is iterated, in the order the
+ * addresses were added.
+ * Addresses are expected in EmailNormalizer's canonical form; they are
+ * stored exactly as given.  The set is thread-safe, and its iterators
+ * work on a snapshot, so it can be written out while it is still growing.
+ */
+public class EmailStore extends AbstractSet<String> {
+
+  private static final int MAX_LOCAL = 255;
+
+  private final Map<String, Integer> domainIds = new HashMap<>();
+  private String[] domains = new String[16];
+  private byte[] arena;
+  private int arenaSize = 0;
+  private int[] offsets;
+  private int[] hashes;
+  private int size = 0;
+
+  public EmailStore() {
+    this(64);
+  }
+
+  /**
+   * Creates a store sized for the given number of addresses (it still
+   * grows past that if needed).
+   */
+  public EmailStore(int expected) {
+    int capacity = 16;
+    while (capacity < expected * 2 && capacity < (1 << 30)) {
+      capacity <<= 1;
+    }
+    offsets = new int[capacity];
+    hashes = new int[capacity];
+    arena = new byte[Math.max(64, expected * 12)];
+  }
+
+  /**
+   * Adds an address.  Returns false if it is already in the set.
+   *
+   * @throws IllegalArgumentException if it has no '@', or its local part
+   *     is not ASCII or is longer than 255 characters
+   */
+  @Override
+  public synchronized boolean add(String email) {
+    int at = email.lastIndexOf('@');
+    if (at < 0 || at > MAX_LOCAL) {
+      throw new IllegalArgumentException("not an email address: " + email);
+    }
+    for (int i = 0; i < at; i++) {
+      if (email.charAt(i) > 127) {
+        throw new IllegalArgumentException("local part is not ASCII: " + email);
+      }
+    }
+    String domain = email.substring(at + 1);
+    Integer known = domainIds.get(domain);
+    int domainId = known == null ? domainIds.size() : known;
+    int hash = hash(email, at, domainId);
+    if (known != null && find(email, at, domainId, hash) >= 0) {
+      return false;
+    }
+    if (known == null) {
+      addDomain(domain);
+    }
+    if ((size + 1) * 4 > offsets.length * 3) {
+      rehash();
+    }
+    int offset = append(email, at, domainId);
+    int slot = hash & (offsets.length - 1);
+    while (offsets[slot] != 0) {
+      slot = (slot + 1) & (offsets.length - 1);
+    }
+    offsets[slot] = offset + 1;
+    hashes[slot] = hash;
+    size++;
+    return true;
+  }
+
+  @Override
+  public synchronized boolean contains(Object o) {
+    if (!(o instanceof String)) {
+      return false;
+    }
+    String email = (String) o;
+    int at = email.lastIndexOf('@');
+    if (at < 0) {
+      return false;
+    }
+    Integer domainId = domainIds.get(email.substring(at + 1));
+    return domainId != null && find(email, at, domainId, hash(email, at, domainId)) >= 0;
+  }
+
+  @Override
+  public synchronized int size() {
+    return size;
+  }
+
+  @Override
+  public synchronized void clear() {
+    domainIds.clear();
+    domains = new String[16];
+    arena = new byte[64];
+    arenaSize = 0;
+    Arrays.fill(offsets, 0);
+    size = 0;
+  }
+
+  /**
+   * The number of distinct domains.
+   */
+  public synchronized int domainCount() {
+    return domainIds.size();
+  }
+
+  /**
+   * Roughly how much memory the set uses, not counting the domain
+   * dictionary.
+   */
+  public synchronized long sizeInBytes() {
+    return arena.length + (long) offsets.length * 2 * Integer.BYTES;
+  }
+
+  /**
+   * Returns the addresses in the order they were added.  The iterator
+   * sees the addresses that were in the set when it was created; ones
+   * added later do not show up, and it cannot remove.
+   */
+  @Override
+  public synchronized Iterator<String> iterator() {
+    return new Snapshot(arena, arenaSize, domains);
+  }
+
+  private static int hash(String email, int at, int domainId) {
+    int h = domainId;
+    for (int i = 0; i < at; i++) {
+      h = 31 * h + email.charAt(i);
+    }
+    h *= 0x9E3779B9;
+    return h ^ (h >>> 16);
+  }
+
+  /**
+   * Returns the arena offset of the entry, or -1 if it is not there.
+   */
+  private int find(String email, int at, int domainId, int hash) {
+    int mask = offsets.length - 1;
+    for (int slot = hash & mask; offsets[slot] != 0; slot = (slot + 1) & mask) {
+      if (hashes[slot] == hash && matches(offsets[slot] - 1, email, at, domainId)) {
+        return offsets[slot] - 1;
+      }
+    }
+    return -1;
+  }
+
+  private boolean matches(int offset, String email, int at, int domainId) {
+    if ((arena[offset] & 0xff) != at) {
+      return false;
+    }
+    int pos = offset + 1;
+    for (int i = 0; i < at; i++, pos++) {
+      if (arena[pos] != email.charAt(i)) {
+        return false;
+      }
+    }
+    int id = 0;
+    for (int shift = 0; ; shift += 7) {
+      byte b = arena[pos++];
+      id |= (b & 0x7f) << shift;
+      if (b >= 0) {
+        return id == domainId;
+      }
+    }
+  }
+
+  private void addDomain(String domain) {
+    int id = domainIds.size();
+    domainIds.put(domain, id);
+    if (id == domains.length) {
+      domains = Arrays.copyOf(domains, id * 2);
+    }
+    domains[id] = domain;
+  }
+
+  /**
+   * Appends an entry to the arena and returns its offset.  The arena is
+   * only ever grown by copying, so snapshots keep reading the old array.
+   */
+  private int append(String email, int at, int domainId) {
+    if (arenaSize + at + 6 > arena.length) {
+      arena = Arrays.copyOf(arena, Math.max(arena.length * 2, arenaSize + at + 6));
+    }
+    int offset = arenaSize;
+    arena[arenaSize++] = (byte) at;
+    for (int i = 0; i < at; i++) {
+      arena[arenaSize++] = (byte) email.charAt(i);
+    }
+    int id = domainId;
+    while (id >= 0x80) {
+      arena[arenaSize++] = (byte) (id | 0x80);
+      id >>>= 7;
+    }
+    arena[arenaSize++] = (byte) id;
+    return offset;
+  }
+
+  private void rehash() {
+    int[] oldOffsets = offsets;
+    int[] oldHashes = hashes;
+    offsets = new int[oldOffsets.length * 2];
+    hashes = new int[oldOffsets.length * 2];
+    int mask = offsets.length - 1;
+    for (int i = 0; i < oldOffsets.length; i++) {
+      if (oldOffsets[i] != 0) {
+        int slot = oldHashes[i] & mask;
+        while (offsets[slot] != 0) {
+          slot = (slot + 1) & mask;
+        }
+        offsets[slot] = oldOffsets[i];
+        hashes[slot] = oldHashes[i];
+      }
+    }
+  }
+
+  /**
+   * Decodes the entries of an arena one after another.
+   */
+  private static class Snapshot implements Iterator<String> {
+    private final byte[] arena;
+    private final int end;
+    private final String[] domains;
+    private int pos = 0;
+
+    Snapshot(byte[] arena, int end, String[] domains) {
+      this.arena = arena;
+      this.end = end;
+      this.domains = domains;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return pos < end;
+    }
+
+    @Override
+    public String next() {
+      if (pos >= end) {
+        throw new NoSuchElementException();
+      }
+      int length = arena[pos++] & 0xff;
+      char[] local = new char[length];
+      for (int i = 0; i < length; i++) {
+        local[i] = (char) arena[pos++];
+      }
+      int id = 0;
+      for (int shift = 0; ; shift += 7) {
+        byte b = arena[pos++];
+        id |= (b & 0x7f) << shift;
+        if (b >= 0) {
+          break;
+        }
+      }
+      return new StringBuilder(length + 1 + domains[id].length())
+          .append(local).append('@').append(domains[id]).toString();
+    }
+  }
+}
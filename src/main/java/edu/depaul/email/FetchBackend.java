@@ -0,0 +1,47 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * The HTTP client used by PageFetcher to download web pages.  Backends only
+ * move bytes; turning the body into a Document is left to PageFetcher.
+ */
+public interface FetchBackend {
+
+  /**
+   * Downloads the page at the given URL.  Implementations must be safe to
+   * call from several threads at once.
+   */
+  RawPage fetch(String url) throws IOException;
+
+  /**
+   * Downloads the page unless it has not changed since it was fetched with
+   * the given validators (either may be null), in which case the result
+   * isNotModified().  Backends that cannot send conditional requests just
+   * fetch the page.
+   */
+  default RawPage fetch(String url, String etag, String lastModified) throws IOException {
+    return fetch(url);
+  }
+
+  /**
+   * Opens the body of the page at the given URL as a stream, for callers
+   * that scan the page instead of parsing it.  The caller must close the
+   * stream.  By default the whole body is fetched first.
+   */
+  default InputStream open(String url) throws IOException {
+    return new ByteArrayInputStream(fetch(url).getBody());
+  }
+
+  /**
+   * Releases any connections or threads held by the backend.
+   */
+  void close();
+}
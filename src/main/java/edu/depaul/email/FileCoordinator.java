@@ -0,0 +1,270 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * A CrawlCoordinator for nodes that share a directory, either on one
+ * machine or on a network file system.  Every node has a subdirectory:
+ *   node-K/inbox/    batches of links sent to node K, one file per batch
+ *                    with a "depth url" line per link
+ *   node-K/status    idle and stopped flags, batches sent and received,
+ *                    and emails found
+ *   node-K/*.txt     node K's results, followed by a "published" marker
+ * Every file is written under a temporary name and then renamed, so
+ * readers never see half of one.
+ * The crawl has finished once every node's status says idle, as many
+ * batches have been received as were sent, and nothing has changed since
+ * the previous update: a batch still on its way would show up as a
+ * difference between the counts, and a node that woke up in between as a
+ * change.
+ * The directory must be new for each crawl; a node refuses to start if
+ * it finds its own status from an earlier one.
+ */
+public class FileCoordinator implements CrawlCoordinator {
+  private static final Logger logger = LoggerFactory.getLogger(FileCoordinator.class);
+
+  public static final long DEFAULT_RESULT_TIMEOUT = 60000;
+  private static final long POLL_MILLIS = 50;
+
+  private final Path dir;
+  private final int node;
+  private final int nodes;
+  private final AtomicLong sent = new AtomicLong();
+  private final AtomicLong received = new AtomicLong();
+  private long resultTimeout = DEFAULT_RESULT_TIMEOUT;
+  private long totalEmails = 0;
+  private String lastStatus = null;
+
+  public FileCoordinator(Path dir, int node, int nodes) {
+    if (nodes < 1) {
+      throw new IllegalArgumentException("nodes must be at least 1");
+    }
+    if (node < 0 || node >= nodes) {
+      throw new IllegalArgumentException("node must be between 0 and " + (nodes - 1));
+    }
+    this.dir = dir;
+    this.node = node;
+    this.nodes = nodes;
+    try {
+      for (int i = 0; i < nodes; i++) {
+        Files.createDirectories(inbox(i));
+      }
+    } catch (IOException e) {
+      throw new EmailFinderException("unable to create " + dir, e);
+    }
+    if (Files.exists(nodeDir(node).resolve("status"))) {
+      throw new EmailFinderException("node " + node + " has already run in " + dir, null);
+    }
+  }
+
+  /**
+   * How long collect() waits for the other nodes' results.
+   */
+  public FileCoordinator setResultTimeout(long millis) {
+    if (millis < 0) {
+      throw new IllegalArgumentException("timeout must not be negative");
+    }
+    this.resultTimeout = millis;
+    return this;
+  }
+
+  @Override
+  public int getNode() {
+    return node;
+  }
+
+  @Override
+  public int getNodes() {
+    return nodes;
+  }
+
+  @Override
+  public void send(int to, List<String> urls, int depth) {
+    if (urls.isEmpty()) {
+      return;
+    }
+    List<String> lines = new ArrayList<>(urls.size());
+    for (String url : urls) {
+      lines.add(depth + " " + url);
+    }
+    // Counting the batch before it is written errs on the safe side: for a
+    // moment more batches seem to be on their way than really are.
+    write(inbox(to).resolve(node + "-" + sent.getAndIncrement() + ".batch"), lines);
+  }
+
+  /**
+   * Only called from one thread at a time.
+   */
+  @Override
+  public int receive(Sink sink) {
+    int count = 0;
+    try (DirectoryStream<Path> batches = Files.newDirectoryStream(inbox(node), "*.batch")) {
+      for (Path batch : batches) {
+        for (String line : Files.readAllLines(batch, StandardCharsets.UTF_8)) {
+          int space = line.indexOf(' ');
+          if (space > 0) {
+            sink.accept(line.substring(space + 1), Integer.parseInt(line.substring(0, space)));
+            count++;
+          }
+        }
+        Files.delete(batch);
+        received.incrementAndGet();
+      }
+    } catch (IOException e) {
+      throw new EmailFinderException("unable to read the inbox of node " + node, e);
+    }
+    return count;
+  }
+
+  @Override
+  public synchronized State update(boolean idle, boolean stopped, long emails) {
+    String status = (idle ? 1 : 0) + " " + (stopped ? 1 : 0) + " " + sent.get() + " "
+        + received.get() + " " + emails;
+    write(nodeDir(node).resolve("status"), Collections.singletonList(status));
+
+    StringBuilder all = new StringBuilder();
+    boolean allIdle = true;
+    boolean anyStopped = false;
+    long sentTotal = 0;
+    long receivedTotal = 0;
+    long emailTotal = 0;
+    for (int i = 0; i < nodes; i++) {
+      String line = read(nodeDir(i).resolve("status"));
+      if (line == null) {
+        totalEmails = emailTotal;
+        lastStatus = null;
+        return State.RUNNING;
+      }
+      String[] fields = line.trim().split(" ");
+      allIdle &= "1".equals(fields[0]);
+      anyStopped |= "1".equals(fields[1]);
+      sentTotal += Long.parseLong(fields[2]);
+      receivedTotal += Long.parseLong(fields[3]);
+      emailTotal += Long.parseLong(fields[4]);
+      all.append(line.trim()).append('|');
+    }
+    totalEmails = emailTotal;
+    if (anyStopped) {
+      return State.STOPPED;
+    }
+    String previous = lastStatus;
+    lastStatus = all.toString();
+    if (allIdle && sentTotal == receivedTotal && lastStatus.equals(previous)) {
+      return State.FINISHED;
+    }
+    return State.RUNNING;
+  }
+
+  @Override
+  public synchronized long getTotalEmails() {
+    return totalEmails;
+  }
+
+  @Override
+  public void publish(Collection<String> emails, Collection<String> goodLinks, Collection<String> badLinks) {
+    Path own = nodeDir(node);
+    write(own.resolve("email.txt"), emails);
+    write(own.resolve("good-links.txt"), goodLinks);
+    write(own.resolve("badlinks.txt"), badLinks);
+    write(own.resolve("published"), Collections.<String>emptyList());
+  }
+
+  /**
+   * Results are added node by node, starting with node 0.
+   *
+   * @throws EmailFinderException if a node has not published its results
+   *     within the result timeout
+   */
+  @Override
+  public void collect(Collection<String> emails, Collection<String> goodLinks, Collection<String> badLinks) {
+    long deadline = System.currentTimeMillis() + resultTimeout;
+    for (int i = 0; i < nodes; i++) {
+      Path other = nodeDir(i);
+      while (!Files.exists(other.resolve("published"))) {
+        if (System.currentTimeMillis() > deadline) {
+          throw new EmailFinderException("node " + i + " did not publish its results", null);
+        }
+        sleep();
+      }
+      try {
+        emails.addAll(Files.readAllLines(other.resolve("email.txt"), StandardCharsets.UTF_8));
+        goodLinks.addAll(Files.readAllLines(other.resolve("good-links.txt"), StandardCharsets.UTF_8));
+        badLinks.addAll(Files.readAllLines(other.resolve("badlinks.txt"), StandardCharsets.UTF_8));
+      } catch (IOException e) {
+        throw new EmailFinderException("unable to read the results of node " + i, e);
+      }
+    }
+    logger.info("collected the results of {} nodes", nodes);
+  }
+
+  @Override
+  public void close() {
+  }
+
+  private Path nodeDir(int i) {
+    return dir.resolve("node-" + i);
+  }
+
+  private Path inbox(int i) {
+    return nodeDir(i).resolve("inbox");
+  }
+
+  /**
+   * Writes the lines to a temporary file next to the target and renames
+   * it into place.  The temporary name does not end in .batch, so it is
+   * never picked up by receive().
+   */
+  private void write(Path file, Collection<String> lines) {
+    Path tmp = file.resolveSibling("." + file.getFileName() + ".tmp");
+    try {
+      try (BufferedWriter out = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+        for (String line : lines) {
+          out.write(line);
+          out.write('\n');
+        }
+      }
+      Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      throw new EmailFinderException("unable to write " + file, e);
+    }
+  }
+
+  private static String read(Path file) {
+    try {
+      return new String(Files.readAllBytes(file), StandardCharsets.UTF_8);
+    } catch (NoSuchFileException e) {
+      return null;
+    } catch (IOException e) {
+      throw new EmailFinderException("unable to read " + file, e);
+    }
+  }
+
+  private static void sleep() {
+    try {
+      Thread.sleep(POLL_MILLIS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new EmailFinderException("interrupted while waiting for results", e);
+    }
+  }
+}
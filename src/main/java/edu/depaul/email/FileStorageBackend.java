@@ -0,0 +1,127 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+import edu.depaul.email.ChannelListWriter.Compression;
+import edu.depaul.email.StorageService.StorageType;
+
+/**
+ * The default StorageBackend: each list is a text file with one item per
+ * line, at the location added for it.
+ */
+public class FileStorageBackend implements StorageBackend {
+
+  private final Map<StorageType, String> locations = new HashMap<>();
+  private final Map<StorageType, ListAppender> appenders = new EnumMap<>(StorageType.class);
+  private Compression compression = Compression.NONE;
+
+  public FileStorageBackend addLocation(StorageType key, String location) {
+    locations.put(key, location);
+    return this;
+  }
+
+  /**
+   * Sets whether files are written compressed.  The locations are used as
+   * given, so name them e.g. email.txt.gz.
+   */
+  public FileStorageBackend setCompression(Compression compression) {
+    this.compression = compression;
+    return this;
+  }
+
+  @Override
+  public void storeList(StorageType handle, Collection<String> aList) {
+    String location = locations.get(handle);
+
+    ChannelListWriter writer = null;
+    try {
+      writer = ChannelListWriter.open(Paths.get(location), compression);
+      writer.writeList(aList);
+    } catch (Exception err) {
+      throw new EmailFinderException("Error while write out " + handle, err);
+    } finally {
+      if (writer != null) {
+        try {
+          writer.close();
+        } catch (IOException err) {
+          throw new EmailFinderException("Error while closing output file", err);
+        }
+      }
+    }
+  }
+
+  /**
+   * Truncates every location that has been added and opens a buffered
+   * appender on it.
+   */
+  @Override
+  public synchronized void open() {
+    try {
+      for (Map.Entry<StorageType, String> location : locations.entrySet()) {
+        ChannelListWriter writer = ChannelListWriter.open(Paths.get(location.getValue()), compression);
+        appenders.put(location.getKey(), new ListAppender(writer, ListAppender.DEFAULT_BATCH));
+      }
+    } catch (IOException err) {
+      closeAppenders();
+      throw new EmailFinderException("Error while opening output files", err);
+    }
+  }
+
+  @Override
+  public void append(StorageType handle, String item) {
+    ListAppender appender;
+    synchronized (this) {
+      appender = appenders.get(handle);
+    }
+    if (appender == null) {
+      throw new EmailFinderException("No open location for " + handle, null);
+    }
+    try {
+      appender.append(item);
+    } catch (IOException err) {
+      throw new EmailFinderException("Error while write out " + handle, err);
+    }
+  }
+
+  @Override
+  public synchronized void flush() {
+    try {
+      for (ListAppender appender : appenders.values()) {
+        appender.flush();
+      }
+    } catch (IOException err) {
+      throw new EmailFinderException("Error while flushing output files", err);
+    }
+  }
+
+  @Override
+  public synchronized void close() {
+    IOException failure = closeAppenders();
+    if (failure != null) {
+      throw new EmailFinderException("Error while closing output file", failure);
+    }
+  }
+
+  private IOException closeAppenders() {
+    IOException failure = null;
+    for (ListAppender appender : appenders.values()) {
+      try {
+        appender.close();
+      } catch (IOException err) {
+        failure = err;
+      }
+    }
+    appenders.clear();
+    return failure;
+  }
+}
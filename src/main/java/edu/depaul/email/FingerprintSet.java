@@ -0,0 +1,173 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * A VisitedSet that keeps a 64-bit fingerprint of each URL in an
+ * open-addressing table of longs (8 bytes per slot, no objects per entry),
+ * instead of the URL strings themselves.  Two URLs are only confused if
+ * their fingerprints collide, which for ten million URLs happens with a
+ * probability of a few in a million.
+ * The table is split into segments, each with its own lock, so workers
+ * rarely wait for each other.  Tables can be allocated off-heap, in which
+ * case the set costs the garbage collector nothing at all.
+ */
+public class FingerprintSet implements VisitedSet {
+
+  private static final int SEGMENT_BITS = 6;
+  private static final int MIN_CAPACITY = 16;
+
+  private final Segment[] segments = new Segment[1 << SEGMENT_BITS];
+
+  public FingerprintSet() {
+    this(1 << 16, false);
+  }
+
+  /**
+   * Creates a set sized for the given number of URLs (it still grows past
+   * that if needed).  With offHeap set the tables are direct buffers.
+   */
+  public FingerprintSet(long expected, boolean offHeap) {
+    long perSegment = Math.max(expected, 1) / segments.length + 1;
+    int capacity = MIN_CAPACITY;
+    while (capacity < perSegment * 2 && capacity < (1 << 28)) {
+      capacity <<= 1;
+    }
+    for (int i = 0; i < segments.length; i++) {
+      segments[i] = new Segment(capacity, offHeap);
+    }
+  }
+
+  @Override
+  public boolean add(String url) {
+    long fp = fingerprint(url);
+    return segmentFor(fp).add(fp);
+  }
+
+  @Override
+  public boolean contains(String url) {
+    long fp = fingerprint(url);
+    return segmentFor(fp).contains(fp);
+  }
+
+  @Override
+  public long size() {
+    long size = 0;
+    for (Segment segment : segments) {
+      size += segment.size();
+    }
+    return size;
+  }
+
+  @Override
+  public long sizeInBytes() {
+    long bytes = 0;
+    for (Segment segment : segments) {
+      bytes += segment.sizeInBytes();
+    }
+    return bytes;
+  }
+
+  /**
+   * Zero marks an empty slot, so it is never used as a fingerprint.
+   */
+  private static long fingerprint(String url) {
+    long fp = VisitedSet.fingerprint(url);
+    return fp == 0 ? 1 : fp;
+  }
+
+  private Segment segmentFor(long fp) {
+    return segments[(int) (fp >>> (64 - SEGMENT_BITS))];
+  }
+
+  /**
+   * One linear-probing table.  The low bits of the fingerprint pick the
+   * slot; the high bits already picked the segment.
+   */
+  private static class Segment {
+    private final boolean offHeap;
+    private LongBuffer table;
+    private int mask;
+    private int size = 0;
+
+    Segment(int capacity, boolean offHeap) {
+      this.offHeap = offHeap;
+      this.table = allocate(capacity);
+      this.mask = capacity - 1;
+    }
+
+    private LongBuffer allocate(int capacity) {
+      if (offHeap) {
+        return ByteBuffer.allocateDirect(capacity * Long.BYTES).order(ByteOrder.nativeOrder()).asLongBuffer();
+      }
+      return LongBuffer.allocate(capacity);
+    }
+
+    synchronized boolean add(long fp) {
+      int slot = (int) fp & mask;
+      while (true) {
+        long current = table.get(slot);
+        if (current == fp) {
+          return false;
+        }
+        if (current == 0) {
+          table.put(slot, fp);
+          if (++size * 4 > (mask + 1) * 3) {
+            grow();
+          }
+          return true;
+        }
+        slot = (slot + 1) & mask;
+      }
+    }
+
+    synchronized boolean contains(long fp) {
+      int slot = (int) fp & mask;
+      while (true) {
+        long current = table.get(slot);
+        if (current == fp) {
+          return true;
+        }
+        if (current == 0) {
+          return false;
+        }
+        slot = (slot + 1) & mask;
+      }
+    }
+
+    private void grow() {
+      if (mask + 1 >= (1 << 30)) {
+        throw new EmailFinderException("visited set is full", null);
+      }
+      LongBuffer old = table;
+      int oldCapacity = mask + 1;
+      table = allocate(oldCapacity * 2);
+      mask = oldCapacity * 2 - 1;
+      for (int i = 0; i < oldCapacity; i++) {
+        long fp = old.get(i);
+        if (fp != 0) {
+          int slot = (int) fp & mask;
+          while (table.get(slot) != 0) {
+            slot = (slot + 1) & mask;
+          }
+          table.put(slot, fp);
+        }
+      }
+    }
+
+    synchronized int size() {
+      return size;
+    }
+
+    synchronized long sizeInBytes() {
+      return (long) (mask + 1) * Long.BYTES;
+    }
+  }
+}
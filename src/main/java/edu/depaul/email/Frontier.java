@@ -0,0 +1,334 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Queue;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * The queue of URLs that are waiting to be crawled.  Besides the queue
+ * itself, the frontier keeps track of how many URLs have been handed out
+ * but not yet finished, so that it can tell the difference between
+ * "nothing to do right now" and "the crawl is over".
+ * URLs are queued per host and hosts are served round-robin.  A host that
+ * its HostScheduler says is not ready is skipped, so one slow or throttled
+ * site never holds up the others.
+ * Within a host, URLs are handed out in the order given by the traversal:
+ * breadth-first (oldest first, the default), depth-first (newest first)
+ * or best-first (highest score first, oldest first among equal scores).
+ * Each URL carries the link depth it was found at, which stays available
+ * through depthOf() while the URL is being worked on.
+ * All methods are safe to call from multiple threads.
+ */
+public class Frontier {
+
+  /**
+   * The order in which the URLs of a host are taken.
+   */
+  public enum Traversal {BFS, DFS, BEST_FIRST};
+
+  private static final Comparator<Entry> BEST_FIRST =
+      Comparator.comparingDouble((Entry e) -> -e.score).thenComparingLong(e -> e.seq);
+
+  private final HostScheduler scheduler;
+  private final Traversal traversal;
+  private final Map<String, Queue<Entry>> queues = new HashMap<>();
+  private final Map<String, Integer> activeDepths = new HashMap<>();
+  private final Deque<String> hosts = new ArrayDeque<>();
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition changed = lock.newCondition();
+  private int pending = 0;
+  private int active = 0;
+  private int holds = 0;
+  private boolean closed = false;
+  private long added = 0;
+
+  public Frontier() {
+    this(new HostScheduler());
+  }
+
+  public Frontier(HostScheduler scheduler) {
+    this(scheduler, Traversal.BFS);
+  }
+
+  public Frontier(HostScheduler scheduler, Traversal traversal) {
+    this.scheduler = scheduler;
+    this.traversal = traversal;
+  }
+
+  /**
+   * Adds a URL at depth 0 (a starting URL).
+   */
+  public void add(String url) {
+    add(url, 0, 0);
+  }
+
+  /**
+   * Adds a URL found at the given link depth.  The score only matters for
+   * best-first traversal.  URLs added after the frontier has been closed
+   * are ignored.
+   */
+  public void add(String url, int depth, double score) {
+    lock.lock();
+    try {
+      if (!closed) {
+        enqueue(url, depth, score);
+        changed.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Adds the links found on one page, all at the given depth, in one go,
+   * so that take() chooses among all of them rather than among the ones
+   * that happen to have been added so far.
+   */
+  public void add(List<String> urls, int depth, double[] scores) {
+    lock.lock();
+    try {
+      if (!closed && !urls.isEmpty()) {
+        for (int i = 0; i < urls.size(); i++) {
+          enqueue(urls.get(i), depth, scores[i]);
+        }
+        changed.signalAll();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void enqueue(String url, int depth, double score) {
+    String host = HostScheduler.hostOf(url);
+    Queue<Entry> queue = queues.get(host);
+    if (queue == null) {
+      queue = newQueue();
+      queues.put(host, queue);
+      hosts.addLast(host);
+    }
+    queue.add(new Entry(url, depth, score, added++));
+    pending++;
+  }
+
+  /**
+   * Waits for the next URL to crawl.  Returns null once the frontier has
+   * been closed, or when the queue is empty, no other URL is still being
+   * worked on and nobody holds the frontier open (meaning no more URLs can
+   * ever arrive).
+   * Every URL returned by this method must be passed to done(), or to
+   * fetched() and then finished(), afterwards.
+   */
+  public String take() throws InterruptedException {
+    lock.lock();
+    try {
+      while (true) {
+        if (closed || (pending == 0 && active == 0 && holds == 0)) {
+          return null;
+        }
+        long wait = Long.MAX_VALUE;
+        long now = System.nanoTime();
+        for (int i = hosts.size(); i > 0; i--) {
+          String host = hosts.pollFirst();
+          long delay = scheduler.tryAcquire(host, now);
+          if (delay == 0) {
+            Queue<Entry> queue = queues.get(host);
+            Entry entry = queue.poll();
+            if (queue.isEmpty()) {
+              queues.remove(host);
+            } else {
+              hosts.addLast(host);
+            }
+            pending--;
+            active++;
+            activeDepths.put(entry.url, entry.depth);
+            return entry.url;
+          }
+          hosts.addLast(host);
+          if (delay > 0) {
+            wait = Math.min(wait, delay);
+          }
+        }
+        if (wait == Long.MAX_VALUE) {
+          changed.await();
+        } else {
+          changed.awaitNanos(wait);
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Marks a URL previously returned by take() as finished.  Same as
+   * calling fetched() and then finished().
+   */
+  public void done(String url) {
+    lock.lock();
+    try {
+      active--;
+      activeDepths.remove(url);
+      scheduler.release(HostScheduler.hostOf(url));
+      changed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Marks a URL previously returned by take() as downloaded, so that its
+   * host may be sent another request, while the URL itself still counts
+   * as being worked on until finished() is called.
+   */
+  public void fetched(String url) {
+    lock.lock();
+    try {
+      scheduler.release(HostScheduler.hostOf(url));
+      changed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Marks a URL previously passed to fetched() as finished, i.e. any links
+   * found on it have been added.
+   */
+  public void finished(String url) {
+    lock.lock();
+    try {
+      active--;
+      activeDepths.remove(url);
+      changed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Keeps take() waiting even when nothing is queued or being worked on,
+   * until release() is called, because URLs may still arrive from
+   * elsewhere (another node of a distributed crawl).
+   */
+  public void hold() {
+    lock.lock();
+    try {
+      holds++;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public void release() {
+    lock.lock();
+    try {
+      holds--;
+      changed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * True if nothing is queued and no URL is being worked on.
+   */
+  public boolean isIdle() {
+    lock.lock();
+    try {
+      return pending == 0 && active == 0;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Stops the crawl: drops any queued URLs and wakes up anyone waiting
+   * in take().
+   */
+  public void close() {
+    lock.lock();
+    try {
+      closed = true;
+      queues.clear();
+      hosts.clear();
+      pending = 0;
+      changed.signalAll();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * The depth a URL was added at, for a URL that has been taken but not
+   * yet finished (0 for any other URL).
+   */
+  public int depthOf(String url) {
+    lock.lock();
+    try {
+      Integer depth = activeDepths.get(url);
+      return depth == null ? 0 : depth;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public Traversal getTraversal() {
+    return traversal;
+  }
+
+  public boolean isClosed() {
+    lock.lock();
+    try {
+      return closed;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int size() {
+    lock.lock();
+    try {
+      return pending;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private Queue<Entry> newQueue() {
+    switch (traversal) {
+      case DFS:
+        return Collections.asLifoQueue(new ArrayDeque<>());
+      case BEST_FIRST:
+        return new PriorityQueue<>(BEST_FIRST);
+      default:
+        return new ArrayDeque<>();
+    }
+  }
+
+  private static final class Entry {
+    final String url;
+    final int depth;
+    final double score;
+    final long seq;
+
+    Entry(String url, int depth, double score, long seq) {
+      this.url = url;
+      this.depth = depth;
+      this.score = score;
+      this.seq = seq;
+    }
+  }
+}
@@ -0,0 +1,263 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import edu.depaul.email.StorageService.StorageType;
+
+/**
+ * A StorageBackend that keeps results in an embedded H2 database, so they
+ * can be queried instead of grepped, e.g. "which pages yielded this
+ * address" (see pagesFor()).  Tables:
+ *   emails(address)              one row per address
+ *   good_links(url), bad_links(url)
+ *   email_sources(address, page) one row per address per page it was on
+ * Primary keys make every insert idempotent, so the same item can be
+ * appended any number of times.  Rows are sent in batches of prepared
+ * MERGE statements and committed when a batch fills up or on flush().
+ */
+public class H2StorageBackend implements StorageBackend {
+
+  public static final int DEFAULT_BATCH = 1000;
+
+  private static final String[] SCHEMA = {
+    "CREATE TABLE IF NOT EXISTS emails (address VARCHAR PRIMARY KEY)",
+    "CREATE TABLE IF NOT EXISTS good_links (url VARCHAR PRIMARY KEY)",
+    "CREATE TABLE IF NOT EXISTS bad_links (url VARCHAR PRIMARY KEY)",
+    "CREATE TABLE IF NOT EXISTS email_sources (address VARCHAR NOT NULL, page VARCHAR NOT NULL,"
+        + " PRIMARY KEY (address, page))",
+    "CREATE INDEX IF NOT EXISTS email_sources_page ON email_sources (page)"
+  };
+
+  private final String url;
+  private final int batch;
+  private Connection connection = null;
+  private final Map<StorageType, PreparedStatement> inserts = new EnumMap<>(StorageType.class);
+  private PreparedStatement sourceInsert = null;
+  private int pending = 0;
+
+  /**
+   * Uses an H2 database file at the given path (".mv.db" is added by H2).
+   */
+  public static H2StorageBackend atPath(String path) {
+    return new H2StorageBackend("jdbc:h2:" + path, DEFAULT_BATCH);
+  }
+
+  public H2StorageBackend(String url, int batch) {
+    this.url = url;
+    this.batch = batch;
+  }
+
+  private static String table(StorageType type) {
+    switch (type) {
+      case EMAIL:
+        return "emails";
+      case GOODLINKS:
+        return "good_links";
+      default:
+        return "bad_links";
+    }
+  }
+
+  private static String column(StorageType type) {
+    return type == StorageType.EMAIL ? "address" : "url";
+  }
+
+  private Connection connection() throws SQLException {
+    if (connection == null) {
+      connection = DriverManager.getConnection(url);
+      try (Statement statement = connection.createStatement()) {
+        for (String sql : SCHEMA) {
+          statement.execute(sql);
+        }
+      }
+      connection.setAutoCommit(false);
+    }
+    return connection;
+  }
+
+  private PreparedStatement insert(StorageType type) throws SQLException {
+    PreparedStatement insert = inserts.get(type);
+    if (insert == null) {
+      insert = connection().prepareStatement(
+          "MERGE INTO " + table(type) + " KEY (" + column(type) + ") VALUES (?)");
+      inserts.put(type, insert);
+    }
+    return insert;
+  }
+
+  /**
+   * Replaces the rows of one table.  Email provenance is kept.
+   */
+  @Override
+  public synchronized void storeList(StorageType type, Collection<String> items) {
+    try {
+      flushBatches();
+      try (Statement statement = connection().createStatement()) {
+        statement.executeUpdate("DELETE FROM " + table(type));
+      }
+      PreparedStatement insert = insert(type);
+      for (String item : items) {
+        insert.setString(1, item);
+        insert.addBatch();
+        if (++pending >= batch) {
+          flushBatches();
+        }
+      }
+      flushBatches();
+    } catch (SQLException err) {
+      rollbackQuietly();
+      throw new EmailFinderException("Error while write out " + type, err);
+    }
+  }
+
+  @Override
+  public synchronized void open() {
+    try {
+      connection();
+    } catch (SQLException err) {
+      throw new EmailFinderException("Error while opening database " + url, err);
+    }
+  }
+
+  @Override
+  public synchronized void append(StorageType type, String item) {
+    try {
+      PreparedStatement insert = insert(type);
+      insert.setString(1, item);
+      insert.addBatch();
+      if (++pending >= batch) {
+        flushBatches();
+      }
+    } catch (SQLException err) {
+      rollbackQuietly();
+      throw new EmailFinderException("Error while write out " + type, err);
+    }
+  }
+
+  @Override
+  public synchronized void appendSource(String email, String page) {
+    try {
+      if (sourceInsert == null) {
+        sourceInsert = connection().prepareStatement(
+            "MERGE INTO email_sources KEY (address, page) VALUES (?, ?)");
+      }
+      sourceInsert.setString(1, email);
+      sourceInsert.setString(2, page);
+      sourceInsert.addBatch();
+      if (++pending >= batch) {
+        flushBatches();
+      }
+    } catch (SQLException err) {
+      rollbackQuietly();
+      throw new EmailFinderException("Error while writing email source", err);
+    }
+  }
+
+  @Override
+  public synchronized void flush() {
+    try {
+      flushBatches();
+    } catch (SQLException err) {
+      rollbackQuietly();
+      throw new EmailFinderException("Error while flushing database " + url, err);
+    }
+  }
+
+  private void flushBatches() throws SQLException {
+    if (pending == 0) {
+      return;
+    }
+    for (PreparedStatement insert : inserts.values()) {
+      insert.executeBatch();
+    }
+    if (sourceInsert != null) {
+      sourceInsert.executeBatch();
+    }
+    connection.commit();
+    pending = 0;
+  }
+
+  private void rollbackQuietly() {
+    try {
+      if (connection != null) {
+        connection.rollback();
+      }
+    } catch (SQLException err) {
+      // the original error is the one worth reporting
+    }
+    pending = 0;
+  }
+
+  @Override
+  public synchronized void close() {
+    if (connection == null) {
+      return;
+    }
+    try {
+      flushBatches();
+      connection.close();
+    } catch (SQLException err) {
+      throw new EmailFinderException("Error while closing database " + url, err);
+    } finally {
+      connection = null;
+      inserts.clear();
+      sourceInsert = null;
+    }
+  }
+
+  /**
+   * Everything stored in one list.
+   */
+  public synchronized Set<String> list(StorageType type) {
+    return query("SELECT " + column(type) + " FROM " + table(type) + " ORDER BY 1", null);
+  }
+
+  /**
+   * The pages an email address was found on.
+   */
+  public synchronized Set<String> pagesFor(String email) {
+    return query("SELECT page FROM email_sources WHERE address = ? ORDER BY page", email);
+  }
+
+  /**
+   * The email addresses found on a page.
+   */
+  public synchronized Set<String> emailsOn(String page) {
+    return query("SELECT address FROM email_sources WHERE page = ? ORDER BY address", page);
+  }
+
+  private Set<String> query(String sql, String parameter) {
+    Set<String> result = new LinkedHashSet<>();
+    try {
+      flushBatches();
+      try (PreparedStatement select = connection().prepareStatement(sql)) {
+        if (parameter != null) {
+          select.setString(1, parameter);
+        }
+        try (ResultSet rows = select.executeQuery()) {
+          while (rows.next()) {
+            result.add(rows.getString(1));
+          }
+        }
+      }
+    } catch (SQLException err) {
+      throw new EmailFinderException("Error while reading database " + url, err);
+    }
+    return result;
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Keeps the crawler polite towards each web server it visits.  Every host
+ * gets a token bucket refilled at a fixed number of requests per second,
+ * a cap on the number of requests it may have open at once, and an
+ * exponential backoff after the server signals that it is overloaded.
+ * Local files are never throttled.
+ * The Frontier consults the scheduler before handing out a URL, so a host
+ * that is not ready simply gets skipped in favour of the next one.
+ */
+public class HostScheduler {
+
+  private static final long BASE_BACKOFF = TimeUnit.MILLISECONDS.toNanos(500);
+  private static final long MAX_BACKOFF = TimeUnit.SECONDS.toNanos(60);
+
+  /**
+   * Returned by tryAcquire() when the host already has its maximum number
+   * of requests open; it becomes ready again when one of them finishes.
+   */
+  public static final long BUSY = -1;
+
+  private final double rate;
+  private final double burst;
+  private final int maxPerHost;
+  private final Map<String, HostState> hosts = new HashMap<>();
+
+  /**
+   * Creates a scheduler that places no limits on any host.
+   */
+  public HostScheduler() {
+    this(0, 0);
+  }
+
+  /**
+   * @param rate requests per second allowed for each host, or 0 for no limit
+   * @param maxPerHost requests each host may have open at once, or 0 for no limit
+   */
+  public HostScheduler(double rate, int maxPerHost) {
+    this.rate = rate;
+    this.burst = Math.max(1.0, rate);
+    this.maxPerHost = maxPerHost;
+  }
+
+  /**
+   * Extracts the lower-cased host name from an http(s) URL, without any
+   * user info or port.  Anything else (a local file path) maps to the
+   * empty string.
+   */
+  public static String hostOf(String url) {
+    if (!url.regionMatches(true, 0, "http", 0, 4)) {
+      return "";
+    }
+    int start = url.indexOf("://");
+    if (start < 0) {
+      return "";
+    }
+    start += 3;
+    int end = start;
+    while (end < url.length()) {
+      char c = url.charAt(end);
+      if (c == '/' || c == '?' || c == '#') {
+        break;
+      }
+      end++;
+    }
+    int at = url.lastIndexOf('@', end - 1);
+    if (at >= start) {
+      start = at + 1;
+    }
+    int port = url.lastIndexOf(':', end - 1);
+    if (port >= start && url.lastIndexOf(']', end - 1) < port) {
+      end = port;
+    }
+    return url.substring(start, end).toLowerCase(Locale.ROOT);
+  }
+
+  /**
+   * Tries to start a request to the given host.
+   * @return 0 if the request may go ahead (it must later be matched by a
+   *     call to release()), BUSY if the host is at its concurrency cap, or
+   *     otherwise the number of nanoseconds until the host will be ready
+   */
+  public synchronized long tryAcquire(String host, long now) {
+    if (host.isEmpty()) {
+      return 0;
+    }
+    HostState state = hosts.computeIfAbsent(host, h -> new HostState(burst, now));
+    if (now < state.blockedUntil) {
+      return state.blockedUntil - now;
+    }
+    if (maxPerHost > 0 && state.active >= maxPerHost) {
+      return BUSY;
+    }
+    if (rate > 0) {
+      state.tokens = Math.min(burst, state.tokens + (now - state.refilled) * rate / 1e9);
+      state.refilled = now;
+      if (state.tokens < 1.0) {
+        return Math.max(1L, (long) ((1.0 - state.tokens) / rate * 1e9));
+      }
+      state.tokens -= 1.0;
+    }
+    state.active++;
+    return 0;
+  }
+
+  /**
+   * Marks a request started by tryAcquire() as finished.
+   */
+  public synchronized void release(String host) {
+    HostState state = hosts.get(host);
+    if (state != null && state.active > 0) {
+      state.active--;
+    }
+  }
+
+  /**
+   * Called when a host refuses a request because it is overloaded (for
+   * example with HTTP 429 or 503).  Each consecutive refusal doubles the
+   * time the host is left alone.
+   */
+  public synchronized void backoff(String host, long now) {
+    if (host.isEmpty()) {
+      return;
+    }
+    HostState state = hosts.computeIfAbsent(host, h -> new HostState(burst, now));
+    int shift = Math.min(state.failures, 20);
+    state.failures++;
+    state.blockedUntil = now + Math.min(MAX_BACKOFF, BASE_BACKOFF << shift);
+  }
+
+  /**
+   * Called after a successful request; clears any backoff for the host.
+   */
+  public synchronized void success(String host) {
+    HostState state = hosts.get(host);
+    if (state != null) {
+      state.failures = 0;
+    }
+  }
+
+  private static class HostState {
+    private double tokens;
+    private long refilled;
+    private int active = 0;
+    private int failures = 0;
+    private long blockedUntil = 0;
+
+    HostState(double tokens, long now) {
+      this.tokens = tokens;
+      this.refilled = now;
+    }
+  }
+}
@@ -0,0 +1,49 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.jsoup.Connection;
+import org.jsoup.Jsoup;
+
+/**
+ * The default backend: a blocking request through Jsoup's own connector.
+ * Each call opens its own connection.  Conditional requests are supported.
+ */
+public class JsoupBackend implements FetchBackend {
+
+  @Override
+  public RawPage fetch(String url) throws IOException {
+    return fetch(url, null, null);
+  }
+
+  @Override
+  public RawPage fetch(String url, String etag, String lastModified) throws IOException {
+    Connection connection = Jsoup.connect(url);
+    if (etag != null) {
+      connection.header("If-None-Match", etag);
+    }
+    if (lastModified != null) {
+      connection.header("If-Modified-Since", lastModified);
+    }
+    Connection.Response response = connection.execute();
+    if (response.statusCode() == 304) {
+      return RawPage.notModified(url);
+    }
+    return new RawPage(url, response.bodyAsBytes(), response.charset(),
+        response.header("ETag"), response.header("Last-Modified"));
+  }
+
+  @Override
+  public InputStream open(String url) throws IOException {
+    return Jsoup.connect(url).execute().bodyStream();
+  }
+
+  @Override
+  public void close() {}
+}
@@ -0,0 +1,47 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Scores a link by how many of a list of keywords appear in it, so that
+ * pages such as /contact or /staff-directory, which tend to list many
+ * email addresses, are fetched before the rest of the site.  Matching is
+ * case-insensitive and looks at the whole URL, host included.
+ */
+public class KeywordScorer implements LinkScorer {
+
+  public static final List<String> DEFAULT_KEYWORDS = Arrays.asList(
+      "contact", "staff", "directory", "people", "faculty", "team", "about", "email");
+
+  private final List<String> keywords = new ArrayList<>();
+
+  public KeywordScorer() {
+    this(DEFAULT_KEYWORDS);
+  }
+
+  public KeywordScorer(List<String> keywords) {
+    for (String keyword : keywords) {
+      this.keywords.add(keyword.toLowerCase(Locale.ROOT));
+    }
+  }
+
+  @Override
+  public double score(String url, int depth) {
+    String lower = url.toLowerCase(Locale.ROOT);
+    int hits = 0;
+    for (String keyword : keywords) {
+      if (lower.contains(keyword)) {
+        hits++;
+      }
+    }
+    return hits;
+  }
+}
@@ -0,0 +1,65 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A lock-free latency histogram with power-of-two microsecond buckets.
+ * Recording is a couple of atomic increments; percentiles are reported as
+ * the upper bound of the bucket they fall in, which is accurate to within
+ * a factor of two.
+ */
+public class LatencyHistogram {
+
+  private static final int BUCKETS = 40;
+
+  private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+  private final LongAdder total = new LongAdder();
+  private final LongAdder sumMicros = new LongAdder();
+
+  public void record(long nanos) {
+    long micros = Math.max(0, TimeUnit.NANOSECONDS.toMicros(nanos));
+    int bucket = Math.min(BUCKETS - 1, 64 - Long.numberOfLeadingZeros(micros));
+    counts.incrementAndGet(bucket);
+    total.increment();
+    sumMicros.add(micros);
+  }
+
+  public long getCount() {
+    return total.sum();
+  }
+
+  public double getMeanMillis() {
+    long count = total.sum();
+    return count == 0 ? 0 : sumMicros.sum() / 1000.0 / count;
+  }
+
+  /**
+   * Returns the latency below which the given fraction (0 to 1) of the
+   * recorded values fall, in milliseconds.
+   */
+  public double percentileMillis(double fraction) {
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      count += counts.get(i);
+    }
+    if (count == 0) {
+      return 0;
+    }
+    long target = Math.max(1, (long) Math.ceil(fraction * count));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += counts.get(i);
+      if (seen >= target) {
+        return (1L << i) / 1000.0;
+      }
+    }
+    return (1L << (BUCKETS - 1)) / 1000.0;
+  }
+}
@@ -0,0 +1,19 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+/**
+ * Rates how promising a link is for a best-first crawl.  Links with higher
+ * scores are fetched first; the score is computed once, when the link is
+ * queued.  See KeywordScorer for the default.
+ */
+public interface LinkScorer {
+
+  /**
+   * Scores a resolved, canonical URL found at the given link depth.
+   */
+  double score(String url, int depth);
+}
@@ -0,0 +1,58 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.channels.Channels;
+
+/**
+ * Appends items to an output stream one at a time, each on a new line, as
+ * ListWriter does for a whole list.  Items are buffered and the stream is
+ * flushed once a batch of them has built up, or when flush() is called,
+ * so readers tailing the file see results shortly after they are found
+ * without a write call per item.
+ * All methods are synchronized, so workers can share one appender.
+ */
+public class ListAppender {
+
+  public static final int DEFAULT_BATCH = 64;
+
+  private final ChannelListWriter writer;
+  private final int batch;
+  private int pending = 0;
+
+  public ListAppender(OutputStream output) {
+    this(output, DEFAULT_BATCH);
+  }
+
+  public ListAppender(OutputStream output, int batch) {
+    this(new ChannelListWriter(Channels.newChannel(output)), batch);
+  }
+
+  public ListAppender(ChannelListWriter writer, int batch) {
+    this.writer = writer;
+    this.batch = batch;
+  }
+
+  public synchronized void append(String item) throws IOException {
+    writer.write(item);
+    if (++pending >= batch) {
+      flush();
+    }
+  }
+
+  public synchronized void flush() throws IOException {
+    if (pending > 0) {
+      writer.flush();
+      pending = 0;
+    }
+  }
+
+  public synchronized void close() throws IOException {
+    writer.close();
+  }
+}
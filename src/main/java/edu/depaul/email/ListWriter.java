@@ -5,13 +5,16 @@
  */
 package edu.depaul.email;
 
+import java.io.BufferedOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 import java.util.Collection;
 
 /**
  * Writes a given list to an output stream.  Each element is written to
- * a new line.
+ * a new line, in UTF-8.  See ChannelListWriter for a faster version that
+ * writes to a file channel.
  */
 public class ListWriter {
 
@@ -23,9 +26,11 @@ public class ListWriter {
   }
 
   public void writeList(Collection<String> aList) throws IOException {
+    OutputStream buffered = new BufferedOutputStream(output, 64 * 1024);
     for (String item : aList) {
-      output.write(item.getBytes());
-      output.write(newLine);
+      buffered.write(item.getBytes(StandardCharsets.UTF_8));
+      buffered.write(newLine);
     }
+    buffered.flush();
   }
 }
@@ -0,0 +1,31 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.util.Set;
+
+/**
+ * What the crawler takes away from one page: the email addresses found in
+ * its text and the raw href values of its links.
+ */
+public class PageContent {
+
+  private final Set<String> emails;
+  private final Set<String> links;
+
+  public PageContent(Set<String> emails, Set<String> links) {
+    this.emails = emails;
+    this.links = links;
+  }
+
+  public Set<String> getEmails() {
+    return emails;
+  }
+
+  public Set<String> getLinks() {
+    return links;
+  }
+}
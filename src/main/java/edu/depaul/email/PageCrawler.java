@@ -5,10 +5,28 @@
  */
 package edu.depaul.email;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
 
+import org.jsoup.HttpStatusException;
 import org.jsoup.nodes.Document;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.depaul.email.Frontier.Traversal;
+import edu.depaul.email.WorkerPools.ThreadMode;
 
 import static edu.depaul.email.StorageService.StorageType.EMAIL;
 import static edu.depaul.email.StorageService.StorageType.GOODLINKS;
@@ -17,8 +35,8 @@ import static edu.depaul.email.StorageService.StorageType.BADLINKS;
 
 /**
  * Given a starting URL string, this class finds links and email addresses
- * on the referenced page and the recursively performs the same task on
- * any links it finds.
+ * on the referenced page and then performs the same task on any links it
+ * finds, using a pool of worker threads fed from a URL frontier.
  * When the target number of emails have been found, the process write out 3
  * results:
  * 1. list of email addresses
@@ -26,14 +44,44 @@ import static edu.depaul.email.StorageService.StorageType.BADLINKS;
  * 3. list of URLs that could not be reached
  */
 public class PageCrawler {
+  private static final Logger logger = LoggerFactory.getLogger(PageCrawler.class);
+
+  public static final int DEFAULT_WORKERS = 8;
+  public static final int DEFAULT_VIRTUAL_WORKERS = 1000;
+  public static final int DEFAULT_STAGE_CAPACITY = 64;
+  private static final long COORDINATION_MILLIS = 50;
+
   private int maxEmails = 50;
-  private Set<String> emails = new HashSet<>();
+  private int workers = DEFAULT_WORKERS;
+  private int parseWorkers = Runtime.getRuntime().availableProcessors();
+  private int stageCapacity = DEFAULT_STAGE_CAPACITY;
+  private ThreadMode threadMode = ThreadMode.PLATFORM;
+  private EmailStore emails = new EmailStore();
   private PageFetcher fetcher = new PageFetcher();
   private PageParser parser = new PageParser();
-  private String base = null;
-  private Set<String> checkedUrls = new HashSet<>();
-  private Set<String> goodLinks = new HashSet<>();
-  private Set<String> badLinks = new HashSet<>();
+  private StreamingExtractor extractor = new StreamingExtractor();
+  private boolean streaming = false;
+  private boolean byteScan = false;
+  private UrlCanonicalizer canonicalizer = new UrlCanonicalizer();
+  private VisitedSet checkedUrls = new FingerprintSet();
+  private Set<String> goodLinks = ConcurrentHashMap.newKeySet();
+  private Set<String> badLinks = ConcurrentHashMap.newKeySet();
+  private HostScheduler scheduler = new HostScheduler();
+  private Frontier frontier;
+  private Traversal traversal = Traversal.BFS;
+  private LinkScorer scorer = new KeywordScorer();
+  private int maxDepth = Integer.MAX_VALUE;
+  private long maxPages = Long.MAX_VALUE;
+  private long maxBytes = Long.MAX_VALUE;
+  private long pagesVisited = 0;
+  private long bytesAtStart = 0;
+  private CrawlMetrics metrics = new CrawlMetrics();
+  private long reportSeconds = 0;
+  private CrawlCheckpoint checkpoint = null;
+  private CrawlCoordinator coordinator = null;
+  private boolean incremental = false;
+  private ResponseCache cache = null;
+  private ParseCache parseCache = null;
 
   private StorageService storage;
 
@@ -42,10 +90,235 @@ public class PageCrawler {
   }
 
   public PageCrawler(StorageService storage, int maxEmails) {
+    this(storage, maxEmails, DEFAULT_WORKERS);
+  }
+
+  public PageCrawler(StorageService storage, int maxEmails, int workers) {
+    if (workers < 1) {
+      throw new IllegalArgumentException("workers must be at least 1");
+    }
     this.storage = storage;
     this.maxEmails = maxEmails;
+    this.workers = workers;
+  }
+
+  /**
+   * Selects how fetches are run.  In VIRTUAL mode every in-flight URL gets
+   * its own virtual thread and the worker count becomes the cap on the
+   * number of URLs being fetched at once.
+   */
+  public PageCrawler setThreadMode(ThreadMode mode) {
+    this.threadMode = mode;
+    return this;
+  }
+
+  /**
+   * Sets how many threads parse fetched pages (by default one per
+   * available processor).  Parsing is CPU bound, so more threads than
+   * cores only adds contention, while the fetch worker count can be much
+   * higher.
+   */
+  public PageCrawler setParseWorkers(int parseWorkers) {
+    if (parseWorkers < 1) {
+      throw new IllegalArgumentException("parse workers must be at least 1");
+    }
+    this.parseWorkers = parseWorkers;
+    return this;
+  }
+
+  /**
+   * Sets how many pages may wait between the fetch and parse stages, and
+   * between the parse and store stages.  When a queue is full the stage
+   * feeding it waits, which bounds the page bodies held in memory.
+   */
+  public PageCrawler setStageCapacity(int capacity) {
+    if (capacity < 1) {
+      throw new IllegalArgumentException("stage capacity must be at least 1");
+    }
+    this.stageCapacity = capacity;
+    return this;
+  }
+
+  /**
+   * Selects the order in which each host's URLs are crawled: breadth-first
+   * (the default), depth-first, or best-first by the score given by the
+   * link scorer.
+   */
+  public PageCrawler setTraversal(Traversal traversal) {
+    this.traversal = traversal;
+    return this;
+  }
+
+  /**
+   * Replaces the scorer used by best-first traversal (by default a
+   * KeywordScorer that favours contact, staff and directory pages).
+   */
+  public PageCrawler setLinkScorer(LinkScorer scorer) {
+    this.scorer = scorer;
+    return this;
+  }
+
+  /**
+   * Follows links at most this many clicks away from the starting URL
+   * (0 crawls the starting page only).  URLs resumed from a checkpoint
+   * count as starting URLs.
+   */
+  public PageCrawler setMaxDepth(int maxDepth) {
+    if (maxDepth < 0) {
+      throw new IllegalArgumentException("max depth must not be negative");
+    }
+    this.maxDepth = maxDepth;
+    return this;
+  }
+
+  /**
+   * Stops the crawl once this many pages have been visited, whether they
+   * could be read or not.
+   */
+  public PageCrawler setMaxPages(long maxPages) {
+    if (maxPages < 1) {
+      throw new IllegalArgumentException("max pages must be at least 1");
+    }
+    this.maxPages = maxPages;
+    return this;
+  }
+
+  /**
+   * Stops the crawl once this many bytes of pages have been downloaded.
+   */
+  public PageCrawler setMaxBytes(long maxBytes) {
+    if (maxBytes < 1) {
+      throw new IllegalArgumentException("max bytes must be at least 1");
+    }
+    this.maxBytes = maxBytes;
+    return this;
+  }
+
+  /**
+   * Replaces the default (Jsoup) fetcher, e.g. with one backed by
+   * AsyncHttpBackend.
+   */
+  public PageCrawler setFetcher(PageFetcher fetcher) {
+    this.fetcher = fetcher;
+    return this;
+  }
+
+  /**
+   * Sets the per-host rate and concurrency limits used while crawling.
+   */
+  public PageCrawler setHostScheduler(HostScheduler scheduler) {
+    this.scheduler = scheduler;
+    return this;
+  }
+
+  /**
+   * When set, emails are found by ByteEmailScanner in the raw bytes of
+   * each page instead of in the text of its Jsoup Document, which is then
+   * only used for links.  Has no effect in streaming mode.
+   */
+  public PageCrawler setByteScan(boolean byteScan) {
+    this.byteScan = byteScan;
+    return this;
+  }
+
+  /**
+   * When set, pages are scanned in a single pass by StreamingExtractor
+   * instead of being parsed into a Jsoup Document.
+   */
+  public PageCrawler setStreaming(boolean streaming) {
+    this.streaming = streaming;
+    return this;
+  }
+
+  /**
+   * Logs a line of crawl metrics every given number of seconds while
+   * crawling (0, the default, only logs a summary at the end).
+   */
+  public PageCrawler setReportInterval(long seconds) {
+    this.reportSeconds = seconds;
+    return this;
+  }
+
+  /**
+   * Records progress to the given checkpoint as the crawl goes.  If the
+   * checkpoint was opened for resume, crawl() picks up where the earlier
+   * run stopped instead of starting again from the given URL.
+   */
+  public PageCrawler setCheckpoint(CrawlCheckpoint checkpoint) {
+    this.checkpoint = checkpoint;
+    return this;
+  }
+
+  /**
+   * Makes this crawler one node of a distributed crawl.  It then only
+   * fetches the hosts the coordinator assigns to it, sends links to other
+   * hosts to their nodes, and keeps crawling until the whole cluster is
+   * done.  report() on node 0 writes out what all the nodes found; the
+   * other nodes only hand their results over.  Not for use with
+   * incremental output or checkpoints.
+   */
+  public PageCrawler setCoordinator(CrawlCoordinator coordinator) {
+    this.coordinator = coordinator;
+    return this;
+  }
+
+  /**
+   * Replaces the set used to remember which URLs have been seen, e.g. with
+   * an off-heap FingerprintSet or a BloomVisitedSet for very large crawls.
+   */
+  public PageCrawler setVisitedSet(VisitedSet visited) {
+    this.checkedUrls = visited;
+    return this;
+  }
+
+  /**
+   * When set, results are appended to the storage service as they are
+   * found (see StorageService.open()) instead of being kept for report(),
+   * along with the page each email was found on.  Good and bad links are
+   * then not held in memory at all.
+   */
+  public PageCrawler setIncremental(boolean incremental) {
+    this.incremental = incremental;
+    return this;
+  }
+
+  /**
+   * Keeps web pages in the given cache and revalidates them with
+   * conditional requests instead of downloading them again.
+   */
+  public PageCrawler setResponseCache(ResponseCache cache) {
+    this.cache = cache;
+    return this;
+  }
+
+  /**
+   * Reuses what was extracted from a page body when an identical body
+   * turns up under another URL.  Pages that are scanned in streaming mode
+   * are read only once, so they bypass this cache unless they come from
+   * the response cache.
+   */
+  public PageCrawler setParseCache(ParseCache parseCache) {
+    this.parseCache = parseCache;
+    return this;
+  }
+
+  /**
+   * Replaces the rules used to resolve links and decide which ones are the
+   * same page, e.g. to strip other tracking parameters.
+   */
+  public PageCrawler setCanonicalizer(UrlCanonicalizer canonicalizer) {
+    this.canonicalizer = canonicalizer;
+    return this;
+  }
+
+  public CrawlMetrics getMetrics() {
+    return metrics;
   }
 
+  /**
+   * The emails found so far, in EmailNormalizer's canonical form and in
+   * the order they were found.
+   */
   public Set<String> getEmails() {
     return emails;
   }
@@ -58,56 +331,612 @@ public class PageCrawler {
     return badLinks;
   }
 
+  /**
+   * Crawls outward from the given URL until either no unvisited links
+   * remain or the target number of emails has been found.  URLs are
+   * taken from a shared frontier and pass through three stages: fetch
+   * workers (or virtual threads, see setThreadMode) download pages, parse
+   * workers extract emails and links from them, and a single store thread
+   * records the results and queues the new links.  The stages are joined
+   * by bounded queues, so a backlog of parsing makes fetchers wait instead
+   * of piling up page bodies, while a slow page only holds up the fetcher
+   * that is downloading it.
+   * As soon as the target is reached the frontier is closed: queued URLs
+   * are dropped and no new fetches start.  Fetches still in progress are
+   * not cancelled; they run until they complete or time out, and their
+   * pages, like those already on their way through the stages, are
+   * discarded, so exactly maxEmails emails are kept.  The crawl also
+   * stops when the page or byte budget (setMaxPages, setMaxBytes) is used
+   * up.
+   */
   public void crawl(String url) {
 
     if (emails.size() >= maxEmails) {
       return;
     }
-    if (base == null) {
-      if (url.startsWith("http")) {
-        base = url;
+    frontier = new Frontier(scheduler, traversal);
+    pagesVisited = 0;
+    bytesAtStart = fetcher.getBytesFetched();
+    if (incremental) {
+      storage.open();
+    }
+    if (coordinator != null) {
+      frontier.hold();
+    }
+    if (checkpoint != null && checkpoint.isResumed()) {
+      restore(url);
+    } else {
+      enqueue(url);
+    }
+    if (emails.size() >= maxEmails) {
+      return;
+    }
+    BlockingQueue<PageResult> parseQueue = new ArrayBlockingQueue<>(stageCapacity);
+    BlockingQueue<PageResult> storeQueue = new ArrayBlockingQueue<>(stageCapacity);
+    startMetrics(parseQueue, storeQueue);
+
+    ExecutorService pool = WorkerPools.create(threadMode, workers);
+    ExecutorService parsers = Executors.newFixedThreadPool(parseWorkers);
+    ExecutorService store = Executors.newSingleThreadExecutor();
+    for (int i = 0; i < parseWorkers; i++) {
+      parsers.execute(() -> parseStage(parseQueue, storeQueue));
+    }
+    store.execute(() -> storeStage(storeQueue));
+    ExecutorService coordination = Executors.newSingleThreadExecutor();
+    if (coordinator != null) {
+      coordination.execute(this::coordinate);
+    }
+    Semaphore slots = new Semaphore(workers);
+    try {
+      while (true) {
+        slots.acquire();
+        String next = frontier.take();
+        if (next == null) {
+          slots.release();
+          break;
+        }
+        pool.execute(() -> {
+          try {
+            fetchStage(next, parseQueue, storeQueue);
+          } finally {
+            slots.release();
+          }
+        });
+      }
+    } catch (InterruptedException e) {
+      frontier.close();
+      Thread.currentThread().interrupt();
+    } finally {
+      pool.shutdown();
+      awaitQuietly(pool);
+      stopStage(parsers, parseQueue, parseWorkers);
+      stopStage(store, storeQueue, 1);
+      coordination.shutdown();
+      awaitQuietly(coordination);
+      if (coordinator != null && frontier.isClosed()) {
+        coordinator.update(true, true, emails.size());
+      }
+      stopMetrics();
+    }
+  }
+
+  /**
+   * Loads the results and the unfinished part of the frontier from the
+   * checkpoint.
+   */
+  private void restore(String url) {
+    for (String queued : checkpoint.getQueued()) {
+      checkedUrls.add(queued);
+    }
+    for (String good : checkpoint.getGoodLinks()) {
+      storeGood(good);
+    }
+    for (String bad : checkpoint.getBadLinks()) {
+      storeBad(bad);
+    }
+    pagesVisited = checkpoint.getGoodLinks().size() + checkpoint.getBadLinks().size();
+    for (String raw : checkpoint.getEmails()) {
+      String email = EmailNormalizer.normalize(raw);
+      if (email != null && emails.size() < maxEmails && emails.add(email) && incremental) {
+        storage.append(EMAIL, email);
+      }
+    }
+    for (Map.Entry<String, Integer> pending : checkpoint.getPending().entrySet()) {
+      queue(pending.getKey(), pending.getValue());
+    }
+    if (!checkedUrls.contains(url)) {
+      enqueue(url);
+    }
+    // The starting URL was logged as given; its canonical form, which
+    // enqueue() also marks, was not
+    String canonical = canonicalizer.canonicalize(url);
+    if (canonical != null) {
+      checkedUrls.add(canonical);
+    }
+  }
+
+  /**
+   * Queues the starting URL as given, and remembers its canonical form so
+   * that links back to it are not fetched again.
+   */
+  private void enqueue(String url) {
+    checkedUrls.add(url);
+    String canonical = canonicalizer.canonicalize(url);
+    if (canonical != null) {
+      checkedUrls.add(canonical);
+    }
+    if (coordinator == null || coordinator.ownerOf(url) == coordinator.getNode()) {
+      queue(url, 0);
+    }
+  }
+
+  private void queue(String url, int depth) {
+    double score = traversal == Traversal.BEST_FIRST ? scorer.score(url, depth) : 0;
+    frontier.add(url, depth, score);
+    if (checkpoint != null) {
+      checkpoint.queued(url, depth);
+    }
+  }
+
+  /**
+   * Queues the new links of one page together (see Frontier.add).
+   */
+  private void queue(List<String> urls, int depth) {
+    double[] scores = new double[urls.size()];
+    if (traversal == Traversal.BEST_FIRST) {
+      for (int i = 0; i < scores.length; i++) {
+        scores[i] = scorer.score(urls.get(i), depth);
+      }
+    }
+    frontier.add(urls, depth, scores);
+    if (checkpoint != null) {
+      for (String url : urls) {
+        checkpoint.queued(url, depth);
+      }
+    }
+  }
+
+  /**
+   * Queues the links this node owns and sends the rest to their nodes.
+   */
+  private void route(List<String> urls, int depth) {
+    if (coordinator == null) {
+      queue(urls, depth);
+      return;
+    }
+    List<List<String>> byNode = new ArrayList<>();
+    for (int i = 0; i < coordinator.getNodes(); i++) {
+      byNode.add(new ArrayList<>());
+    }
+    for (String url : urls) {
+      byNode.get(coordinator.ownerOf(url)).add(url);
+    }
+    for (int i = 0; i < byNode.size(); i++) {
+      if (i == coordinator.getNode()) {
+        queue(byNode.get(i), depth);
+      } else {
+        coordinator.send(i, byNode.get(i), depth);
+      }
+    }
+  }
+
+  /**
+   * Runs on its own thread while a distributed crawl is on: queues the
+   * links other nodes have sent, tells the coordinator whether this node
+   * is idle, and lets the frontier run dry once the whole cluster is
+   * (or close as soon as the cluster has stopped or found enough emails).
+   */
+  private void coordinate() {
+    try {
+      while (!frontier.isClosed()) {
+        int received = coordinator.receive((url, depth) -> {
+          if (checkedUrls.add(url)) {
+            queue(url, depth);
+          }
+        });
+        boolean idle = received == 0 && frontier.isIdle();
+        CrawlCoordinator.State state = coordinator.update(idle, false, emails.size());
+        if (state == CrawlCoordinator.State.STOPPED || coordinator.getTotalEmails() >= maxEmails) {
+          frontier.close();
+        } else if (state == CrawlCoordinator.State.FINISHED) {
+          frontier.release();
+          return;
+        }
+        Thread.sleep(COORDINATION_MILLIS);
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    } catch (RuntimeException e) {
+      logger.warn("unable to coordinate with the other nodes, stopping", e);
+      frontier.close();
+    }
+  }
+
+  private void startMetrics(BlockingQueue<PageResult> parseQueue, BlockingQueue<PageResult> storeQueue) {
+    Frontier current = frontier;
+    PageFetcher currentFetcher = fetcher;
+    metrics.setQueueDepth(current::size).setBytesFetched(currentFetcher::getBytesFetched)
+        .setParseQueueDepth(parseQueue::size).setStoreQueueDepth(storeQueue::size);
+    metrics.register("crawler-" + Integer.toHexString(System.identityHashCode(this)));
+    if (reportSeconds > 0) {
+      metrics.startReporting(reportSeconds, TimeUnit.SECONDS);
+    }
+  }
+
+  private void stopMetrics() {
+    metrics.stopReporting();
+    metrics.unregister();
+    logger.info("crawl finished {}", metrics.summary());
+  }
+
+  /**
+   * Downloads a page and hands it on: to the parse stage if it still has
+   * to be parsed, or straight to the store stage if it failed or its
+   * content is already known.  The fetch slot, and the host's slot in the
+   * scheduler, are given up as soon as the page has been handed on.
+   */
+  private void fetchStage(String url, BlockingQueue<PageResult> parseQueue,
+      BlockingQueue<PageResult> storeQueue) {
+    if (frontier.isClosed()) {
+      frontier.done(url);
+      return;
+    }
+    PageResult result = fetch(url);
+    frontier.fetched(url);
+    if (frontier.isClosed()) {
+      frontier.finished(url);
+      return;
+    }
+    try {
+      if (result.page != null) {
+        parseQueue.put(result);
       } else {
-        base = "";
+        storeQueue.put(result);
       }
+    } catch (InterruptedException e) {
+      frontier.finished(url);
+      Thread.currentThread().interrupt();
     }
-    Document doc = null;
+  }
+
+  private PageResult fetch(String url) {
+    String host = HostScheduler.hostOf(url);
+    metrics.fetchStarted();
     try {
-      checkedUrls.add(url);
-      doc = fetcher.get(url);
+      PageResult result;
+      if (cache != null && url.startsWith("http")) {
+        result = revalidate(url);
+      } else if (streaming) {
+        result = new PageResult(url, null, scan(url), null);
+      } else {
+        long start = System.nanoTime();
+        RawPage page = fetcher.fetch(url, null, null);
+        metrics.recordFetch(System.nanoTime() - start);
+        result = new PageResult(url, page, null, null);
+      }
+      scheduler.success(host);
+      return result;
     } catch (Exception e) {
-      badLinks.add(url);
-      System.out.println(e.getMessage());
+      if (isThrottled(e)) {
+        scheduler.backoff(host, System.nanoTime());
+      }
+      return new PageResult(url, null, null, e);
+    } finally {
+      metrics.fetchFinished();
+    }
+  }
+
+  /**
+   * Fetches a page through the response cache.  If the server says the
+   * cached copy is still current, what was extracted from it last time is
+   * used as is and the page skips the parse stage.
+   */
+  private PageResult revalidate(String url) {
+    ResponseCache.Entry entry = cache.get(url);
+    long start = System.nanoTime();
+    RawPage page = entry == null
+        ? fetcher.fetch(url, null, null)
+        : fetcher.fetch(url, entry.getEtag(), entry.getLastModified());
+    metrics.recordFetch(System.nanoTime() - start);
+    if (page.isNotModified() && entry != null) {
+      return new PageResult(url, null, entry.getContent(), null);
+    }
+    return new PageResult(url, page, null, null);
+  }
+
+  private void parseStage(BlockingQueue<PageResult> in, BlockingQueue<PageResult> out) {
+    try {
+      while (true) {
+        PageResult fetched = in.take();
+        if (fetched == PageResult.END) {
+          return;
+        }
+        if (frontier.isClosed()) {
+          frontier.finished(fetched.url);
+          continue;
+        }
+        out.put(parse(fetched));
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private PageResult parse(PageResult fetched) {
+    long start = System.nanoTime();
+    try {
+      PageContent content = extract(fetched.page);
+      metrics.recordParse(System.nanoTime() - start);
+      if (cache != null && fetched.url.startsWith("http")) {
+        cache.put(fetched.page, content);
+      }
+      return new PageResult(fetched.url, null, content, null);
+    } catch (Exception e) {
+      return new PageResult(fetched.url, null, null, e);
+    }
+  }
+
+  /**
+   * Records pages one at a time, so that only this thread writes results
+   * and queues links, and the email limit can be checked without races.
+   * Pages that arrive after the crawl has stopped are dropped.  A URL only
+   * counts as finished in the frontier once its links have been queued,
+   * which keeps the crawl from ending early.
+   */
+  private void storeStage(BlockingQueue<PageResult> in) {
+    try {
+      while (true) {
+        PageResult result = in.take();
+        if (result == PageResult.END) {
+          return;
+        }
+        try {
+          if (!frontier.isClosed()) {
+            record(result);
+            pagesVisited++;
+            checkBudgets();
+          }
+        } catch (RuntimeException e) {
+          logger.warn("unable to record {}", result.url, e);
+        } finally {
+          frontier.finished(result.url);
+        }
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Tells the threads of a stage to stop once they have drained their
+   * queue, and waits for them.
+   */
+  private void stopStage(ExecutorService stage, BlockingQueue<PageResult> queue, int threads) {
+    stage.shutdown();
+    try {
+      for (int i = 0; i < threads; i++) {
+        queue.put(PageResult.END);
+      }
+    } catch (InterruptedException e) {
+      stage.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+    awaitQuietly(stage);
+  }
+
+  private void record(PageResult result) {
+    String url = result.url;
+    if (result.error != null) {
+      storeBad(url);
+      if (checkpoint != null) {
+        checkpoint.bad(url);
+      }
+      metrics.recordFailure(HostScheduler.hostOf(url));
+      logger.debug("unable to crawl {}: {}", url, result.error.getMessage());
       return;
     }
-    goodLinks.add(url);
-    Set<String> newEmails = parser.findEmails(doc);
+    PageContent content = result.content;
+    storeGood(url);
+    metrics.recordPage();
+    Set<String> newEmails = content.getEmails();
     if (newEmails.size() > 0) {
-      emails.addAll(newEmails);
-      if (emails.size() >= maxEmails) {
-        System.out.println("finished!");
-        return;
-      }
-    }
-    Set<String> urls = parser.findLinks(doc);
-    if (urls.size() > 0) {
-      for (String newUrl : urls) {
-        if (!checkedUrls.contains((newUrl))) {
-          checkedUrls.add(newUrl);
-          if (newUrl.startsWith("http")) {
-            crawl(newUrl);
-          } else {
-            crawl(base + newUrl);
+      int added = 0;
+      for (String raw : newEmails) {
+        String email = EmailNormalizer.normalize(raw);
+        if (email == null) {
+          continue;
+        }
+        boolean known = emails.contains(email);
+        if (!known && emails.size() >= maxEmails) {
+          continue;
+        }
+        if (incremental) {
+          storage.appendSource(email, url);
+        }
+        if (!known) {
+          emails.add(email);
+          added++;
+          if (incremental) {
+            storage.append(EMAIL, email);
+          }
+          if (checkpoint != null) {
+            checkpoint.email(email);
           }
         }
       }
+      metrics.recordEmails(added);
+      if (emails.size() >= maxEmails) {
+        if (!frontier.isClosed()) {
+          frontier.close();
+          logger.info("found {} emails, stopping", emails.size());
+        }
+      }
+    }
+    // Links are still recorded after the frontier has closed (adding them
+    // is then a no-op), so that a resumed crawl can follow them.
+    int depth = frontier.depthOf(url);
+    if (depth < maxDepth) {
+      List<String> links = new ArrayList<>();
+      for (String newUrl : content.getLinks()) {
+        String next = canonicalizer.resolve(url, newUrl);
+        if (next != null && checkedUrls.add(next)) {
+          links.add(next);
+        }
+      }
+      route(links, depth + 1);
+    }
+    if (checkpoint != null) {
+      checkpoint.good(url);
+    }
+  }
+
+  private void checkBudgets() {
+    long bytes = fetcher.getBytesFetched() - bytesAtStart;
+    if ((pagesVisited >= maxPages || bytes >= maxBytes) && !frontier.isClosed()) {
+      frontier.close();
+      logger.info("crawl budget used up after {} pages and {} bytes, stopping", pagesVisited, bytes);
+    }
+  }
+
+  private void storeGood(String url) {
+    if (incremental) {
+      storage.append(GOODLINKS, url);
+    } else {
+      goodLinks.add(url);
+    }
+  }
+
+  private void storeBad(String url) {
+    if (incremental) {
+      storage.append(BADLINKS, url);
+    } else {
+      badLinks.add(url);
+    }
+  }
+
+  /**
+   * Extracts emails and links from a page that is already in memory,
+   * going through the parse cache if there is one.
+   */
+  private PageContent extract(RawPage page) {
+    if (parseCache == null) {
+      return extractBody(page);
+    }
+    return parseCache.get(page.getBody(), body -> extractBody(page));
+  }
+
+  private PageContent extractBody(RawPage page) {
+    if (streaming) {
+      return extractor.extract(page.getBody());
     }
-    System.out.println(emails.size());
+    Document doc = fetcher.parse(page);
+    Set<String> found = byteScan ? ByteEmailScanner.findEmails(page.getBody()) : parser.findEmails(doc);
+    return new PageContent(found, parser.findLinks(doc));
   }
 
+  /**
+   * In streaming mode the body is read while it is scanned, so "fetch"
+   * covers opening the connection and "parse" covers reading and scanning
+   * the body.
+   */
+  private PageContent scan(String url) {
+    long start = System.nanoTime();
+    try (InputStream in = fetcher.open(url)) {
+      long opened = System.nanoTime();
+      metrics.recordFetch(opened - start);
+      PageContent content = extractor.extract(in);
+      metrics.recordParse(System.nanoTime() - opened);
+      return content;
+    } catch (IOException e) {
+      throw new EmailFinderException("unable to fetch " + url, e);
+    }
+  }
+
+  /**
+   * True if the server turned the request down because it is overloaded
+   * or rate limiting us, as opposed to the page simply being broken.
+   */
+  private static boolean isThrottled(Throwable err) {
+    for (Throwable cause = err; cause != null; cause = cause.getCause()) {
+      if (cause instanceof HttpStatusException) {
+        int status = ((HttpStatusException) cause).getStatusCode();
+        return status == 429 || status == 503;
+      }
+    }
+    return false;
+  }
+
+  private void awaitQuietly(ExecutorService pool) {
+    try {
+      pool.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+    } catch (InterruptedException e) {
+      pool.shutdownNow();
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Writes out the results, or in incremental mode flushes and closes the
+   * lists that have been written as the crawl went.
+   */
   public void report() {
+    if (coordinator != null) {
+      reportCluster();
+      return;
+    }
+    if (incremental) {
+      storage.close();
+      return;
+    }
     storage.storeList(EMAIL, emails);
     storage.storeList(GOODLINKS, goodLinks);
     storage.storeList(BADLINKS, badLinks);
   }
 
+  /**
+   * Hands this node's results to the coordinator.  Node 0 then waits for
+   * the others, merges everything and writes it out, keeping at most
+   * maxEmails emails.
+   */
+  private void reportCluster() {
+    coordinator.publish(emails, goodLinks, badLinks);
+    if (coordinator.getNode() != 0) {
+      return;
+    }
+    List<String> found = new ArrayList<>();
+    Set<String> good = new HashSet<>();
+    Set<String> bad = new HashSet<>();
+    coordinator.collect(found, good, bad);
+    EmailStore merged = new EmailStore(found.size());
+    for (String email : found) {
+      if (merged.size() >= maxEmails) {
+        break;
+      }
+      merged.add(email);
+    }
+    storage.storeList(EMAIL, merged);
+    storage.storeList(GOODLINKS, good);
+    storage.storeList(BADLINKS, bad);
+  }
+
+  /**
+   * A page on its way through the pipeline: fetched but not yet parsed
+   * (page), ready to be recorded (content), or failed (error).
+   */
+  private static final class PageResult {
+    static final PageResult END = new PageResult(null, null, null, null);
+
+    final String url;
+    final RawPage page;
+    final PageContent content;
+    final Exception error;
+
+    PageResult(String url, RawPage page, PageContent content, Exception error) {
+      this.url = url;
+      this.page = page;
+      this.content = content;
+      this.error = error;
+    }
+  }
+
 }
@@ -6,8 +6,15 @@
 
 package edu.depaul.email;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
+import java.io.FileInputStream;
+import java.io.FilterInputStream;
 import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.jsoup.Jsoup;
 import org.jsoup.nodes.Document;
@@ -18,18 +25,34 @@ import org.slf4j.LoggerFactory;
 /**
  * This class handles the HTTP aspects of the project:
  * Given a URL, if sends a GET to that page and returns
- * the content.
+ * the content.  The actual HTTP work is done by a FetchBackend;
+ * Jsoup is only used to parse what comes back.
  */
 public class PageFetcher {
 
   private static final Logger logger = LoggerFactory.getLogger(PageFetcher.class);
 
-  public PageFetcher() {}
+  private final FetchBackend backend;
+  private final LongAdder bytesFetched = new LongAdder();
 
+  public PageFetcher() {
+    this(new JsoupBackend());
+  }
+
+  public PageFetcher(FetchBackend backend) {
+    this.backend = backend;
+  }
+
+  /**
+   * The total size of the pages fetched so far.
+   */
+  public long getBytesFetched() {
+    return bytesFetched.sum();
+  }
 
   public String getString(String url) {
     try {
-    Document doc = Jsoup.connect(url).get();
+    Document doc = getFromWeb(url);
     return doc.outerHtml();
     } catch (IOException e) {
       throw new EmailFinderException("unable to fetch " + url, e);
@@ -52,15 +75,100 @@ public class PageFetcher {
     }
   }
 
+  /**
+   * Opens the raw bytes of a page (web or local file) without parsing them.
+   * The caller must close the returned stream.
+   */
+  public InputStream open(String url) {
+    try {
+      if (url.startsWith("http")) {
+        return new CountingStream(backend.open(url));
+      } else {
+        return new CountingStream(new FileInputStream(url));
+      }
+    } catch (IOException e) {
+      throw new EmailFinderException("unable to fetch " + url, e);
+    } catch (IllegalArgumentException e) {
+      throw new EmailFinderException("Invalid URL " + url, e);
+    }
+  }
+
+  /**
+   * Releases the connections held by the backend.
+   */
+  public void close() {
+    backend.close();
+  }
+
+  /**
+   * Downloads a page without parsing it, unless it has not changed since
+   * it was fetched with the given validators (either may be null; see
+   * FetchBackend).  Local files are read as UTF-8 and never revalidated.
+   */
+  public RawPage fetch(String url, String etag, String lastModified) {
+    try {
+      RawPage page = url.startsWith("http")
+          ? backend.fetch(url, etag, lastModified)
+          : new RawPage(url, Files.readAllBytes(Paths.get(url)), "UTF-8");
+      bytesFetched.add(page.getBody().length);
+      return page;
+    } catch (IOException e) {
+      throw new EmailFinderException("unable to fetch " + url, e);
+    } catch (IllegalArgumentException e) {
+      throw new EmailFinderException("Invalid URL " + url, e);
+    }
+  }
+
+  /**
+   * Parses a page that has already been downloaded.
+   */
+  public Document parse(RawPage page) {
+    try {
+      return Jsoup.parse(new ByteArrayInputStream(page.getBody()), page.getCharset(), page.getUrl());
+    } catch (IOException e) {
+      throw new EmailFinderException("unable to parse " + page.getUrl(), e);
+    }
+  }
+
   private Document getFromWeb(String url) throws IOException {
-    Document doc = Jsoup.connect(url).get();
+    RawPage page = backend.fetch(url);
+    bytesFetched.add(page.getBody().length);
+    Document doc = Jsoup.parse(new ByteArrayInputStream(page.getBody()), page.getCharset(), url);
     return doc;
   }
 
   private Document getFromFile(String path) throws IOException {
     File input = new File(path);
     Document doc = Jsoup.parse(input, "UTF-8");
+    bytesFetched.add(input.length());
     return doc;
   }
 
+  /**
+   * Adds the bytes read through a stream to the fetched total.
+   */
+  private class CountingStream extends FilterInputStream {
+    CountingStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public int read() throws IOException {
+      int b = super.read();
+      if (b >= 0) {
+        bytesFetched.increment();
+      }
+      return b;
+    }
+
+    @Override
+    public int read(byte[] buf, int off, int len) throws IOException {
+      int count = super.read(buf, off, len);
+      if (count > 0) {
+        bytesFetched.add(count);
+      }
+      return count;
+    }
+  }
+
 }
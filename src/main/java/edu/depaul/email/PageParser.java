@@ -7,8 +7,6 @@ package edu.depaul.email;
 
 import java.util.HashSet;
 import java.util.Set;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 import org.jsoup.nodes.Document;
 import org.jsoup.nodes.Element;
 import org.jsoup.select.Elements;
@@ -20,15 +18,19 @@ import org.jsoup.select.Elements;
 public class PageParser {
 
   public Set<String> findEmails(Document doc) {
-    Pattern p = Pattern.compile("[a-zA-Z0-9_.+-]+@[a-zA-Z0-9-]+\\.[a-zA-Z0-9-.]+");
-    Matcher matcher = p.matcher(doc.text());
     Set<String> emails = new HashSet<>();
-    while (matcher.find()) {
-      emails.add(matcher.group());
-    }
+    findEmails(doc, (text, start, end) -> emails.add(text.subSequence(start, end).toString()));
     return emails;
   }
 
+  /**
+   * Reports every email address in the document's text to the sink
+   * without collecting them.
+   */
+  public void findEmails(Document doc, EmailMatcher.Sink sink) {
+    EmailMatcher.find(doc.text(), sink);
+  }
+
   public Set<String> findLinks(Document doc) {
     Set<String> links = new HashSet<>();
 
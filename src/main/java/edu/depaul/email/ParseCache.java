@@ -0,0 +1,124 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Remembers what was extracted from recently seen page bodies, so that a
+ * page served again under another URL (a print view, a mirror, a URL with
+ * tracking parameters) is not parsed a second time.  Bodies are keyed by a
+ * 64-bit hash of their bytes together with their length; the hash reads
+ * eight bytes at a time, so it costs far less than parsing.
+ * At most a fixed number of results are kept, least recently used first
+ * out.  Safe to call from multiple threads; extraction runs outside the
+ * lock, so two threads that miss on the same body may both parse it.
+ */
+public class ParseCache {
+
+  private static final long PRIME1 = 0x9E3779B185EBCA87L;
+  private static final long PRIME2 = 0xC2B2AE3D27D4EB4FL;
+
+  private final Map<Key, PageContent> entries;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public ParseCache(int maxEntries) {
+    this.entries = new LinkedHashMap<Key, PageContent>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<Key, PageContent> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  /**
+   * Returns the result cached for a body with the same content, or
+   * extracts it and caches the result.
+   */
+  public PageContent get(byte[] body, Function<byte[], PageContent> extract) {
+    Key key = new Key(hash(body), body.length);
+    PageContent content;
+    synchronized (entries) {
+      content = entries.get(key);
+    }
+    if (content != null) {
+      hits.increment();
+      return content;
+    }
+    misses.increment();
+    content = extract.apply(body);
+    synchronized (entries) {
+      entries.put(key, content);
+    }
+    return content;
+  }
+
+  public int size() {
+    synchronized (entries) {
+      return entries.size();
+    }
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * A 64-bit hash of the bytes, taken a little-endian long at a time.
+   */
+  static long hash(byte[] bytes) {
+    long h = PRIME2 ^ bytes.length;
+    int i = 0;
+    int end = bytes.length - 7;
+    for (; i < end; i += 8) {
+      long word = (bytes[i] & 0xffL)
+          | (bytes[i + 1] & 0xffL) << 8
+          | (bytes[i + 2] & 0xffL) << 16
+          | (bytes[i + 3] & 0xffL) << 24
+          | (bytes[i + 4] & 0xffL) << 32
+          | (bytes[i + 5] & 0xffL) << 40
+          | (bytes[i + 6] & 0xffL) << 48
+          | (bytes[i + 7] & 0xffL) << 56;
+      h = Long.rotateLeft(h ^ (word * PRIME1), 31) * PRIME2;
+    }
+    for (; i < bytes.length; i++) {
+      h = Long.rotateLeft(h ^ ((bytes[i] & 0xffL) * PRIME1), 11) * PRIME2;
+    }
+    return VisitedSet.mix(h);
+  }
+
+  private static final class Key {
+    private final long hash;
+    private final int length;
+
+    Key(long hash, int length) {
+      this.hash = hash;
+      this.length = length;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+      if (!(other instanceof Key)) {
+        return false;
+      }
+      Key key = (Key) other;
+      return hash == key.hash && length == key.length;
+    }
+
+    @Override
+    public int hashCode() {
+      return (int) (hash ^ (hash >>> 32));
+    }
+  }
+}
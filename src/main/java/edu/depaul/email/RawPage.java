@@ -0,0 +1,74 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+/**
+ * The undecoded body of a fetched page, along with the charset the server
+ * reported for it (null when none was given) and the validators (ETag and
+ * Last-Modified) to send when asking for it again.  A conditional request
+ * that found the page unchanged gives a page with no body for which
+ * isNotModified() is true.
+ */
+public class RawPage {
+
+  private static final byte[] EMPTY = new byte[0];
+
+  private final String url;
+  private final byte[] body;
+  private final String charset;
+  private final String etag;
+  private final String lastModified;
+  private final boolean notModified;
+
+  public RawPage(String url, byte[] body, String charset) {
+    this(url, body, charset, null, null);
+  }
+
+  public RawPage(String url, byte[] body, String charset, String etag, String lastModified) {
+    this(url, body, charset, etag, lastModified, false);
+  }
+
+  private RawPage(String url, byte[] body, String charset, String etag, String lastModified,
+      boolean notModified) {
+    this.url = url;
+    this.body = body;
+    this.charset = charset;
+    this.etag = etag;
+    this.lastModified = lastModified;
+    this.notModified = notModified;
+  }
+
+  /**
+   * The answer to a conditional request for a page that has not changed.
+   */
+  public static RawPage notModified(String url) {
+    return new RawPage(url, EMPTY, null, null, null, true);
+  }
+
+  public String getUrl() {
+    return url;
+  }
+
+  public byte[] getBody() {
+    return body;
+  }
+
+  public String getCharset() {
+    return charset;
+  }
+
+  public String getEtag() {
+    return etag;
+  }
+
+  public String getLastModified() {
+    return lastModified;
+  }
+
+  public boolean isNotModified() {
+    return notModified;
+  }
+}
@@ -0,0 +1,303 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * An on-disk cache of fetched pages, so that a re-crawl only has to ask
+ * each server whether a page has changed.  An entry holds a page's ETag
+ * and Last-Modified validators and the emails and links that were
+ * extracted from it, but not the page itself; when the server answers a
+ * conditional request with 304 Not Modified, the stored emails and links
+ * are used as they are, with no download and no parsing.
+ * Entries are files in one directory, named by a hash of the normalized
+ * URL.  The total size is bounded: the least recently used entries (by
+ * file time, which every hit refreshes) are deleted first.
+ * All methods are safe to call from multiple threads.
+ */
+public class ResponseCache {
+
+  private static final Logger logger = LoggerFactory.getLogger(ResponseCache.class);
+
+  public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+
+  private static final int MAGIC = 0x45464332;
+  private static final String SUFFIX = ".entry";
+  private static final int MAX_STRING = 16 * 1024;
+
+  private final Path dir;
+  private final long maxBytes;
+  private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+  private long totalBytes = 0;
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder misses = new LongAdder();
+
+  public ResponseCache(Path dir) {
+    this(dir, DEFAULT_MAX_BYTES);
+  }
+
+  public ResponseCache(Path dir, long maxBytes) {
+    this.dir = dir;
+    this.maxBytes = maxBytes;
+    try {
+      Files.createDirectories(dir);
+      load();
+    } catch (IOException e) {
+      throw new EmailFinderException("unable to open cache " + dir, e);
+    }
+  }
+
+  /**
+   * What is remembered about a cached page.
+   */
+  public static class Entry {
+    private final String etag;
+    private final String lastModified;
+    private final PageContent content;
+
+    Entry(String etag, String lastModified, PageContent content) {
+      this.etag = etag;
+      this.lastModified = lastModified;
+      this.content = content;
+    }
+
+    public String getEtag() {
+      return etag;
+    }
+
+    public String getLastModified() {
+      return lastModified;
+    }
+
+    public PageContent getContent() {
+      return content;
+    }
+  }
+
+  /**
+   * Reads the existing entries, oldest first, so that they are evicted in
+   * the order they were last used.
+   */
+  private void load() throws IOException {
+    List<Path> files = new ArrayList<>();
+    try (DirectoryStream<Path> entries = Files.newDirectoryStream(dir, "*" + SUFFIX)) {
+      for (Path file : entries) {
+        files.add(file);
+      }
+    }
+    Map<Path, FileTime> times = new LinkedHashMap<>();
+    for (Path file : files) {
+      times.put(file, Files.getLastModifiedTime(file));
+    }
+    Collections.sort(files, (a, b) -> times.get(a).compareTo(times.get(b)));
+    for (Path file : files) {
+      String name = file.getFileName().toString();
+      long size = Files.size(file);
+      index.put(name.substring(0, name.length() - SUFFIX.length()), size);
+      totalBytes += size;
+    }
+    evict();
+  }
+
+  /**
+   * Returns the cached entry for a URL, or null if there is none.
+   */
+  public Entry get(String url) {
+    String key = key(url);
+    synchronized (this) {
+      if (index.get(key) == null) {
+        misses.increment();
+        return null;
+      }
+    }
+    Path file = dir.resolve(key + SUFFIX);
+    try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(file)))) {
+      if (in.readInt() != MAGIC || !in.readUTF().equals(normalize(url))) {
+        misses.increment();
+        return null;
+      }
+      String etag = emptyToNull(in.readUTF());
+      String lastModified = emptyToNull(in.readUTF());
+      Set<String> emails = readSet(in);
+      Set<String> links = readSet(in);
+      Files.setLastModifiedTime(file, FileTime.fromMillis(System.currentTimeMillis()));
+      hits.increment();
+      return new Entry(etag, lastModified, new PageContent(emails, links));
+    } catch (IOException e) {
+      logger.debug("dropping unreadable cache entry for {}: {}", url, e.getMessage());
+      remove(key);
+      misses.increment();
+      return null;
+    }
+  }
+
+  /**
+   * Stores a freshly fetched page and what was extracted from it.  Pages
+   * without an ETag or Last-Modified cannot be revalidated, so they are
+   * not stored.
+   */
+  public void put(RawPage page, PageContent content) {
+    if (page.isNotModified() || (page.getEtag() == null && page.getLastModified() == null)) {
+      return;
+    }
+    String normalized = normalize(page.getUrl());
+    if (normalized.length() > MAX_STRING) {
+      return;
+    }
+    String key = key(page.getUrl());
+    Path file = dir.resolve(key + SUFFIX);
+    Path temp = dir.resolve(key + "." + Thread.currentThread().getId() + ".tmp");
+    try {
+      try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(temp)))) {
+        out.writeInt(MAGIC);
+        out.writeUTF(normalized);
+        out.writeUTF(nullToEmpty(page.getEtag()));
+        out.writeUTF(nullToEmpty(page.getLastModified()));
+        writeSet(out, content.getEmails());
+        writeSet(out, content.getLinks());
+      }
+      Files.move(temp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      long size = Files.size(file);
+      synchronized (this) {
+        Long old = index.put(key, size);
+        totalBytes += size - (old == null ? 0 : old);
+        evict();
+      }
+    } catch (IOException e) {
+      logger.debug("unable to cache {}: {}", page.getUrl(), e.getMessage());
+      try {
+        Files.deleteIfExists(temp);
+      } catch (IOException ignored) {
+        // nothing more to do
+      }
+    }
+  }
+
+  private synchronized void evict() {
+    Iterator<Map.Entry<String, Long>> eldest = index.entrySet().iterator();
+    while (totalBytes > maxBytes && eldest.hasNext()) {
+      Map.Entry<String, Long> entry = eldest.next();
+      totalBytes -= entry.getValue();
+      eldest.remove();
+      try {
+        Files.deleteIfExists(dir.resolve(entry.getKey() + SUFFIX));
+      } catch (IOException e) {
+        logger.debug("unable to evict cache entry {}: {}", entry.getKey(), e.getMessage());
+      }
+    }
+  }
+
+  private synchronized void remove(String key) {
+    Long size = index.remove(key);
+    if (size != null) {
+      totalBytes -= size;
+    }
+  }
+
+  public synchronized long getSizeInBytes() {
+    return totalBytes;
+  }
+
+  public synchronized int getEntryCount() {
+    return index.size();
+  }
+
+  public long getHits() {
+    return hits.sum();
+  }
+
+  public long getMisses() {
+    return misses.sum();
+  }
+
+  /**
+   * Lowercases the scheme and host and drops the fragment, which never
+   * reaches the server.
+   */
+  static String normalize(String url) {
+    int hash = url.indexOf('#');
+    String result = hash < 0 ? url : url.substring(0, hash);
+    int scheme = result.indexOf("://");
+    if (scheme < 0) {
+      return result;
+    }
+    int pathStart = result.indexOf('/', scheme + 3);
+    if (pathStart < 0) {
+      return result.toLowerCase(Locale.ROOT) + "/";
+    }
+    return result.substring(0, pathStart).toLowerCase(Locale.ROOT) + result.substring(pathStart);
+  }
+
+  private static String key(String url) {
+    try {
+      MessageDigest digest = MessageDigest.getInstance("SHA-256");
+      byte[] hash = digest.digest(normalize(url).getBytes(StandardCharsets.UTF_8));
+      StringBuilder hex = new StringBuilder(hash.length * 2);
+      for (byte b : hash) {
+        hex.append(Character.forDigit((b >> 4) & 0xf, 16)).append(Character.forDigit(b & 0xf, 16));
+      }
+      return hex.toString();
+    } catch (NoSuchAlgorithmException e) {
+      throw new EmailFinderException("SHA-256 is not available", e);
+    }
+  }
+
+  private static void writeSet(DataOutputStream out, Set<String> items) throws IOException {
+    List<String> kept = new ArrayList<>();
+    for (String item : items) {
+      if (item.length() <= MAX_STRING) {
+        kept.add(item);
+      }
+    }
+    out.writeInt(kept.size());
+    for (String item : kept) {
+      out.writeUTF(item);
+    }
+  }
+
+  private static Set<String> readSet(DataInputStream in) throws IOException {
+    int count = in.readInt();
+    Set<String> items = new HashSet<>();
+    for (int i = 0; i < count; i++) {
+      items.add(in.readUTF());
+    }
+    return items;
+  }
+
+  private static String nullToEmpty(String value) {
+    return value == null ? "" : value;
+  }
+
+  private static String emptyToNull(String value) {
+    return value.isEmpty() ? null : value;
+  }
+}
@@ -0,0 +1,51 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.util.Collection;
+
+import edu.depaul.email.StorageService.StorageType;
+
+/**
+ * Where StorageService actually puts results.  FileStorageBackend writes
+ * the original text files; H2StorageBackend writes to an embedded
+ * database.  Failures are reported as EmailFinderException.
+ * Implementations must allow append() and appendSource() to be called from
+ * several threads at once.
+ */
+public interface StorageBackend {
+
+  /**
+   * Stores a whole list, replacing whatever was stored for it before.
+   */
+  void storeList(StorageType type, Collection<String> items);
+
+  /**
+   * Prepares for items to be appended one at a time.
+   */
+  void open();
+
+  void append(StorageType type, String item);
+
+  /**
+   * Records that an email address was found on the given page.  Called
+   * for every page an address is seen on, not just the first; backends
+   * that do not keep provenance ignore it.
+   */
+  default void appendSource(String email, String page) {
+  }
+
+  /**
+   * Makes everything appended so far visible to readers.
+   */
+  void flush();
+
+  /**
+   * Flushes and releases everything held by the backend.  Safe to call
+   * more than once.
+   */
+  void close();
+}
@@ -5,46 +5,132 @@
  */
 package edu.depaul.email;
 
-import java.io.FileOutputStream;
-import java.io.IOException;
 import java.util.Collection;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import edu.depaul.email.ChannelListWriter.Compression;
 
 /**
  * Encapsulates storage handling so that we can use a variety of services.  The
- * initial implementation just uses the file system.
+ * initial implementation just uses the file system; others can be plugged
+ * in with setBackend() (see StorageBackend).
+ * Lists can either be stored whole with storeList(), or, between open()
+ * and close(), appended to one item at a time as results come in.
  */
 public class StorageService {
 
   public enum StorageType {EMAIL, GOODLINKS, BADLINKS};
 
-  private Map<StorageType, String> locations = new HashMap<>();
+  public static final long DEFAULT_FLUSH_MILLIS = 1000;
+
+  private final FileStorageBackend files = new FileStorageBackend();
+  private StorageBackend backend = files;
+  private ScheduledExecutorService flusher = null;
+  private long flushMillis = DEFAULT_FLUSH_MILLIS;
 
   public StorageService addLocation(StorageType key, String location) {
 
-    locations.put(key, location);
+    files.addLocation(key, location);
+    return this;
+  }
+
+  /**
+   * Sets whether files are written compressed.  The locations are used as
+   * given, so name them e.g. email.txt.gz.
+   */
+  public StorageService setCompression(Compression compression) {
+    files.setCompression(compression);
+    return this;
+  }
+
+  /**
+   * Stores results somewhere other than the files added with addLocation().
+   */
+  public StorageService setBackend(StorageBackend backend) {
+    this.backend = backend;
+    return this;
+  }
+
+  /**
+   * Sets how often an open backend is flushed even if its current batch is
+   * not full yet.
+   */
+  public StorageService setFlushInterval(long millis) {
+    this.flushMillis = millis;
     return this;
   }
 
   public void storeList(StorageType handle, Collection<String> aList) {
-    String location = locations.get(handle);
+    backend.storeList(handle, aList);
+  }
+
+  /**
+   * Starts incremental mode, e.g. by opening a buffered appender on every
+   * location that has been added.
+   */
+  public synchronized void open() {
+    if (isOpen()) {
+      return;
+    }
+    backend.open();
+    flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+      Thread thread = new Thread(runnable, "storage-flush");
+      thread.setDaemon(true);
+      return thread;
+    });
+    flusher.scheduleWithFixedDelay(this::flushQuietly, flushMillis, flushMillis, TimeUnit.MILLISECONDS);
+  }
+
+  public synchronized boolean isOpen() {
+    return flusher != null;
+  }
 
-    FileOutputStream stream = null;
+  /**
+   * Appends one item to an open location.
+   */
+  public void append(StorageType handle, String item) {
+    backend.append(handle, item);
+  }
+
+  /**
+   * Records the page an email address was found on, for backends that
+   * keep track of it.
+   */
+  public void appendSource(String email, String page) {
+    backend.appendSource(email, page);
+  }
+
+  public void flush() {
+    backend.flush();
+  }
+
+  private void flushQuietly() {
     try {
-      stream = new FileOutputStream(location);
-      ListWriter writer = new ListWriter(stream);
-      writer.writeList(aList);
-    } catch (Exception err) {
-      throw new EmailFinderException("Error while write out " + handle, err);
-    } finally {
-      if (stream != null) {
-        try {
-          stream.close();
-        } catch (IOException err) {
-          throw new EmailFinderException("Error while closing output file", err);
-        }
+      flush();
+    } catch (EmailFinderException err) {
+      // reported again by the next append or by close()
+    }
+  }
+
+  /**
+   * Flushes and closes everything opened by open(), and releases anything
+   * else the backend holds.  A scheduled flush that is already running is
+   * waited for rather than interrupted: interrupting a thread that is
+   * writing to a FileChannel closes the channel and loses what was
+   * buffered.
+   */
+  public synchronized void close() {
+    if (flusher != null) {
+      flusher.shutdown();
+      try {
+        flusher.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
       }
+      flusher = null;
     }
+    backend.close();
   }
 }
@@ -0,0 +1,483 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Finds email addresses and link targets in a page without building a
+ * Jsoup Document.  The raw bytes are scanned once by a small HTML state
+ * machine: text outside of tags is checked for email addresses (using
+ * EmailMatcher, as PageParser does), and the href attribute of every
+ * &lt;a&gt; tag is collected.  Comments and the contents of script and
+ * style elements are skipped, as they are by Jsoup's Document.text().
+ * Only fixed-size buffers are used, so memory per page stays constant no
+ * matter how large the page is.  The page must be in an ASCII-compatible
+ * encoding (UTF-8, ISO-8859-x, windows-125x); href values are decoded as
+ * UTF-8.
+ * An instance may be shared between threads; each call to extract() uses
+ * its own scanning state.
+ */
+public class StreamingExtractor {
+
+  private static final int CHUNK_SIZE = 8192;
+  private static final int MAX_WORD = 256;
+  private static final int MAX_NAME = 16;
+  private static final int MAX_HREF = 4096;
+  static final long MAP_WINDOW = 256L * 1024 * 1024;
+
+  private final long mapWindow;
+
+  public StreamingExtractor() {
+    this(MAP_WINDOW);
+  }
+
+  /**
+   * @param mapWindow the most bytes of a file mapped at once by
+   *   extract(FileChannel)
+   */
+  StreamingExtractor(long mapWindow) {
+    this.mapWindow = mapWindow;
+  }
+
+  /**
+   * Reads the stream to the end and returns the emails and links found in
+   * it.  The stream is not closed.
+   */
+  public PageContent extract(InputStream in) throws IOException {
+    Scanner scanner = new Scanner();
+    byte[] chunk = new byte[CHUNK_SIZE];
+    int count;
+    while ((count = in.read(chunk)) > 0) {
+      scanner.feed(chunk, 0, count);
+    }
+    return scanner.finish();
+  }
+
+  /**
+   * Convenience for a page that is already in memory.
+   */
+  public PageContent extract(byte[] page) {
+    Scanner scanner = new Scanner();
+    scanner.feed(page, 0, page.length);
+    return scanner.finish();
+  }
+
+  /**
+   * Scans the bytes between the buffer's position and limit, without
+   * moving its position.  Works on direct and mapped buffers without
+   * copying them to the heap.
+   */
+  public PageContent extract(ByteBuffer page) {
+    Scanner scanner = new Scanner();
+    scanner.feed(page);
+    return scanner.finish();
+  }
+
+  /**
+   * Memory-maps a file and scans it in place.  Files larger than the map
+   * window are mapped one window at a time, with the scanning state
+   * carried across.
+   */
+  public PageContent extract(FileChannel channel) throws IOException {
+    Scanner scanner = new Scanner();
+    long size = channel.size();
+    for (long offset = 0; offset < size; offset += mapWindow) {
+      MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset,
+          Math.min(mapWindow, size - offset));
+      scanner.feed(window);
+    }
+    return scanner.finish();
+  }
+
+  private static boolean isSpace(int c) {
+    return c == ' ' || c == '\t' || c == '\n' || c == '\r' || c == '\f';
+  }
+
+  private static boolean isLetter(int c) {
+    return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+  }
+
+  private static int lower(int c) {
+    return (c >= 'A' && c <= 'Z') ? c + ('a' - 'A') : c;
+  }
+
+  /**
+   * A read-only CharSequence view of ASCII bytes, so the word buffer can be
+   * handed to EmailMatcher without decoding it.
+   */
+  private static class AsciiView implements CharSequence {
+    private final byte[] bytes;
+    private int length = 0;
+
+    AsciiView(byte[] bytes) {
+      this.bytes = bytes;
+    }
+
+    @Override
+    public int length() {
+      return length;
+    }
+
+    @Override
+    public char charAt(int index) {
+      return (char) (bytes[index] & 0xff);
+    }
+
+    @Override
+    public CharSequence subSequence(int start, int end) {
+      return new String(bytes, start, end - start, StandardCharsets.US_ASCII);
+    }
+
+    @Override
+    public String toString() {
+      return new String(bytes, 0, length, StandardCharsets.US_ASCII);
+    }
+  }
+
+  private enum State {
+    TEXT, TAG_OPEN, BANG, BANG_DASH, COMMENT, SKIP_TAG, TAG_NAME, IN_TAG,
+    ATTR_NAME, AFTER_ATTR_NAME, BEFORE_VALUE, VALUE_QUOTED, VALUE_UNQUOTED, RAW_TEXT
+  }
+
+  /**
+   * The scanning state for a single page.
+   */
+  private static class Scanner {
+    private final Set<String> emails = new HashSet<>();
+    private final Set<String> links = new HashSet<>();
+
+    private State state = State.TEXT;
+    private final byte[] word = new byte[MAX_WORD];
+    private final AsciiView wordView = new AsciiView(word);
+    private final EmailMatcher.Sink sink = this::addEmail;
+    private int wordLength = 0;
+    private boolean wordHasAt = false;
+    private final byte[] tagName = new byte[MAX_NAME];
+    private int tagLength = 0;
+    private final byte[] attrName = new byte[MAX_NAME];
+    private int attrLength = 0;
+    private final byte[] href = new byte[MAX_HREF];
+    private int hrefLength = 0;
+    private boolean capturing = false;
+    private boolean hrefSeen = false;
+    private byte quote = 0;
+    private int dashes = 0;
+    private byte[] rawEnd = null;
+    private int rawMatched = 0;
+
+    void feed(byte[] buf, int off, int len) {
+      int end = off + len;
+      for (int i = off; i < end; i++) {
+        step(buf[i]);
+      }
+    }
+
+    void feed(ByteBuffer buf) {
+      int end = buf.limit();
+      for (int i = buf.position(); i < end; i++) {
+        step(buf.get(i));
+      }
+    }
+
+    PageContent finish() {
+      flushWord();
+      return new PageContent(emails, links);
+    }
+
+    private void step(byte b) {
+      switch (state) {
+        case TEXT:
+          if (EmailMatcher.isLocalChar(b) || b == '@') {
+            if (wordLength == MAX_WORD) {
+              flushWord();
+            }
+            word[wordLength++] = b;
+            wordHasAt |= b == '@';
+          } else {
+            flushWord();
+            if (b == '<') {
+              state = State.TAG_OPEN;
+            }
+          }
+          break;
+        case TAG_OPEN:
+          if (isLetter(b)) {
+            tagLength = 0;
+            hrefSeen = false;
+            appendName(tagName, tagLength++, b);
+            state = State.TAG_NAME;
+          } else if (b == '/' || b == '?') {
+            state = State.SKIP_TAG;
+          } else if (b == '!') {
+            state = State.BANG;
+          } else {
+            state = State.TEXT;
+            step(b);
+          }
+          break;
+        case BANG:
+          state = b == '-' ? State.BANG_DASH : (b == '>' ? State.TEXT : State.SKIP_TAG);
+          break;
+        case BANG_DASH:
+          if (b == '-') {
+            dashes = 0;
+            state = State.COMMENT;
+          } else {
+            state = b == '>' ? State.TEXT : State.SKIP_TAG;
+          }
+          break;
+        case COMMENT:
+          if (b == '>' && dashes >= 2) {
+            state = State.TEXT;
+          } else {
+            dashes = b == '-' ? dashes + 1 : 0;
+          }
+          break;
+        case SKIP_TAG:
+          if (b == '>') {
+            state = State.TEXT;
+          }
+          break;
+        case TAG_NAME:
+          if (isSpace(b) || b == '/') {
+            state = State.IN_TAG;
+          } else if (b == '>') {
+            endTag();
+          } else {
+            if (tagLength < MAX_NAME) {
+              appendName(tagName, tagLength, b);
+            }
+            tagLength++;
+          }
+          break;
+        case IN_TAG:
+          if (b == '>') {
+            endTag();
+          } else if (!isSpace(b) && b != '/') {
+            startAttr(b);
+          }
+          break;
+        case ATTR_NAME:
+          if (isSpace(b)) {
+            state = State.AFTER_ATTR_NAME;
+          } else if (b == '=') {
+            state = State.BEFORE_VALUE;
+          } else if (b == '>') {
+            valuelessAttr();
+            endTag();
+          } else if (b == '/') {
+            valuelessAttr();
+            state = State.IN_TAG;
+          } else {
+            if (attrLength < MAX_NAME) {
+              appendName(attrName, attrLength, b);
+            }
+            attrLength++;
+          }
+          break;
+        case AFTER_ATTR_NAME:
+          if (b == '=') {
+            state = State.BEFORE_VALUE;
+          } else if (b == '>') {
+            valuelessAttr();
+            endTag();
+          } else if (!isSpace(b)) {
+            valuelessAttr();
+            startAttr(b);
+          }
+          break;
+        case BEFORE_VALUE:
+          if (b == '"' || b == '\'') {
+            startValue();
+            quote = b;
+            state = State.VALUE_QUOTED;
+          } else if (b == '>') {
+            valuelessAttr();
+            endTag();
+          } else if (!isSpace(b)) {
+            startValue();
+            appendValue(b);
+            state = State.VALUE_UNQUOTED;
+          }
+          break;
+        case VALUE_QUOTED:
+          if (b == quote) {
+            endValue();
+            state = State.IN_TAG;
+          } else {
+            appendValue(b);
+          }
+          break;
+        case VALUE_UNQUOTED:
+          if (isSpace(b)) {
+            endValue();
+            state = State.IN_TAG;
+          } else if (b == '>') {
+            endValue();
+            endTag();
+          } else {
+            appendValue(b);
+          }
+          break;
+        case RAW_TEXT:
+          if (lower(b) == rawEnd[rawMatched]) {
+            rawMatched++;
+            if (rawMatched == rawEnd.length) {
+              state = State.SKIP_TAG;
+            }
+          } else {
+            rawMatched = b == '<' ? 1 : 0;
+          }
+          break;
+        default:
+          break;
+      }
+    }
+
+    private void flushWord() {
+      if (wordHasAt && wordLength > 2) {
+        wordView.length = wordLength;
+        EmailMatcher.find(wordView, sink);
+      }
+      wordLength = 0;
+      wordHasAt = false;
+    }
+
+    private void addEmail(CharSequence text, int start, int end) {
+      emails.add(text.subSequence(start, end).toString());
+    }
+
+    private static void appendName(byte[] name, int index, byte b) {
+      name[index] = (byte) lower(b);
+    }
+
+    private boolean nameIs(byte[] name, int length, String expected) {
+      if (length != expected.length()) {
+        return false;
+      }
+      for (int i = 0; i < length; i++) {
+        if (name[i] != expected.charAt(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private boolean isAnchor() {
+      return nameIs(tagName, tagLength, "a");
+    }
+
+    private void startAttr(byte b) {
+      attrLength = 0;
+      appendName(attrName, attrLength++, b);
+      state = State.ATTR_NAME;
+    }
+
+    private boolean isHref() {
+      return !hrefSeen && isAnchor() && nameIs(attrName, attrLength, "href");
+    }
+
+    private void valuelessAttr() {
+      if (isHref()) {
+        hrefSeen = true;
+        links.add("");
+      }
+    }
+
+    private void startValue() {
+      capturing = isHref();
+      hrefLength = 0;
+    }
+
+    private void appendValue(byte b) {
+      if (capturing && hrefLength < MAX_HREF) {
+        href[hrefLength++] = b;
+      }
+    }
+
+    private void endValue() {
+      if (capturing) {
+        hrefSeen = true;
+        links.add(unescape(new String(href, 0, hrefLength, StandardCharsets.UTF_8)));
+        capturing = false;
+      }
+    }
+
+    private void endTag() {
+      if (nameIs(tagName, tagLength, "script") || nameIs(tagName, tagLength, "style")) {
+        rawEnd = ("</" + (tagLength == 6 ? "script" : "style")).getBytes(StandardCharsets.US_ASCII);
+        rawMatched = 0;
+        state = State.RAW_TEXT;
+      } else {
+        state = State.TEXT;
+      }
+    }
+  }
+
+  /**
+   * Decodes the handful of character references that commonly appear in
+   * href values.
+   */
+  static String unescape(String value) {
+    if (value.indexOf('&') < 0) {
+      return value;
+    }
+    StringBuilder out = new StringBuilder(value.length());
+    int i = 0;
+    while (i < value.length()) {
+      char c = value.charAt(i);
+      int semi = c == '&' ? value.indexOf(';', i) : -1;
+      if (semi > i + 1 && semi - i <= 10) {
+        String name = value.substring(i + 1, semi);
+        int decoded = decodeEntity(name);
+        if (decoded >= 0 && decoded <= Character.MAX_CODE_POINT) {
+          out.appendCodePoint(decoded);
+          i = semi + 1;
+          continue;
+        }
+      }
+      out.append(c);
+      i++;
+    }
+    return out.toString();
+  }
+
+  private static int decodeEntity(String name) {
+    switch (name) {
+      case "amp":
+        return '&';
+      case "lt":
+        return '<';
+      case "gt":
+        return '>';
+      case "quot":
+        return '"';
+      case "apos":
+        return '\'';
+      default:
+        break;
+    }
+    try {
+      if (name.startsWith("#x") || name.startsWith("#X")) {
+        return Integer.parseInt(name.substring(2), 16);
+      }
+      if (name.startsWith("#")) {
+        return Integer.parseInt(name.substring(1));
+      }
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+    return -1;
+  }
+}
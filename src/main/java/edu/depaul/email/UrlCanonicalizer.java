@@ -0,0 +1,467 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.nio.file.InvalidPathException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Turns the href of a link into the one URL that the crawler fetches and
+ * dedups on, so that different spellings of the same page are fetched
+ * once.  For web pages the link is:
+ *   resolved against the URL of the page it was found on (RFC 3986),
+ *   including "." and ".." segments
+ *   stripped of its fragment
+ *   given a lowercase scheme and host, and no default port (80 or 443)
+ *   stripped of tracking parameters (utm_* and the like; configurable)
+ *   given its query parameters in sorted order (can be turned off)
+ * Links that are not http(s), such as mailto: and javascript:, resolve to
+ * null.  Links on local files are resolved against the file's directory.
+ * The work is done in a per-thread scratch buffer, so a call allocates
+ * little more than the resulting string.  Instances are immutable once
+ * configured and may be shared between threads.
+ */
+public class UrlCanonicalizer {
+
+  /**
+   * Tracking parameters removed by default.  A trailing '*' matches any
+   * parameter name with that prefix.
+   */
+  public static final List<String> DEFAULT_TRACKING = Arrays.asList(
+      "utm_*", "gclid", "dclid", "fbclid", "msclkid", "yclid", "mc_cid", "mc_eid", "_ga", "_hsenc", "_hsmi");
+
+  private static final int MAX_PARAMS = 64;
+
+  private final String[] exact;
+  private final String[] prefixes;
+  private boolean sortQuery = true;
+
+  private final ThreadLocal<Scratch> scratch = ThreadLocal.withInitial(Scratch::new);
+
+  public UrlCanonicalizer() {
+    this(DEFAULT_TRACKING);
+  }
+
+  public UrlCanonicalizer(Collection<String> tracking) {
+    List<String> names = new ArrayList<>();
+    List<String> starts = new ArrayList<>();
+    for (String name : tracking) {
+      if (name.endsWith("*")) {
+        starts.add(name.substring(0, name.length() - 1));
+      } else {
+        names.add(name);
+      }
+    }
+    this.exact = names.toArray(new String[0]);
+    this.prefixes = starts.toArray(new String[0]);
+  }
+
+  /**
+   * Sets whether query parameters are put in order by name.  Parameters
+   * with the same name keep their relative order.
+   */
+  public UrlCanonicalizer setSortQuery(boolean sortQuery) {
+    this.sortQuery = sortQuery;
+    return this;
+  }
+
+  /**
+   * The canonical form of an absolute URL, or null if it is not http(s).
+   */
+  public String canonicalize(String url) {
+    return resolve(null, url);
+  }
+
+  /**
+   * Resolves a link found on the given page (a URL or a local file path)
+   * and returns its canonical form, or null if it cannot be crawled.
+   */
+  public String resolve(String page, String href) {
+    Scratch s = scratch.get();
+    int start = 0;
+    int end = href.length();
+    while (start < end && href.charAt(start) <= ' ') {
+      start++;
+    }
+    while (end > start && href.charAt(end - 1) <= ' ') {
+      end--;
+    }
+    Parts ref = s.ref;
+    ref.split(href, start, end);
+    if (ref.hasScheme()) {
+      if (!ref.isHttp()) {
+        boolean local = page == null || !page.startsWith("http");
+        return ref.isDriveLetter() && local ? stripFragment(href, start, end) : null;
+      }
+      return build(s, ref, null);
+    }
+    if (page == null) {
+      return null;
+    }
+    Parts base = s.base;
+    base.split(page, 0, page.length());
+    if (!base.isHttp()) {
+      return resolveFile(page, href, start, end);
+    }
+    return build(s, ref, base);
+  }
+
+  private static String stripFragment(String href, int start, int end) {
+    int hash = href.indexOf('#', start);
+    return href.substring(start, hash < 0 || hash > end ? end : hash);
+  }
+
+  /**
+   * Links on local files: absolute paths are kept, relative ones are taken
+   * relative to the file's directory.
+   */
+  private static String resolveFile(String page, String href, int start, int end) {
+    String path = stripFragment(href, start, end);
+    if (path.isEmpty()) {
+      return page;
+    }
+    if (path.startsWith("/") || path.startsWith("\\")) {
+      return path;
+    }
+    try {
+      return Paths.get(page).resolveSibling(path).normalize().toString();
+    } catch (InvalidPathException e) {
+      return null;
+    }
+  }
+
+  /**
+   * Writes the target of ref (resolved against base, if ref is relative)
+   * in canonical form.
+   */
+  private String build(Scratch s, Parts ref, Parts base) {
+    StringBuilder out = s.out;
+    out.setLength(0);
+    Parts schemeFrom = ref.hasScheme() ? ref : base;
+    appendLower(out, schemeFrom.text, schemeFrom.start, schemeFrom.schemeEnd);
+    out.append("://");
+    boolean https = out.length() == 8;
+
+    Parts authority = ref.hasAuthority() || ref.hasScheme() ? ref : base;
+    if (!authority.hasAuthority()) {
+      return null;
+    }
+    appendAuthority(out, authority, https);
+
+    int pathStart = out.length();
+    Parts queryFrom;
+    if (authority == ref) {
+      appendRange(out, ref.text, ref.pathStart, ref.pathEnd);
+      queryFrom = ref;
+    } else if (ref.pathStart == ref.pathEnd) {
+      appendRange(out, base.text, base.pathStart, base.pathEnd);
+      queryFrom = ref.hasQuery() ? ref : base;
+    } else if (ref.text.charAt(ref.pathStart) == '/') {
+      appendRange(out, ref.text, ref.pathStart, ref.pathEnd);
+      queryFrom = ref;
+    } else {
+      int slash = base.pathEnd - 1;
+      while (slash >= base.pathStart && base.text.charAt(slash) != '/') {
+        slash--;
+      }
+      if (slash < base.pathStart) {
+        out.append('/');
+      } else {
+        appendRange(out, base.text, base.pathStart, slash + 1);
+      }
+      appendRange(out, ref.text, ref.pathStart, ref.pathEnd);
+      queryFrom = ref;
+    }
+    removeDotSegments(out, pathStart, s.path);
+    if (out.length() == pathStart) {
+      out.append('/');
+    }
+    if (queryFrom.hasQuery()) {
+      appendQuery(out, queryFrom.text, queryFrom.queryStart, queryFrom.queryEnd, s);
+    }
+    return out.toString();
+  }
+
+  private static void appendAuthority(StringBuilder out, Parts p, boolean https) {
+    String text = p.text;
+    int hostStart = p.authStart;
+    int at = text.lastIndexOf('@', p.authEnd - 1);
+    if (at >= p.authStart) {
+      appendRange(out, text, p.authStart, at + 1);
+      hostStart = at + 1;
+    }
+    int hostEnd = p.authEnd;
+    int colon = text.lastIndexOf(':', p.authEnd - 1);
+    int bracket = text.lastIndexOf(']', p.authEnd - 1);
+    if (colon >= hostStart && colon > bracket) {
+      hostEnd = colon;
+    }
+    appendLower(out, text, hostStart, hostEnd);
+    if (hostEnd < p.authEnd) {
+      int portStart = hostEnd + 1;
+      boolean isDefault = portStart == p.authEnd
+          || (https ? text.regionMatches(portStart, "443", 0, 3) : text.regionMatches(portStart, "80", 0, 2))
+          && p.authEnd - portStart == (https ? 3 : 2);
+      if (!isDefault) {
+        appendRange(out, text, hostEnd, p.authEnd);
+      }
+    }
+  }
+
+  /**
+   * Removes "." and ".." segments from the path written to out from the
+   * given position (RFC 3986, section 5.2.4).
+   */
+  private static void removeDotSegments(StringBuilder out, int from, StringBuilder path) {
+    path.setLength(0);
+    path.append(out, from, out.length());
+    out.setLength(from);
+    int length = path.length();
+    int i = 0;
+    while (i < length) {
+      int next = i + 1;
+      while (next < length && path.charAt(next) != '/') {
+        next++;
+      }
+      // the segment is path[i, next), including its leading '/' if any
+      boolean slash = path.charAt(i) == '/';
+      int segStart = slash ? i + 1 : i;
+      int segLength = next - segStart;
+      boolean last = next >= length;
+      if (segLength == 1 && path.charAt(segStart) == '.') {
+        if (last) {
+          out.append('/');
+        }
+      } else if (segLength == 2 && path.charAt(segStart) == '.' && path.charAt(segStart + 1) == '.') {
+        int cut = out.length() - 1;
+        while (cut >= from && out.charAt(cut) != '/') {
+          cut--;
+        }
+        out.setLength(Math.max(cut, from));
+        if (last) {
+          out.append('/');
+        }
+      } else {
+        if (!slash && out.length() == from) {
+          out.append('/');
+        }
+        out.append(path, i, next);
+      }
+      i = next;
+    }
+  }
+
+  /**
+   * Writes the query without tracking parameters, sorted if so configured.
+   * Queries with more parameters than fit in the scratch arrays are only
+   * filtered.
+   */
+  private void appendQuery(StringBuilder out, String text, int start, int end, Scratch s) {
+    int count = 0;
+    boolean sort = sortQuery;
+    int i = start;
+    while (i <= end) {
+      int amp = text.indexOf('&', i);
+      if (amp < 0 || amp > end) {
+        amp = end;
+      }
+      if (amp > i && !isTracking(text, i, amp)) {
+        if (sort && count == MAX_PARAMS) {
+          sort = false;
+          for (int p = 0; p < count; p++) {
+            out.append(p == 0 ? '?' : '&').append(text, s.paramStart[p], s.paramEnd[p]);
+          }
+        }
+        if (sort) {
+          s.paramStart[count] = i;
+          s.paramEnd[count] = amp;
+        } else {
+          out.append(count == 0 ? '?' : '&').append(text, i, amp);
+        }
+        count++;
+      }
+      i = amp + 1;
+    }
+    if (sort) {
+      sortParams(text, s.paramStart, s.paramEnd, count);
+      for (int p = 0; p < count; p++) {
+        out.append(p == 0 ? '?' : '&').append(text, s.paramStart[p], s.paramEnd[p]);
+      }
+    }
+  }
+
+  private boolean isTracking(String text, int start, int end) {
+    int eq = text.indexOf('=', start);
+    int nameEnd = eq < 0 || eq > end ? end : eq;
+    int length = nameEnd - start;
+    for (String name : exact) {
+      if (name.length() == length && text.regionMatches(start, name, 0, length)) {
+        return true;
+      }
+    }
+    for (String prefix : prefixes) {
+      if (prefix.length() <= length && text.regionMatches(start, prefix, 0, prefix.length())) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * A stable insertion sort by parameter name; queries are short.
+   */
+  private static void sortParams(String text, int[] starts, int[] ends, int count) {
+    for (int i = 1; i < count; i++) {
+      int start = starts[i];
+      int end = ends[i];
+      int j = i - 1;
+      while (j >= 0 && compareNames(text, starts[j], ends[j], start, end) > 0) {
+        starts[j + 1] = starts[j];
+        ends[j + 1] = ends[j];
+        j--;
+      }
+      starts[j + 1] = start;
+      ends[j + 1] = end;
+    }
+  }
+
+  private static int compareNames(String text, int aStart, int aEnd, int bStart, int bEnd) {
+    int a = aStart;
+    int b = bStart;
+    while (true) {
+      char ca = a < aEnd ? text.charAt(a) : '=';
+      char cb = b < bEnd ? text.charAt(b) : '=';
+      if (ca == '=' || cb == '=') {
+        return (ca == '=' ? 0 : 1) - (cb == '=' ? 0 : 1);
+      }
+      if (ca != cb) {
+        return ca - cb;
+      }
+      a++;
+      b++;
+    }
+  }
+
+  private static void appendRange(StringBuilder out, String text, int start, int end) {
+    out.append(text, start, end);
+  }
+
+  private static void appendLower(StringBuilder out, String text, int start, int end) {
+    for (int i = start; i < end; i++) {
+      char c = text.charAt(i);
+      out.append(c >= 'A' && c <= 'Z' ? (char) (c + ('a' - 'A')) : c);
+    }
+  }
+
+  /**
+   * Offsets of the components of a URL reference within a string.  The
+   * fragment is not recorded, as it is always dropped.
+   */
+  private static class Parts {
+    String text;
+    int start;
+    int schemeEnd;
+    int authStart;
+    int authEnd;
+    int pathStart;
+    int pathEnd;
+    int queryStart;
+    int queryEnd;
+
+    void split(String s, int from, int to) {
+      text = s;
+      start = from;
+      schemeEnd = -1;
+      authStart = -1;
+      authEnd = -1;
+      queryStart = -1;
+      queryEnd = -1;
+      int hash = s.indexOf('#', from);
+      if (hash >= 0 && hash < to) {
+        to = hash;
+      }
+      int i = from;
+      if (i < to && isAlpha(s.charAt(i))) {
+        int j = i + 1;
+        while (j < to && isSchemeChar(s.charAt(j))) {
+          j++;
+        }
+        if (j < to && s.charAt(j) == ':') {
+          schemeEnd = j;
+          i = j + 1;
+        }
+      }
+      if (i + 1 < to && s.charAt(i) == '/' && s.charAt(i + 1) == '/') {
+        authStart = i + 2;
+        int j = authStart;
+        while (j < to && s.charAt(j) != '/' && s.charAt(j) != '?') {
+          j++;
+        }
+        authEnd = j;
+        i = j;
+      }
+      pathStart = i;
+      int question = s.indexOf('?', i);
+      if (question >= 0 && question < to) {
+        pathEnd = question;
+        queryStart = question + 1;
+        queryEnd = to;
+      } else {
+        pathEnd = to;
+      }
+    }
+
+    boolean hasScheme() {
+      return schemeEnd >= 0;
+    }
+
+    boolean hasAuthority() {
+      return authStart >= 0;
+    }
+
+    boolean hasQuery() {
+      return queryStart >= 0;
+    }
+
+    boolean isHttp() {
+      int length = schemeEnd - start;
+      return hasScheme()
+          && ((length == 4 && text.regionMatches(true, start, "http", 0, 4))
+          || (length == 5 && text.regionMatches(true, start, "https", 0, 5)));
+    }
+
+    /**
+     * "C:\..." or "C:/..." is a Windows path, not a URL scheme.
+     */
+    boolean isDriveLetter() {
+      return schemeEnd - start == 1;
+    }
+
+    private static boolean isAlpha(char c) {
+      return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    private static boolean isSchemeChar(char c) {
+      return isAlpha(c) || (c >= '0' && c <= '9') || c == '+' || c == '-' || c == '.';
+    }
+  }
+
+  /**
+   * Per-thread buffers, reused from call to call.
+   */
+  private static class Scratch {
+    final Parts ref = new Parts();
+    final Parts base = new Parts();
+    final StringBuilder out = new StringBuilder(256);
+    final StringBuilder path = new StringBuilder(256);
+    final int[] paramStart = new int[MAX_PARAMS];
+    final int[] paramEnd = new int[MAX_PARAMS];
+  }
+}
@@ -0,0 +1,56 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+/**
+ * The set of URLs (and raw link strings) a crawl has already seen.
+ * Implementations store something much smaller than the URL itself, so
+ * that very large crawls fit in a small heap:
+ *   FingerprintSet - exact up to 64-bit hash collisions, optionally off-heap
+ *   BloomVisitedSet - fixed size, with a configurable false-positive rate
+ * All methods are safe to call from multiple threads.
+ */
+public interface VisitedSet {
+
+  /**
+   * Adds a URL, returning true if it had not been seen before.
+   */
+  boolean add(String url);
+
+  boolean contains(String url);
+
+  /**
+   * The number of URLs added (an estimate for probabilistic sets).
+   */
+  long size();
+
+  /**
+   * The memory used by the set's tables, in bytes.
+   */
+  long sizeInBytes();
+
+  /**
+   * A 64-bit hash of a URL: FNV-1a over its chars followed by the
+   * MurmurHash3 finalizer to spread the bits.
+   */
+  static long fingerprint(CharSequence url) {
+    long h = 0xcbf29ce484222325L;
+    for (int i = 0; i < url.length(); i++) {
+      h ^= url.charAt(i);
+      h *= 0x100000001b3L;
+    }
+    return mix(h);
+  }
+
+  static long mix(long h) {
+    h ^= h >>> 33;
+    h *= 0xff51afd7ed558ccdL;
+    h ^= h >>> 33;
+    h *= 0xc4ceb9fe1a85ec53L;
+    h ^= h >>> 33;
+    return h;
+  }
+}
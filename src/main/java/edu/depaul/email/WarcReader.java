@@ -0,0 +1,286 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Reads the pages stored in a WARC file (ISO 28500), one record at a
+ * time, without unpacking the file first.  A compressed WARC (.warc.gz)
+ * is a series of gzip members, one per record, which GZIPInputStream
+ * reads as one continuous stream.
+ * Only response and resource records holding HTML or text are returned.
+ * Other records (requests, metadata, images and the like), failed
+ * responses and records larger than the size limit are skipped without
+ * being read into memory, and so are bodies that only grow past the
+ * limit once decompressed.  Chunked and gzip-encoded HTTP bodies are
+ * decoded; a record whose HTTP message cannot be decoded is skipped as
+ * well, and the scan goes on with the next one.
+ */
+public class WarcReader implements Closeable {
+
+  public static final int DEFAULT_MAX_RECORD = 32 * 1024 * 1024;
+  private static final int BUFFER_SIZE = 64 * 1024;
+
+  private final InputStream in;
+  private final int maxRecord;
+  private final StringBuilder line = new StringBuilder();
+  private long skipped = 0;
+
+  public WarcReader(InputStream in) {
+    this(in, DEFAULT_MAX_RECORD);
+  }
+
+  /**
+   * @param in the uncompressed WARC data
+   * @param maxRecord records with a larger block than this are skipped
+   */
+  public WarcReader(InputStream in, int maxRecord) {
+    this.in = in instanceof BufferedInputStream ? in : new BufferedInputStream(in, BUFFER_SIZE);
+    this.maxRecord = maxRecord;
+  }
+
+  /**
+   * Opens a .warc or .warc.gz file.
+   */
+  public static WarcReader open(Path file) throws IOException {
+    InputStream raw = Files.newInputStream(file);
+    if (file.getFileName().toString().toLowerCase(Locale.ROOT).endsWith(".gz")) {
+      raw = new GZIPInputStream(raw, BUFFER_SIZE);
+    }
+    return new WarcReader(raw);
+  }
+
+  /**
+   * Returns the next page, or null at the end of the file.  The page's
+   * URL is the record's WARC-Target-URI.
+   */
+  public RawPage next() throws IOException {
+    while (true) {
+      Map<String, String> headers = readHeaders(true);
+      if (headers == null) {
+        return null;
+      }
+      long length = Long.parseLong(headers.getOrDefault("content-length", "0"));
+      String type = headers.getOrDefault("warc-type", "");
+      String uri = headers.get("warc-target-uri");
+      if (uri == null || length > maxRecord
+          || !("response".equals(type) || "resource".equals(type))) {
+        skip(length);
+        skipped++;
+        continue;
+      }
+      if (uri.startsWith("<") && uri.endsWith(">")) {
+        uri = uri.substring(1, uri.length() - 1);
+      }
+      byte[] block = new byte[(int) length];
+      readFully(block);
+      RawPage page;
+      try {
+        page = "response".equals(type)
+            ? fromHttp(uri, block, maxRecord)
+            : fromResource(uri, block, headers.get("content-type"));
+      } catch (IOException | RuntimeException e) {
+        // Only the block in memory was malformed; the whole block has
+        // been read, so the stream is still at the next record.
+        page = null;
+      }
+      if (page != null) {
+        return page;
+      }
+      skipped++;
+    }
+  }
+
+  /**
+   * The number of records skipped so far.
+   */
+  public long getSkipped() {
+    return skipped;
+  }
+
+  @Override
+  public void close() throws IOException {
+    in.close();
+  }
+
+  /**
+   * Reads header lines up to an empty line into a map with lowercased
+   * names.  For a WARC record header the version line comes first, and
+   * null is returned if the stream ends before it.
+   */
+  private Map<String, String> readHeaders(boolean warc) throws IOException {
+    String first = readLine();
+    while (warc && first != null && first.isEmpty()) {
+      first = readLine();
+    }
+    if (first == null) {
+      if (warc) {
+        return null;
+      }
+      throw new EOFException("truncated record");
+    }
+    if (warc && !first.startsWith("WARC/")) {
+      throw new IOException("not a WARC record: " + first);
+    }
+    Map<String, String> headers = new HashMap<>();
+    headers.put(":start", first);
+    String header;
+    while ((header = readLine()) != null && !header.isEmpty()) {
+      int colon = header.indexOf(':');
+      if (colon > 0) {
+        headers.put(header.substring(0, colon).trim().toLowerCase(Locale.ROOT),
+            header.substring(colon + 1).trim());
+      }
+    }
+    return headers;
+  }
+
+  /**
+   * Reads an ASCII line, without its CRLF or LF.  Returns null at the
+   * end of the stream.
+   */
+  private String readLine() throws IOException {
+    line.setLength(0);
+    int c;
+    while ((c = in.read()) >= 0 && c != '\n') {
+      line.append((char) c);
+    }
+    if (c < 0 && line.length() == 0) {
+      return null;
+    }
+    int end = line.length();
+    if (end > 0 && line.charAt(end - 1) == '\r') {
+      line.setLength(end - 1);
+    }
+    return line.toString();
+  }
+
+  private void readFully(byte[] block) throws IOException {
+    int off = 0;
+    while (off < block.length) {
+      int count = in.read(block, off, block.length - off);
+      if (count < 0) {
+        throw new EOFException("truncated record");
+      }
+      off += count;
+    }
+  }
+
+  private void skip(long length) throws IOException {
+    long left = length;
+    while (left > 0) {
+      long count = in.skip(left);
+      if (count <= 0) {
+        if (in.read() < 0) {
+          throw new EOFException("truncated record");
+        }
+        count = 1;
+      }
+      left -= count;
+    }
+  }
+
+  /**
+   * Splits a stored HTTP response into its headers and body.  Returns
+   * null unless it is a successful response with a page in it.  A body
+   * that decodes to more than limit bytes is an error.
+   */
+  private static RawPage fromHttp(String uri, byte[] block, int limit) throws IOException {
+    WarcReader http = new WarcReader(new ByteArrayInputStream(block), block.length);
+    Map<String, String> headers = http.readHeaders(false);
+    String[] status = headers.get(":start").split(" ");
+    if (status.length < 2 || !status[1].startsWith("2")) {
+      return null;
+    }
+    String contentType = headers.get("content-type");
+    if (!isPage(contentType)) {
+      return null;
+    }
+    InputStream body = http.in;
+    if ("chunked".equalsIgnoreCase(headers.get("transfer-encoding"))) {
+      body = new ByteArrayInputStream(http.dechunk());
+    }
+    if ("gzip".equalsIgnoreCase(headers.get("content-encoding"))) {
+      body = new GZIPInputStream(body);
+    }
+    return new RawPage(uri, readAll(body, limit), charsetOf(contentType));
+  }
+
+  private static RawPage fromResource(String uri, byte[] block, String contentType) {
+    return isPage(contentType) ? new RawPage(uri, block, charsetOf(contentType)) : null;
+  }
+
+  private byte[] dechunk() throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    String size;
+    while ((size = readLine()) != null) {
+      int semi = size.indexOf(';');
+      int length = Integer.parseInt((semi < 0 ? size : size.substring(0, semi)).trim(), 16);
+      if (length == 0) {
+        break;
+      }
+      byte[] chunk = new byte[length];
+      readFully(chunk);
+      out.write(chunk);
+      readLine();
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * Reads the rest of the stream, giving up with an IOException as soon
+   * as it turns out to hold more than limit bytes.
+   */
+  static byte[] readAll(InputStream in, int limit) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    byte[] buf = new byte[8192];
+    int count;
+    while ((count = in.read(buf)) > 0) {
+      if (out.size() + count > limit) {
+        throw new IOException("more than " + limit + " bytes");
+      }
+      out.write(buf, 0, count);
+    }
+    return out.toByteArray();
+  }
+
+  /**
+   * True for HTML and text content types, or when the type is unknown.
+   */
+  private static boolean isPage(String contentType) {
+    if (contentType == null) {
+      return true;
+    }
+    String type = contentType.toLowerCase(Locale.ROOT);
+    return type.startsWith("text/") || type.contains("html");
+  }
+
+  static String charsetOf(String contentType) {
+    if (contentType == null) {
+      return null;
+    }
+    for (String part : contentType.split(";")) {
+      String param = part.trim();
+      if (param.toLowerCase(Locale.ROOT).startsWith("charset=")) {
+        return param.substring("charset=".length()).replace("\"", "").trim();
+      }
+    }
+    return null;
+  }
+}
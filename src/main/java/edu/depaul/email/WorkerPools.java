@@ -0,0 +1,71 @@
+/*
+ * Assignment: class project
+ * Topic: demonstrate a variety of tests
+ * Author: Dan Walker
+ */
+package edu.depaul.email;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Creates the thread pools that PageCrawler runs its fetches on.
+ * Virtual threads only exist on Java 21 and later while this project is
+ * still compiled for Java 8, so the virtual-thread executor is looked up
+ * reflectively.  On older runtimes a cached pool of platform threads is
+ * used instead; the crawler's own concurrency cap still applies.
+ */
+public class WorkerPools {
+
+  private static final Logger logger = LoggerFactory.getLogger(WorkerPools.class);
+
+  /**
+   * How the crawler runs its fetches: a fixed pool of platform threads,
+   * or one virtual thread per in-flight URL.
+   */
+  public enum ThreadMode {PLATFORM, VIRTUAL};
+
+  private static final Method VIRTUAL_FACTORY = findVirtualFactory();
+
+  private WorkerPools() {}
+
+  public static boolean virtualThreadsAvailable() {
+    return VIRTUAL_FACTORY != null;
+  }
+
+  public static ExecutorService create(ThreadMode mode, int workers) {
+    if (mode == ThreadMode.VIRTUAL) {
+      return virtual();
+    }
+    return Executors.newFixedThreadPool(workers);
+  }
+
+  /**
+   * Returns an executor that starts a new virtual thread for every task.
+   * Falls back to a cached platform-thread pool when the running JVM has
+   * no virtual threads.
+   */
+  public static ExecutorService virtual() {
+    if (VIRTUAL_FACTORY != null) {
+      try {
+        return (ExecutorService) VIRTUAL_FACTORY.invoke(null);
+      } catch (ReflectiveOperationException e) {
+        throw new EmailFinderException("unable to create virtual thread executor", e);
+      }
+    }
+    logger.warn("virtual threads need Java 21 or later; using platform threads");
+    return Executors.newCachedThreadPool();
+  }
+
+  private static Method findVirtualFactory() {
+    try {
+      return Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+    } catch (NoSuchMethodException e) {
+      return null;
+    }
+  }
+}
@@ -0,0 +1,166 @@
+package edu.depaul.email;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class ArchiveScannerTest {
+
+  @TempDir
+  Path dir;
+
+  private static Set<String> setOf(String... items) {
+    return new HashSet<>(Arrays.asList(items));
+  }
+
+  private Path zip(String name, String... entries) throws IOException {
+    Path file = dir.resolve(name);
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(file))) {
+      for (int i = 0; i < entries.length; i += 2) {
+        out.putNextEntry(new ZipEntry(entries[i]));
+        out.write(entries[i + 1].getBytes(StandardCharsets.UTF_8));
+        out.closeEntry();
+      }
+    }
+    return file;
+  }
+
+  /**
+   * Writes a gzip-compressed ustar archive.
+   */
+  private Path tarGz(String name, String... entries) throws IOException {
+    ByteArrayOutputStream tar = new ByteArrayOutputStream();
+    for (int i = 0; i < entries.length; i += 2) {
+      byte[] body = entries[i + 1].getBytes(StandardCharsets.UTF_8);
+      byte[] header = new byte[512];
+      put(header, 0, entries[i]);
+      put(header, 100, "0000644");
+      put(header, 124, String.format("%011o", body.length));
+      header[156] = '0';
+      put(header, 257, "ustar");
+      put(header, 263, "00");
+      Arrays.fill(header, 148, 156, (byte) ' ');
+      int sum = 0;
+      for (byte b : header) {
+        sum += b & 0xff;
+      }
+      put(header, 148, String.format("%06o", sum));
+      tar.write(header);
+      tar.write(body);
+      tar.write(new byte[(512 - body.length % 512) % 512]);
+    }
+    tar.write(new byte[1024]);
+    Path file = dir.resolve(name);
+    try (OutputStream out = new GZIPOutputStream(Files.newOutputStream(file))) {
+      out.write(tar.toByteArray());
+    }
+    return file;
+  }
+
+  private static void put(byte[] header, int offset, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+    System.arraycopy(bytes, 0, header, offset, bytes.length);
+  }
+
+  @Test
+  @DisplayName("Tests scanning WARC, zip and tar archives together.")
+  void testScanArchives() throws IOException {
+    Path warc = WarcReaderTest.writeWarcGz(dir.resolve("crawl.warc.gz"),
+        WarcReaderTest.response("http://a.com/", "200 OK", "text/html", "<p>a@a.com</p>"),
+        WarcReaderTest.response("http://a.com/staff", "200 OK", "text/html", "<p>b@a.com, c@a.com</p>"));
+    Path zip = zip("site.zip",
+        "site/index.html", "<p>d@b.com</p>",
+        "site/logo.png", "e@b.com",
+        "site/people/", "");
+    Path tar = tarGz("site.tar.gz",
+        "mirror/contact.htm", "<p>f@c.com</p>",
+        "mirror/style.css", "g@c.com");
+
+    StorageService storage = mock(StorageService.class);
+    ArchiveScanner scanner = new ArchiveScanner(storage, 50, 2);
+    scanner.scan(Arrays.asList(warc, zip, tar));
+    scanner.report();
+
+    assertAll(
+      () -> assertEquals(setOf("a@a.com", "b@a.com", "c@a.com", "d@b.com", "f@c.com"), scanner.getEmails()),
+      () -> assertEquals(setOf("http://a.com/", "http://a.com/staff", zip + "!/site/index.html",
+          tar + "!/mirror/contact.htm"), scanner.getGoodLinks()),
+      () -> assertTrue(scanner.getBadLinks().isEmpty())
+    );
+    verify(storage).storeList(StorageService.StorageType.EMAIL, scanner.getEmails());
+  }
+
+  @Test
+  @DisplayName("Tests that an unreadable archive is reported as a bad link.")
+  void testBadArchive() throws IOException {
+    Path broken = dir.resolve("broken.warc");
+    Files.write(broken, "not a warc".getBytes(StandardCharsets.UTF_8));
+    ArchiveScanner scanner = new ArchiveScanner(mock(StorageService.class), 50, 2);
+    scanner.scan(Collections.singletonList(broken));
+    assertEquals(setOf(broken.toString()), scanner.getBadLinks());
+  }
+
+  @Test
+  @DisplayName("Tests that a zip entry over the size limit is skipped.")
+  void testLargeZipEntry() throws IOException {
+    Path file = dir.resolve("large.zip");
+    try (ZipOutputStream out = new ZipOutputStream(Files.newOutputStream(file))) {
+      out.putNextEntry(new ZipEntry("huge.html"));
+      byte[] zeros = new byte[1024 * 1024];
+      for (long written = 0; written <= WarcReader.DEFAULT_MAX_RECORD; written += zeros.length) {
+        out.write(zeros);
+      }
+      out.closeEntry();
+      out.putNextEntry(new ZipEntry("small.html"));
+      out.write("<p>a@x.com</p>".getBytes(StandardCharsets.UTF_8));
+      out.closeEntry();
+    }
+    ArchiveScanner scanner = new ArchiveScanner(mock(StorageService.class), 50, 2);
+    scanner.scan(Collections.singletonList(file));
+    assertAll(
+      () -> assertEquals(setOf("a@x.com"), scanner.getEmails()),
+      () -> assertEquals(setOf(file + "!/small.html"), scanner.getGoodLinks()),
+      () -> assertTrue(scanner.getBadLinks().isEmpty())
+    );
+  }
+
+  @Test
+  @DisplayName("Tests that at most the maximum number of emails is kept.")
+  void testMaxEmails() throws IOException {
+    Path zip = zip("many.zip",
+        "1.html", "<p>a@x.com b@x.com</p>",
+        "2.html", "<p>c@x.com d@x.com</p>");
+    ArchiveScanner scanner = new ArchiveScanner(mock(StorageService.class), 3, 2);
+    scanner.scan(Collections.singletonList(zip));
+    assertEquals(3, scanner.getEmails().size());
+  }
+
+  @Test
+  @DisplayName("Tests recognising archive file names.")
+  void testIsArchive() {
+    assertAll(
+      () -> assertTrue(ArchiveScanner.isArchive(dir.resolve("a.warc.gz"))),
+      () -> assertTrue(ArchiveScanner.isArchive(dir.resolve("a.TGZ"))),
+      () -> assertFalse(ArchiveScanner.isArchive(dir.resolve("a.gz"))),
+      () -> assertFalse(ArchiveScanner.isArchive(dir.resolve("a.html")))
+    );
+  }
+}
@@ -0,0 +1,122 @@
+package edu.depaul.email;
+
+import com.sun.net.httpserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AsyncHttpBackendTest {
+  private static final String PAGE = "<html><body>foo@gmail.com</body></html>";
+
+  private HttpServer server;
+  private String root;
+
+  @BeforeEach
+  void startServer() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+    server.createContext("/page.html", exchange -> {
+      byte[] body = PAGE.getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.createContext("/large.html", exchange -> {
+      byte[] body = new byte[100000];
+      Arrays.fill(body, (byte) 'a');
+      exchange.sendResponseHeaders(200, body.length);
+      try (OutputStream out = exchange.getResponseBody()) {
+        out.write(body);
+      }
+    });
+    server.createContext("/missing.html", exchange -> {
+      exchange.sendResponseHeaders(404, -1);
+      exchange.close();
+    });
+    server.start();
+    root = "http://127.0.0.1:" + server.getAddress().getPort();
+  }
+
+  @AfterEach
+  void stopServer() {
+    server.stop(0);
+  }
+
+  @Test
+  @Timeout(10)
+  @DisplayName("Tests fetching a page through the async client.")
+  void testFetch() throws IOException {
+    AsyncHttpBackend backend = new AsyncHttpBackend();
+    try {
+      RawPage page = backend.fetch(root + "/page.html");
+      assertAll(
+        () -> assertEquals(PAGE, new String(page.getBody(), StandardCharsets.UTF_8)),
+        () -> assertEquals("UTF-8", page.getCharset())
+      );
+    } finally {
+      backend.close();
+    }
+  }
+
+  @Test
+  @Timeout(10)
+  @DisplayName("Checks that an HTTP error status is reported as an IOException.")
+  void testFetchMissing() {
+    AsyncHttpBackend backend = new AsyncHttpBackend();
+    try {
+      assertThrows(IOException.class, () -> backend.fetch(root + "/missing.html"));
+    } finally {
+      backend.close();
+    }
+  }
+
+  @Test
+  @Timeout(10)
+  @DisplayName("Tests that a response body is cut off at the size limit.")
+  void testMaxBodySize() throws IOException {
+    AsyncHttpBackend backend = new AsyncHttpBackend(4, 4, 1000);
+    try {
+      assertEquals(1000, backend.fetch(root + "/large.html").getBody().length);
+    } finally {
+      backend.close();
+    }
+  }
+
+  @Test
+  @Timeout(10)
+  @DisplayName("Checks that a request the client refuses does not use up a slot.")
+  void testRefusedRequest() {
+    AsyncHttpBackend backend = new AsyncHttpBackend(1, 1);
+    backend.close();
+    assertAll(
+      () -> assertThrows(IllegalStateException.class, () -> backend.fetch(root + "/page.html")),
+      () -> assertThrows(IllegalStateException.class, () -> backend.fetch(root + "/page.html"))
+    );
+  }
+
+  @Test
+  @Timeout(10)
+  @DisplayName("Checks that PageFetcher turns async backend failures into EmailFinderException.")
+  void testPageFetcherWithBackend() {
+    PageFetcher fetcher = new PageFetcher(new AsyncHttpBackend());
+    try {
+      assertAll(
+        () -> assertEquals("foo@gmail.com", fetcher.get(root + "/page.html").text()),
+        () -> assertThrows(EmailFinderException.class, () -> fetcher.get(root + "/missing.html"))
+      );
+    } finally {
+      fetcher.close();
+    }
+  }
+}
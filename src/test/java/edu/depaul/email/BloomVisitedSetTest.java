@@ -0,0 +1,46 @@
+package edu.depaul.email;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BloomVisitedSetTest {
+  @Test
+  @DisplayName("Tests sizing from the expected count and false-positive rate.")
+  void testSizing() {
+    BloomVisitedSet set = new BloomVisitedSet(1000000, 0.01);
+    assertAll(
+      () -> assertTrue(set.sizeInBytes() >= 1000000 * 9.58 / 8),
+      () -> assertTrue(set.sizeInBytes() < 1000000 * 9.6 / 8 + 8),
+      () -> assertEquals(7, set.getHashCount())
+    );
+  }
+
+  @Test
+  @DisplayName("Tests that added URLs are never missed and few others are reported.")
+  void testFalsePositives() {
+    BloomVisitedSet set = new BloomVisitedSet(50000, 0.01);
+    for (int i = 0; i < 50000; i++) {
+      set.add("http://example.com/" + i);
+    }
+    for (int i = 0; i < 50000; i++) {
+      assertTrue(set.contains("http://example.com/" + i));
+      assertFalse(set.add("http://example.com/" + i));
+    }
+    int falsePositives = 0;
+    for (int i = 0; i < 50000; i++) {
+      if (set.contains("http://other.com/" + i)) {
+        falsePositives++;
+      }
+    }
+    assertTrue(falsePositives < 50000 * 0.02, "false positives: " + falsePositives);
+    assertTrue(set.size() > 49000);
+  }
+
+  @Test
+  @DisplayName("Tests rejecting a bad false-positive rate.")
+  void testBadRate() {
+    assertThrows(IllegalArgumentException.class, () -> new BloomVisitedSet(10, 1.5));
+  }
+}
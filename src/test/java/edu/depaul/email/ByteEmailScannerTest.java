@@ -0,0 +1,107 @@
+package edu.depaul.email;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ByteEmailScannerTest {
+
+  private static List<String> viaBytes(String text) {
+    List<String> found = new ArrayList<>();
+    ByteEmailScanner.find(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)), 0,
+        text.getBytes(StandardCharsets.UTF_8).length,
+        (buf, start, end) -> found.add(ByteEmailScanner.decode(buf, start, end)));
+    return found;
+  }
+
+  private static List<String> viaMatcher(String text) {
+    List<String> found = new ArrayList<>();
+    EmailMatcher.find(text, (t, start, end) -> found.add(t.subSequence(start, end).toString()));
+    return found;
+  }
+
+  private static Set<String> setOf(String... items) {
+    return new HashSet<>(Arrays.asList(items));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+    "",
+    "no addresses here",
+    "foo@gmail.com",
+    "Contact foo@gmail.com, bar@gmail.com or baz@gmail.com.",
+    "a@b@c.com",
+    "x@y. @nolocal.com trailing@dots.com.. under_score+tag@sub.ex-ample.co.uk",
+    "first.last@example.com@second.org",
+    "bad@-.x good@a.b_c",
+    "@@@ a@ @b.com a@b a@b.c a@b._ end@x.y"
+  })
+  @DisplayName("Tests that the byte scanner finds exactly what EmailMatcher finds.")
+  void testSameAsMatcher(String text) {
+    assertEquals(viaMatcher(text), viaBytes(text));
+  }
+
+  @Test
+  @DisplayName("Tests finding an address at every offset within and across 64-bit words.")
+  void testEveryOffset() {
+    for (int pad = 0; pad < 24; pad++) {
+      char[] filler = new char[pad];
+      Arrays.fill(filler, ' ');
+      String text = new String(filler) + "ab@cd.ef" + new String(filler);
+      assertEquals(Arrays.asList("ab@cd.ef"), viaBytes(text), "padding " + pad);
+    }
+  }
+
+  @Test
+  @DisplayName("Tests that non-ASCII bytes end an address.")
+  void testNonAscii() {
+    byte[] page = "caf\u00e9@bistro.fr \u00e9t\u00e9 ok@x.fr jo@\u00e9cole.fr".getBytes(StandardCharsets.UTF_8);
+    assertEquals(setOf("ok@x.fr"), ByteEmailScanner.findEmails(page));
+  }
+
+  @Test
+  @DisplayName("Tests scanning a direct buffer between its position and limit, leaving it unchanged.")
+  void testDirectBuffer() {
+    byte[] page = "skip@me.com <a href=\"mailto:keep@me.com\">x</a> cut@off.com".getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(page.length);
+    buffer.put(page).flip();
+    buffer.position(12).limit(page.length - 12);
+    assertEquals(setOf("keep@me.com"), ByteEmailScanner.findEmails(buffer));
+    assertEquals(12, buffer.position());
+  }
+
+  @Test
+  @DisplayName("Tests that addresses spanning map windows are found whole and only once.")
+  void testMappedWindows(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("page.html");
+    StringBuilder page = new StringBuilder();
+    for (int i = 0; i < 300; i++) {
+      page.append("<li>person").append(i).append("@example.edu</li>\n");
+    }
+    Files.write(file, page.toString().getBytes(StandardCharsets.UTF_8));
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      Set<String> found = ByteEmailScanner.findEmails(channel, 1000);
+      assertEquals(300, found.size());
+      for (int i = 0; i < 300; i++) {
+        assertTrue(found.contains("person" + i + "@example.edu"));
+      }
+    }
+  }
+}
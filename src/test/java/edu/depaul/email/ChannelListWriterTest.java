@@ -0,0 +1,84 @@
+package edu.depaul.email;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.channels.Channels;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import edu.depaul.email.ChannelListWriter.Compression;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ChannelListWriterTest {
+  @Test
+  @DisplayName("Tests writing a list as UTF-8 lines.")
+  void testWriteList() throws IOException {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    ChannelListWriter writer = new ChannelListWriter(Channels.newChannel(stream));
+
+    writer.writeList(Arrays.asList("one", "caf\u00e9@example.com", "three"));
+
+    assertEquals("one\ncaf\u00e9@example.com\nthree\n", new String(stream.toByteArray(), StandardCharsets.UTF_8));
+  }
+
+  @Test
+  @DisplayName("Tests writing a list larger than the buffer, with long items.")
+  void testLargeList(@TempDir Path dir) throws IOException {
+    List<String> list = new ArrayList<>();
+    StringBuilder longItem = new StringBuilder();
+    for (int i = 0; i < 100000; i++) {
+      longItem.append('x');
+    }
+    list.add(longItem.toString());
+    for (int i = 0; i < 50000; i++) {
+      list.add("someone" + i + "@example.edu");
+    }
+    Path file = dir.resolve("list.txt");
+
+    try (ChannelListWriter writer = ChannelListWriter.open(file, Compression.NONE)) {
+      writer.writeList(list);
+    }
+
+    assertEquals(list, Files.readAllLines(file, StandardCharsets.UTF_8));
+  }
+
+  @Test
+  @DisplayName("Tests gzip output, readable after each flush.")
+  void testGzip(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("list.txt.gz");
+
+    try (ChannelListWriter writer = ChannelListWriter.open(file, Compression.GZIP)) {
+      writer.write("one");
+      writer.flush();
+      assertEquals("one\n", gunzip(file));
+      writer.write("two");
+    }
+
+    assertEquals("one\ntwo\n", gunzip(file));
+  }
+
+  private static String gunzip(Path file) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (InputStream in = new GZIPInputStream(Files.newInputStream(file))) {
+      byte[] chunk = new byte[4096];
+      int count;
+      while ((count = in.read(chunk)) > 0) {
+        out.write(chunk, 0, count);
+      }
+    } catch (java.io.EOFException e) {
+      // a stream that has only been sync-flushed has no trailer yet
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,97 @@
+package edu.depaul.email;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class CorpusScannerTest {
+
+  @TempDir
+  Path dir;
+
+  private Path write(String name, String content) throws IOException {
+    Path file = dir.resolve(name);
+    Files.createDirectories(file.getParent());
+    Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+    return file;
+  }
+
+  private static Set<String> setOf(String... items) {
+    return new HashSet<>(Arrays.asList(items));
+  }
+
+  @BeforeEach
+  void setUp() throws IOException {
+    write("index.html", "<p>Contact a@depaul.edu</p><a href=\"staff/list.htm\">staff</a>");
+    write("staff/list.htm", "<ul><li>b@depaul.edu</li><li>c@depaul.edu</li></ul>");
+    write("staff/deep/more/page", "<p>d@depaul.edu</p>");
+    write("images/logo.png", "e@depaul.edu");
+    write("empty.html", "");
+  }
+
+  @Test
+  @DisplayName("Tests scanning every page file under a directory tree.")
+  void testScan() {
+    StorageService storage = mock(StorageService.class);
+    CorpusScanner scanner = new CorpusScanner(storage, 50, 2);
+    scanner.scan(dir);
+    scanner.report();
+
+    assertAll(
+      () -> assertEquals(setOf("a@depaul.edu", "b@depaul.edu", "c@depaul.edu", "d@depaul.edu"), scanner.getEmails()),
+      () -> assertEquals(4, scanner.getGoodLinks().size()),
+      () -> assertTrue(scanner.getGoodLinks().contains(dir.resolve("staff/list.htm").toString())),
+      () -> assertTrue(scanner.getBadLinks().isEmpty())
+    );
+    verify(storage).storeList(StorageService.StorageType.EMAIL, scanner.getEmails());
+  }
+
+  @Test
+  @DisplayName("Tests that an empty extension list scans every file.")
+  void testAllFiles() {
+    CorpusScanner scanner = new CorpusScanner(mock(StorageService.class), 50, 2)
+        .setExtensions(Collections.<String>emptyList());
+    scanner.scan(dir);
+    assertTrue(scanner.getEmails().contains("e@depaul.edu"));
+  }
+
+  @Test
+  @DisplayName("Tests that exactly the maximum number of emails is kept.")
+  void testMaxEmails() {
+    CorpusScanner scanner = new CorpusScanner(mock(StorageService.class), 3, 4);
+    scanner.scan(dir);
+    assertEquals(3, scanner.getEmails().size());
+  }
+
+  @Test
+  @DisplayName("Tests that scanning something other than a directory fails.")
+  void testNotDirectory() throws IOException {
+    Path file = write("plain.txt", "x");
+    CorpusScanner scanner = new CorpusScanner(mock(StorageService.class), 3);
+    assertThrows(EmailFinderException.class, () -> scanner.scan(file));
+  }
+
+  @Test
+  @DisplayName("Tests scanning the files for emails only, in their raw bytes.")
+  void testByteScan() throws IOException {
+    write("contact.html", "<a href=\"mailto:e@depaul.edu\">Email us</a>");
+    CorpusScanner scanner = new CorpusScanner(mock(StorageService.class), 50, 2).setByteScan(true);
+    scanner.scan(dir);
+    assertEquals(setOf("a@depaul.edu", "b@depaul.edu", "c@depaul.edu", "d@depaul.edu", "e@depaul.edu"),
+        scanner.getEmails());
+  }
+}
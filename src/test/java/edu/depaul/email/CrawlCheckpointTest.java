@@ -0,0 +1,173 @@
+package edu.depaul.email;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class CrawlCheckpointTest {
+  @Test
+  @DisplayName("Tests reloading the records written by an earlier run.")
+  void testReload(@TempDir Path dir) {
+    Path file = dir.resolve("crawl.log");
+    CrawlCheckpoint first = new CrawlCheckpoint(file, false);
+    first.queued("http://a/", 0);
+    first.queued("http://a/1", 1);
+    first.queued("http://a/2", 1);
+    first.queued("http://a/3", 2);
+    first.queued("http://a/3", 1);
+    first.good("http://a/");
+    first.email("x@a.com");
+    first.bad("http://a/1");
+    first.close();
+
+    CrawlCheckpoint second = new CrawlCheckpoint(file, true);
+    second.close();
+    assertAll(
+      () -> assertTrue(second.isResumed()),
+      () -> assertEquals(Arrays.asList("http://a/2", "http://a/3"), new ArrayList<>(second.getPending().keySet())),
+      () -> assertEquals(2, (int) second.getPending().get("http://a/3")),
+      () -> assertEquals(4, second.getQueued().size()),
+      () -> assertEquals(Collections.singleton("http://a/"), second.getGoodLinks()),
+      () -> assertEquals(Collections.singleton("http://a/1"), second.getBadLinks()),
+      () -> assertEquals(Collections.singleton("x@a.com"), second.getEmails())
+    );
+  }
+
+  @Test
+  @DisplayName("Tests that a half-written last record is ignored.")
+  void testTornRecord(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("crawl.log");
+    CrawlCheckpoint first = new CrawlCheckpoint(file, false);
+    first.queued("http://a/", 0);
+    first.close();
+    Files.write(file, "G\thttp://a".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+
+    CrawlCheckpoint second = new CrawlCheckpoint(file, true);
+    second.close();
+    assertEquals(Collections.singletonMap("http://a/", 0), second.getPending());
+    assertTrue(second.getGoodLinks().isEmpty());
+  }
+
+  @Test
+  @DisplayName("Tests that starting without resume discards an old log.")
+  void testNoResume(@TempDir Path dir) {
+    Path file = dir.resolve("crawl.log");
+    CrawlCheckpoint first = new CrawlCheckpoint(file, false);
+    first.queued("http://a/", 0);
+    first.close();
+
+    CrawlCheckpoint second = new CrawlCheckpoint(file, false);
+    second.close();
+    CrawlCheckpoint third = new CrawlCheckpoint(file, true);
+    third.close();
+    assertFalse(third.isResumed());
+  }
+
+  @Test
+  @Timeout(30)
+  @DisplayName("Tests resuming a stopped crawl without fetching finished pages again.")
+  void testResumeCrawl(@TempDir Path dir) throws IOException {
+    SiteGenerator site = new SiteGenerator(60, 3, 8, 1, 256, 11);
+    try (LocalSiteServer server = new LocalSiteServer(site)) {
+      Path file = dir.resolve("crawl.log");
+      StorageService storage = mock(StorageService.class);
+
+      CrawlCheckpoint checkpoint = new CrawlCheckpoint(file, false);
+      PageCrawler first = new PageCrawler(storage, 10, 1).setCheckpoint(checkpoint);
+      first.crawl(server.rootUrl());
+      checkpoint.close();
+      long fetchedBefore = server.requestCount();
+      assertTrue(fetchedBefore < site.getPageCount());
+
+      checkpoint = new CrawlCheckpoint(file, true);
+      PageCrawler second = new PageCrawler(storage, Integer.MAX_VALUE, 4).setCheckpoint(checkpoint);
+      second.crawl(server.rootUrl());
+      checkpoint.close();
+
+      assertEquals(site.getPageCount(), second.getGoodLinks().size());
+      assertEquals(new HashSet<>(site.allEmails()), second.getEmails());
+      // Pages that were still in flight when the first crawl stopped are
+      // fetched again; finished ones are not
+      assertEquals(site.getPageCount() - first.getGoodLinks().size(), server.requestCount() - fetchedBefore);
+    }
+  }
+
+  @Test
+  @Timeout(30)
+  @DisplayName("Tests that a resumed crawl does not fetch the starting page again through a link to it.")
+  void testResumeStartingUrl(@TempDir Path dir) throws IOException {
+    SiteGenerator site = new SiteGenerator(60, 3, 8, 1, 256, 11);
+    boolean linkedBack = false;
+    for (int i = 0; i < site.getPageCount(); i++) {
+      linkedBack |= site.linksOf(i).contains(0);
+    }
+    assertTrue(linkedBack);
+    try (LocalSiteServer server = new LocalSiteServer(site)) {
+      Path file = dir.resolve("crawl.log");
+      StorageService storage = mock(StorageService.class);
+      String start = server.rootUrl() + "#top";
+
+      CrawlCheckpoint checkpoint = new CrawlCheckpoint(file, false);
+      PageCrawler first = new PageCrawler(storage, 10, 1).setCheckpoint(checkpoint);
+      first.crawl(start);
+      checkpoint.close();
+      long fetchedBefore = server.requestCount();
+
+      checkpoint = new CrawlCheckpoint(file, true);
+      PageCrawler second = new PageCrawler(storage, Integer.MAX_VALUE, 4).setCheckpoint(checkpoint);
+      second.crawl(start);
+      checkpoint.close();
+
+      assertEquals(site.getPageCount() - first.getGoodLinks().size(), server.requestCount() - fetchedBefore);
+    }
+  }
+
+  @Test
+  @Timeout(30)
+  @DisplayName("Tests that a resumed crawl keeps to the maximum depth.")
+  void testResumeMaxDepth(@TempDir Path dir) throws IOException {
+    SiteGenerator site = new SiteGenerator(400, 3, 8, 1, 256, 11);
+    try (LocalSiteServer server = new LocalSiteServer(site)) {
+      Path file = dir.resolve("crawl.log");
+      StorageService storage = mock(StorageService.class);
+
+      CrawlCheckpoint checkpoint = new CrawlCheckpoint(file, false);
+      new PageCrawler(storage, 3, 1).setMaxDepth(2).setCheckpoint(checkpoint).crawl(server.rootUrl());
+      checkpoint.close();
+
+      checkpoint = new CrawlCheckpoint(file, true);
+      PageCrawler second = new PageCrawler(storage, Integer.MAX_VALUE, 1).setMaxDepth(2).setCheckpoint(checkpoint);
+      second.crawl(server.rootUrl());
+      checkpoint.close();
+
+      Set<String> expected = new HashSet<>();
+      List<Integer> level = Collections.singletonList(0);
+      for (int depth = 0; depth <= 2; depth++) {
+        List<Integer> next = new ArrayList<>();
+        for (int page : level) {
+          if (expected.add(server.url(page))) {
+            next.addAll(site.linksOf(page));
+          }
+        }
+        level = next;
+      }
+      assertEquals(expected, second.getGoodLinks());
+    }
+  }
+}
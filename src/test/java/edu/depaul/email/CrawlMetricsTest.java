@@ -0,0 +1,71 @@
+package edu.depaul.email;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CrawlMetricsTest {
+  @Test
+  @DisplayName("Tests the counters and per-host error counts.")
+  void testCounters() {
+    CrawlMetrics metrics = new CrawlMetrics().setQueueDepth(() -> 7).setBytesFetched(() -> 1024);
+    metrics.recordPage();
+    metrics.recordPage();
+    metrics.recordEmails(3);
+    metrics.recordFailure("example.com");
+    metrics.recordFailure("example.com");
+    metrics.recordFailure("");
+    metrics.fetchStarted();
+
+    assertAll(
+      () -> assertEquals(2, metrics.getPagesFetched()),
+      () -> assertEquals(3, metrics.getPagesFailed()),
+      () -> assertEquals(3, metrics.getEmailsFound()),
+      () -> assertEquals(7, metrics.getQueueDepth()),
+      () -> assertEquals(1024, metrics.getBytesFetched()),
+      () -> assertEquals(1, metrics.getInFlight()),
+      () -> assertEquals(Long.valueOf(2), metrics.getHostErrors().get("example.com")),
+      () -> assertEquals(Long.valueOf(1), metrics.getHostErrors().get("local")),
+      () -> assertTrue(metrics.summary().contains("hostErrors=[example.com:2,local:1]"))
+    );
+  }
+
+  @Test
+  @DisplayName("Tests latency percentiles.")
+  void testLatency() {
+    LatencyHistogram histogram = new LatencyHistogram();
+    for (int i = 0; i < 99; i++) {
+      histogram.record(TimeUnit.MILLISECONDS.toNanos(1));
+    }
+    histogram.record(TimeUnit.MILLISECONDS.toNanos(500));
+
+    assertAll(
+      () -> assertEquals(100, histogram.getCount()),
+      () -> assertEquals(1.024, histogram.percentileMillis(0.50)),
+      () -> assertEquals(1.024, histogram.percentileMillis(0.99)),
+      () -> assertEquals(524.288, histogram.percentileMillis(1.0))
+    );
+  }
+
+  @Test
+  @DisplayName("Tests publishing the metrics over JMX.")
+  void testJmx() throws Exception {
+    CrawlMetrics metrics = new CrawlMetrics();
+    metrics.recordPage();
+    metrics.register("test");
+
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    ObjectName name = new ObjectName("edu.depaul.email:type=CrawlMetrics,name=\"test\"");
+    assertEquals(1L, server.getAttribute(name, "PagesFetched"));
+
+    metrics.unregister();
+    assertFalse(server.isRegistered(name));
+  }
+}
@@ -0,0 +1,74 @@
+package edu.depaul.email;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailMatcherTest {
+  private static final Pattern REGEX = Pattern.compile("[a-zA-Z0-9_.+-]+@[a-zA-Z0-9-]+\\.[a-zA-Z0-9-.]+");
+
+  private static List<String> viaMatcher(CharSequence text) {
+    List<String> found = new ArrayList<>();
+    EmailMatcher.find(text, (t, start, end) -> found.add(t.subSequence(start, end).toString()));
+    return found;
+  }
+
+  private static List<String> viaRegex(String text) {
+    List<String> found = new ArrayList<>();
+    Matcher matcher = REGEX.matcher(text);
+    while (matcher.find()) {
+      found.add(matcher.group());
+    }
+    return found;
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+    "",
+    "no addresses here",
+    "foo@gmail.com",
+    "Contact foo@gmail.com, bar@gmail.com or baz@gmail.com.",
+    "a@b@c.com",
+    "x@y. @nolocal.com trailing@dots.com.. under_score+tag@sub.ex-ample.co.uk",
+    "first.last@example.com@second.org",
+    "bad@-.x good@a.b_c",
+    "@@@ a@ @b.com a@b a@b.c a@b._ end@x.y"
+  })
+  @DisplayName("Tests that the matcher finds exactly what the original regex finds.")
+  void testSameAsRegex(String text) {
+    assertEquals(viaRegex(text), viaMatcher(text));
+  }
+
+  @Test
+  @DisplayName("Tests matching inside a sub-range of a non-String CharSequence.")
+  void testRange() {
+    StringBuilder text = new StringBuilder("skip@me.com keep@me.com skip@too.com");
+    List<Integer> offsets = new ArrayList<>();
+    EmailMatcher.find(text, 12, 23, (t, start, end) -> {
+      offsets.add(start);
+      offsets.add(end);
+    });
+    assertEquals(Arrays.asList(12, 23), offsets);
+  }
+
+  @Test
+  @DisplayName("Tests the character classes.")
+  void testCharClasses() {
+    assertAll(
+      () -> assertTrue(EmailMatcher.isLocalChar('+')),
+      () -> assertFalse(EmailMatcher.isDomainChar('+')),
+      () -> assertTrue(EmailMatcher.isDomainChar('-')),
+      () -> assertFalse(EmailMatcher.isLocalChar('@')),
+      () -> assertFalse(EmailMatcher.isLocalChar('\u00e9'))
+    );
+  }
+}
@@ -0,0 +1,64 @@
+package edu.depaul.email;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailNormalizerTest {
+
+  @ParameterizedTest
+  @CsvSource({
+    "foo@example.com, foo@example.com",
+    "Foo@Example.COM, foo@example.com",
+    "foo@example.com., foo@example.com",
+    "foo@example.com.-, foo@example.com",
+    "..foo@example.com, foo@example.com",
+    "foo.@example.com, foo@example.com",
+    "-foo@example.com, foo@example.com",
+    "first.last+tag@mail.cs.depaul.edu, first.last+tag@mail.cs.depaul.edu",
+    "a_b-c@my-host.co.uk, a_b-c@my-host.co.uk",
+    "x@xn--80ak6aa92e.xn--p1ai, x@xn--80ak6aa92e.xn--p1ai"
+  })
+  @DisplayName("Tests that addresses are lowercased and trimmed of punctuation.")
+  void testNormalize(String raw, String expected) {
+    assertEquals(expected, EmailNormalizer.normalize(raw));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {
+    "logo@2x.png", "icon@3x.JPG", "sprite@2x.webp", "bg@2x.svg", "app@1.2.min.js",
+    "lib@1.2.3", "a@b.c", "a@localhost", "a@host.c0m", "a@-host.com", "a@host-.com",
+    "a@host..com", "a..b@host.com", "@host.com", "...@host.com", "a@.com", "no-at-sign"
+  })
+  @DisplayName("Tests that image names, version strings and malformed domains are rejected.")
+  void testRejected(String raw) {
+    assertNull(EmailNormalizer.normalize(raw));
+  }
+
+  @Test
+  @DisplayName("Tests the length limits on the local part and domain labels.")
+  void testLengths() {
+    String local64 = String.join("", Collections.nCopies(64, "a"));
+    String label63 = String.join("", Collections.nCopies(63, "b"));
+    assertAll(
+      () -> assertNotNull(EmailNormalizer.normalize(local64 + "@" + label63 + ".com")),
+      () -> assertNull(EmailNormalizer.normalize(local64 + "a@example.com")),
+      () -> assertNull(EmailNormalizer.normalize("a@" + label63 + "b.com"))
+    );
+  }
+
+  @Test
+  @DisplayName("Tests that spellings of one address collapse into one.")
+  void testNormalizeAll() {
+    assertEquals(Collections.singleton("foo@example.com"), EmailNormalizer.normalizeAll(
+        new HashSet<>(Arrays.asList("Foo@Example.com", "foo@example.com.", "foo@EXAMPLE.com", "logo@2x.png"))));
+  }
+}
@@ -0,0 +1,143 @@
+package edu.depaul.email;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class EmailStoreTest {
+  @Test
+  @DisplayName("Tests adding and looking up addresses.")
+  void testAdd() {
+    EmailStore store = new EmailStore();
+    assertAll(
+      () -> assertTrue(store.add("foo@example.com")),
+      () -> assertFalse(store.add("foo@example.com")),
+      () -> assertTrue(store.add("bar@example.com")),
+      () -> assertTrue(store.add("foo@example.org")),
+      () -> assertTrue(store.contains("foo@example.com")),
+      () -> assertFalse(store.contains("baz@example.com")),
+      () -> assertFalse(store.contains("foo@example.net")),
+      () -> assertFalse(store.contains("no-at-sign")),
+      () -> assertFalse(store.contains(42)),
+      () -> assertEquals(3, store.size()),
+      () -> assertEquals(2, store.domainCount())
+    );
+  }
+
+  @Test
+  @DisplayName("Tests that iteration returns the addresses in the order they were added.")
+  void testIterationOrder() {
+    EmailStore store = new EmailStore();
+    List<String> emails = Arrays.asList("z@b.com", "a@a.com", "m@b.com", "a@b.com");
+    store.addAll(emails);
+    store.add("z@b.com");
+    assertEquals(emails, new ArrayList<>(store));
+  }
+
+  @Test
+  @DisplayName("Tests that the store equals a HashSet with the same addresses.")
+  void testSetView() {
+    EmailStore store = new EmailStore();
+    Set<String> expected = new HashSet<>(Arrays.asList("a@a.com", "b@a.com", "c@c.org"));
+    store.addAll(expected);
+    assertAll(
+      () -> assertEquals(expected, store),
+      () -> assertEquals(store, expected),
+      () -> assertEquals(expected.hashCode(), store.hashCode())
+    );
+  }
+
+  @Test
+  @DisplayName("Tests growing past the expected size, and more than 128 domains.")
+  void testGrow() {
+    EmailStore store = new EmailStore(4);
+    for (int i = 0; i < 100000; i++) {
+      assertTrue(store.add("person" + i + "@host" + (i % 1000) + ".example.edu"));
+    }
+    for (int i = 0; i < 100000; i++) {
+      assertTrue(store.contains("person" + i + "@host" + (i % 1000) + ".example.edu"));
+      assertFalse(store.add("person" + i + "@host" + (i % 1000) + ".example.edu"));
+    }
+    Iterator<String> it = store.iterator();
+    for (int i = 0; i < 100000; i++) {
+      assertEquals("person" + i + "@host" + (i % 1000) + ".example.edu", it.next());
+    }
+    assertAll(
+      () -> assertFalse(it.hasNext()),
+      () -> assertEquals(100000, store.size()),
+      () -> assertEquals(1000, store.domainCount()),
+      () -> assertTrue(store.sizeInBytes() < 100000 * 64)
+    );
+  }
+
+  @Test
+  @DisplayName("Tests that an iterator only sees the addresses added before it was made.")
+  void testSnapshot() {
+    EmailStore store = new EmailStore(2);
+    store.add("a@a.com");
+    Iterator<String> it = store.iterator();
+    for (int i = 0; i < 1000; i++) {
+      store.add("x" + i + "@d" + i + ".com");
+    }
+    store.clear();
+    store.add("b@b.com");
+    assertAll(
+      () -> assertEquals("a@a.com", it.next()),
+      () -> assertFalse(it.hasNext()),
+      () -> assertEquals(1, store.size()),
+      () -> assertFalse(store.contains("a@a.com")),
+      () -> assertTrue(store.contains("b@b.com"))
+    );
+  }
+
+  @Test
+  @DisplayName("Tests that addresses without an '@' or with a non-ASCII local part are refused.")
+  void testInvalid() {
+    EmailStore store = new EmailStore();
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> store.add("no-at-sign")),
+      () -> assertThrows(IllegalArgumentException.class, () -> store.add("caf\u00e9@example.com")),
+      () -> assertEquals(0, store.size())
+    );
+  }
+
+  @Test
+  @DisplayName("Tests adding the same addresses from several threads.")
+  void testConcurrentAdd() throws Exception {
+    EmailStore store = new EmailStore();
+    ExecutorService pool = Executors.newFixedThreadPool(4);
+    try {
+      List<Future<Integer>> results = new ArrayList<>();
+      for (int t = 0; t < 4; t++) {
+        results.add(pool.submit(() -> {
+          int added = 0;
+          for (int i = 0; i < 10000; i++) {
+            if (store.add("user" + i + "@example.com")) {
+              added++;
+            }
+          }
+          return added;
+        }));
+      }
+      int total = 0;
+      for (Future<Integer> result : results) {
+        total += result.get();
+      }
+      assertEquals(10000, total);
+      assertEquals(10000, store.size());
+    } finally {
+      pool.shutdown();
+    }
+  }
+}
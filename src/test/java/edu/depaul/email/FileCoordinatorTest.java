@@ -0,0 +1,132 @@
+package edu.depaul.email;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileCoordinatorTest {
+
+  @TempDir
+  Path dir;
+
+  @Test
+  @DisplayName("Tests that node numbers must be in range.")
+  void testNodeLimits() {
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> new FileCoordinator(dir, 0, 0)),
+      () -> assertThrows(IllegalArgumentException.class, () -> new FileCoordinator(dir, 2, 2)),
+      () -> assertThrows(IllegalArgumentException.class, () -> new FileCoordinator(dir, -1, 2)),
+      () -> assertThrows(IllegalArgumentException.class, () -> new FileCoordinator(dir, 0, 2).setResultTimeout(-1))
+    );
+  }
+
+  @Test
+  @DisplayName("Tests that every host belongs to exactly one node, and all nodes get some.")
+  void testOwnerOf() {
+    FileCoordinator first = new FileCoordinator(dir, 0, 4);
+    FileCoordinator second = new FileCoordinator(dir, 3, 4);
+    Set<Integer> owners = new HashSet<>();
+    for (int i = 0; i < 100; i++) {
+      String host = "http://host" + i + ".example.edu";
+      int owner = first.ownerOf(host + "/a");
+      assertEquals(owner, first.ownerOf(host + ":8080/b?c=d"));
+      assertEquals(owner, second.ownerOf(host + "/"));
+      owners.add(owner);
+    }
+    assertEquals(new HashSet<>(Arrays.asList(0, 1, 2, 3)), owners);
+  }
+
+  @Test
+  @DisplayName("Tests sending links to another node.")
+  void testSendReceive() {
+    FileCoordinator first = new FileCoordinator(dir, 0, 2);
+    FileCoordinator second = new FileCoordinator(dir, 1, 2);
+    first.send(1, Arrays.asList("http://b.com/1", "http://b.com/2"), 3);
+    first.send(1, Arrays.asList("http://b.com/3"), 4);
+    first.send(1, new ArrayList<>(), 5);
+
+    Map<String, Integer> links = new HashMap<>();
+    assertAll(
+      () -> assertEquals(0, first.receive(links::put)),
+      () -> assertEquals(3, second.receive(links::put)),
+      () -> assertEquals(0, second.receive(links::put)),
+      () -> assertEquals(3, (int) links.get("http://b.com/1")),
+      () -> assertEquals(4, (int) links.get("http://b.com/3")),
+      () -> assertEquals(3, links.size())
+    );
+  }
+
+  @Test
+  @DisplayName("Tests that the crawl only finishes once all nodes are idle and nothing is in flight.")
+  void testFinished() {
+    FileCoordinator first = new FileCoordinator(dir, 0, 2);
+    FileCoordinator second = new FileCoordinator(dir, 1, 2);
+    assertEquals(CrawlCoordinator.State.RUNNING, first.update(false, false, 0));
+    assertEquals(CrawlCoordinator.State.RUNNING, second.update(true, false, 2));
+
+    first.send(1, Arrays.asList("http://b.com/"), 1);
+    assertEquals(CrawlCoordinator.State.RUNNING, first.update(true, false, 0));
+    assertEquals(CrawlCoordinator.State.RUNNING, first.update(true, false, 0));
+    assertEquals(CrawlCoordinator.State.RUNNING, second.update(true, false, 2));
+    assertEquals(CrawlCoordinator.State.RUNNING, second.update(true, false, 2));
+
+    second.receive((url, depth) -> { });
+    assertEquals(CrawlCoordinator.State.RUNNING, second.update(true, false, 3));
+    assertEquals(CrawlCoordinator.State.FINISHED, second.update(true, false, 3));
+    assertEquals(CrawlCoordinator.State.RUNNING, first.update(true, false, 0));
+    assertEquals(CrawlCoordinator.State.FINISHED, first.update(true, false, 0));
+    assertEquals(3, first.getTotalEmails());
+  }
+
+  @Test
+  @DisplayName("Tests that one node stopping stops the others.")
+  void testStopped() {
+    FileCoordinator first = new FileCoordinator(dir, 0, 2);
+    FileCoordinator second = new FileCoordinator(dir, 1, 2);
+    first.update(false, false, 1);
+    assertEquals(CrawlCoordinator.State.RUNNING, second.update(false, false, 1));
+    first.update(true, true, 5);
+    assertEquals(CrawlCoordinator.State.STOPPED, second.update(false, false, 1));
+    assertEquals(6, second.getTotalEmails());
+  }
+
+  @Test
+  @DisplayName("Tests merging the results of every node.")
+  void testCollect() {
+    FileCoordinator first = new FileCoordinator(dir, 0, 2);
+    FileCoordinator second = new FileCoordinator(dir, 1, 2).setResultTimeout(0);
+    first.publish(Arrays.asList("a@a.com", "b@a.com"), Arrays.asList("http://a.com/"), new ArrayList<>());
+    assertThrows(EmailFinderException.class,
+        () -> second.collect(new ArrayList<>(), new ArrayList<>(), new ArrayList<>()));
+    second.publish(Arrays.asList("b@a.com", "c@b.com"), Arrays.asList("http://b.com/"),
+        Arrays.asList("http://b.com/404"));
+
+    List<String> emails = new ArrayList<>();
+    Set<String> good = new HashSet<>();
+    Set<String> bad = new HashSet<>();
+    first.collect(emails, good, bad);
+    assertAll(
+      () -> assertEquals(Arrays.asList("a@a.com", "b@a.com", "b@a.com", "c@b.com"), emails),
+      () -> assertEquals(new HashSet<>(Arrays.asList("http://a.com/", "http://b.com/")), good),
+      () -> assertEquals(new HashSet<>(Arrays.asList("http://b.com/404")), bad)
+    );
+  }
+
+  @Test
+  @DisplayName("Tests that a directory cannot be reused for another crawl.")
+  void testReuse() {
+    new FileCoordinator(dir, 0, 1).update(true, false, 0);
+    assertThrows(EmailFinderException.class, () -> new FileCoordinator(dir, 0, 1));
+  }
+}
@@ -0,0 +1,74 @@
+package edu.depaul.email;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FingerprintSetTest {
+  @Test
+  @DisplayName("Tests adding and looking up URLs.")
+  void testAdd() {
+    FingerprintSet set = new FingerprintSet();
+    assertAll(
+      () -> assertTrue(set.add("http://a.com/")),
+      () -> assertFalse(set.add("http://a.com/")),
+      () -> assertTrue(set.contains("http://a.com/")),
+      () -> assertFalse(set.contains("http://b.com/")),
+      () -> assertEquals(1, set.size())
+    );
+  }
+
+  @Test
+  @DisplayName("Tests that the tables grow past the expected size, on and off heap.")
+  void testGrow() {
+    for (boolean offHeap : new boolean[] {false, true}) {
+      FingerprintSet set = new FingerprintSet(16, offHeap);
+      long before = set.sizeInBytes();
+      for (int i = 0; i < 100000; i++) {
+        assertTrue(set.add("http://example.com/page" + i));
+      }
+      for (int i = 0; i < 100000; i++) {
+        assertTrue(set.contains("http://example.com/page" + i));
+        assertFalse(set.add("http://example.com/page" + i));
+      }
+      assertEquals(100000, set.size());
+      assertTrue(set.sizeInBytes() > before);
+      assertTrue(set.sizeInBytes() <= 100000 * 8 * 4);
+    }
+  }
+
+  @Test
+  @DisplayName("Tests that each URL is reported new exactly once across threads.")
+  void testConcurrentAdd() throws Exception {
+    FingerprintSet set = new FingerprintSet(1000, true);
+    AtomicInteger added = new AtomicInteger();
+    ExecutorService pool = Executors.newFixedThreadPool(8);
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int t = 0; t < 8; t++) {
+        futures.add(pool.submit(() -> {
+          for (int i = 0; i < 20000; i++) {
+            if (set.add("http://example.com/" + i)) {
+              added.incrementAndGet();
+            }
+          }
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    } finally {
+      pool.shutdown();
+    }
+    assertEquals(20000, added.get());
+    assertEquals(20000, set.size());
+  }
+}
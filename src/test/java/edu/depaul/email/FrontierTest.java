@@ -0,0 +1,196 @@
+package edu.depaul.email;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FrontierTest {
+  @Test
+  @DisplayName("Tests that URLs come out of the frontier in the order they were added.")
+  void testFifoOrder() throws InterruptedException {
+    Frontier frontier = new Frontier();
+    frontier.add("a");
+    frontier.add("b");
+    assertEquals("a", frontier.take());
+    assertEquals("b", frontier.take());
+  }
+
+  @Test
+  @Timeout(5)
+  @DisplayName("Tests that take() returns null once the queue is empty and nothing is in progress.")
+  void testExhausted() throws InterruptedException {
+    Frontier frontier = new Frontier();
+    frontier.add("a");
+    String url = frontier.take();
+    frontier.done(url);
+    assertNull(frontier.take());
+  }
+
+  @Test
+  @Timeout(5)
+  @DisplayName("Tests that take() waits for URLs added by a page still in progress.")
+  void testWaitsForActiveWork() throws InterruptedException {
+    Frontier frontier = new Frontier();
+    frontier.add("a");
+    String url = frontier.take();
+
+    Thread worker = new Thread(() -> {
+      frontier.add("b");
+      frontier.done(url);
+    });
+    worker.start();
+
+    assertEquals("b", frontier.take());
+    worker.join();
+  }
+
+  @Test
+  @Timeout(5)
+  @DisplayName("Tests that closing the frontier drops queued URLs and releases waiters.")
+  void testClose() throws InterruptedException {
+    Frontier frontier = new Frontier();
+    frontier.add("a");
+    frontier.add("b");
+    frontier.take();
+    frontier.close();
+    frontier.add("c");
+    assertAll(
+      () -> assertTrue(frontier.isClosed()),
+      () -> assertEquals(0, frontier.size()),
+      () -> assertNull(frontier.take())
+    );
+  }
+
+  @Test
+  @DisplayName("Tests that hosts are served round-robin.")
+  void testRoundRobinHosts() throws InterruptedException {
+    Frontier frontier = new Frontier();
+    frontier.add("http://a.com/1");
+    frontier.add("http://a.com/2");
+    frontier.add("http://b.com/1");
+    assertEquals("http://a.com/1", frontier.take());
+    assertEquals("http://b.com/1", frontier.take());
+    assertEquals("http://a.com/2", frontier.take());
+  }
+
+  @Test
+  @Timeout(5)
+  @DisplayName("Tests that a busy host is skipped in favour of other hosts.")
+  void testSkipsBusyHost() throws InterruptedException {
+    Frontier frontier = new Frontier(new HostScheduler(0, 1));
+    frontier.add("http://a.com/1");
+    frontier.add("http://a.com/2");
+    frontier.add("http://b.com/1");
+    frontier.add("http://b.com/2");
+    assertEquals("http://a.com/1", frontier.take());
+    assertEquals("http://b.com/1", frontier.take());
+
+    frontier.done("http://b.com/1");
+    assertEquals("http://b.com/2", frontier.take());
+  }
+
+  @Test
+  @Timeout(5)
+  @DisplayName("Tests that fetched() frees the host but keeps the URL in progress until finished().")
+  void testFetchedThenFinished() throws InterruptedException {
+    Frontier frontier = new Frontier(new HostScheduler(0, 1));
+    frontier.add("http://a.com/1");
+    frontier.add("http://a.com/2");
+    String first = frontier.take();
+    frontier.fetched(first);
+    String second = frontier.take();
+    assertEquals("http://a.com/2", second);
+    frontier.done(second);
+
+    Thread store = new Thread(() -> {
+      frontier.add("http://a.com/3");
+      frontier.finished(first);
+    });
+    store.start();
+
+    assertEquals("http://a.com/3", frontier.take());
+    store.join();
+  }
+
+  @Test
+  @DisplayName("Tests that depth-first traversal hands out the newest URL of a host first.")
+  void testDepthFirst() throws InterruptedException {
+    Frontier frontier = new Frontier(new HostScheduler(), Frontier.Traversal.DFS);
+    frontier.add("http://a.com/1");
+    frontier.add("http://a.com/2");
+    frontier.add("http://a.com/3");
+    assertEquals("http://a.com/3", frontier.take());
+    assertEquals("http://a.com/2", frontier.take());
+    assertEquals("http://a.com/1", frontier.take());
+  }
+
+  @Test
+  @DisplayName("Tests that best-first traversal hands out the highest score first, oldest first on ties.")
+  void testBestFirst() throws InterruptedException {
+    Frontier frontier = new Frontier(new HostScheduler(), Frontier.Traversal.BEST_FIRST);
+    frontier.add("http://a.com/news", 1, 0);
+    frontier.add("http://a.com/staff", 1, 1);
+    frontier.add("http://a.com/events", 1, 0);
+    frontier.add("http://a.com/contact", 2, 2);
+    assertEquals("http://a.com/contact", frontier.take());
+    assertEquals("http://a.com/staff", frontier.take());
+    assertEquals("http://a.com/news", frontier.take());
+    assertEquals("http://a.com/events", frontier.take());
+  }
+
+  @Test
+  @DisplayName("Tests adding the links of one page together.")
+  void testAddLinks() throws InterruptedException {
+    Frontier frontier = new Frontier(new HostScheduler(), Frontier.Traversal.BEST_FIRST);
+    frontier.add(Arrays.asList("http://a.com/news", "http://a.com/staff", "http://b.com/"), 2,
+        new double[] {0, 1, 0});
+    frontier.add(Collections.emptyList(), 2, new double[0]);
+    assertEquals(3, frontier.size());
+    assertEquals("http://a.com/staff", frontier.take());
+    assertEquals(2, frontier.depthOf("http://a.com/staff"));
+    assertEquals("http://b.com/", frontier.take());
+    assertEquals("http://a.com/news", frontier.take());
+  }
+
+  @Test
+  @Timeout(5)
+  @DisplayName("Tests that a held frontier waits for URLs until it is released.")
+  void testHold() throws Exception {
+    Frontier frontier = new Frontier();
+    frontier.hold();
+    assertTrue(frontier.isIdle());
+    Thread later = new Thread(() -> {
+      try {
+        Thread.sleep(100);
+        frontier.add("http://a.com/");
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+    later.start();
+    assertEquals("http://a.com/", frontier.take());
+    assertFalse(frontier.isIdle());
+    frontier.done("http://a.com/");
+    assertTrue(frontier.isIdle());
+    frontier.release();
+    assertNull(frontier.take());
+    later.join();
+  }
+
+  @Test
+  @DisplayName("Tests that the depth of a URL is known until it is finished.")
+  void testDepthOf() throws InterruptedException {
+    Frontier frontier = new Frontier();
+    frontier.add("http://a.com/1", 3, 0);
+    String url = frontier.take();
+    frontier.fetched(url);
+    assertEquals(3, frontier.depthOf(url));
+    frontier.finished(url);
+    assertEquals(0, frontier.depthOf(url));
+  }
+}
@@ -0,0 +1,85 @@
+package edu.depaul.email;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+
+import edu.depaul.email.StorageService.StorageType;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class H2StorageBackendTest {
+  @Test
+  @DisplayName("Tests that appended items are stored once and provenance is kept.")
+  void testAppend(@TempDir Path dir) {
+    H2StorageBackend backend = new H2StorageBackend("jdbc:h2:" + dir.resolve("results").toAbsolutePath(), 2);
+    backend.open();
+    backend.append(StorageType.EMAIL, "foo@gmail.com");
+    backend.appendSource("foo@gmail.com", "http://a.com/1");
+    backend.append(StorageType.EMAIL, "foo@gmail.com");
+    backend.appendSource("foo@gmail.com", "http://a.com/2");
+    backend.appendSource("foo@gmail.com", "http://a.com/2");
+    backend.appendSource("bar@gmail.com", "http://a.com/2");
+    backend.append(StorageType.GOODLINKS, "http://a.com/1");
+    backend.append(StorageType.BADLINKS, "http://a.com/3");
+    backend.close();
+
+    H2StorageBackend reopened = new H2StorageBackend("jdbc:h2:" + dir.resolve("results").toAbsolutePath(), 2);
+    try {
+      assertAll(
+        () -> assertEquals(Collections.singleton("foo@gmail.com"), reopened.list(StorageType.EMAIL)),
+        () -> assertEquals(Collections.singleton("http://a.com/1"), reopened.list(StorageType.GOODLINKS)),
+        () -> assertEquals(Collections.singleton("http://a.com/3"), reopened.list(StorageType.BADLINKS)),
+        () -> assertEquals(new HashSet<>(Arrays.asList("http://a.com/1", "http://a.com/2")),
+            reopened.pagesFor("foo@gmail.com")),
+        () -> assertEquals(new HashSet<>(Arrays.asList("bar@gmail.com", "foo@gmail.com")),
+            reopened.emailsOn("http://a.com/2"))
+      );
+    } finally {
+      reopened.close();
+    }
+  }
+
+  @Test
+  @DisplayName("Tests that storeList() replaces a list.")
+  void testStoreList() {
+    H2StorageBackend backend = new H2StorageBackend("jdbc:h2:mem:store-list", 10);
+    try {
+      backend.storeList(StorageType.EMAIL, Arrays.asList("a@b.com", "c@d.com", "a@b.com"));
+      assertEquals(new HashSet<>(Arrays.asList("a@b.com", "c@d.com")), backend.list(StorageType.EMAIL));
+      backend.storeList(StorageType.EMAIL, Arrays.asList("e@f.com"));
+      assertEquals(Collections.singleton("e@f.com"), backend.list(StorageType.EMAIL));
+    } finally {
+      backend.close();
+    }
+  }
+
+  @Test
+  @DisplayName("Tests a crawl stored through StorageService into the database.")
+  void testCrawl(@TempDir Path dir) {
+    H2StorageBackend backend = new H2StorageBackend("jdbc:h2:" + dir.resolve("crawl").toAbsolutePath(), 100);
+    StorageService storage = new StorageService().setBackend(backend);
+    PageCrawler crawler = new PageCrawler(storage, 50, 2).setIncremental(true);
+
+    String url = Paths.get("src", "test", "resources", "test-4.html").toAbsolutePath().toString();
+    crawler.crawl(url);
+    crawler.report();
+
+    try {
+      assertEquals(new HashSet<>(Arrays.asList("bar@gmail.com", "baz@gmail.com", "foo@gmail.com")),
+          backend.list(StorageType.EMAIL));
+      assertTrue(backend.list(StorageType.GOODLINKS).contains(url));
+      for (String email : backend.list(StorageType.EMAIL)) {
+        assertFalse(backend.pagesFor(email).isEmpty());
+      }
+    } finally {
+      backend.close();
+    }
+  }
+}
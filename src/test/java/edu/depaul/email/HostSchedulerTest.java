@@ -0,0 +1,92 @@
+package edu.depaul.email;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class HostSchedulerTest {
+  private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+  @ParameterizedTest
+  @CsvSource({
+    "http://www.Example.com/a/b.html, www.example.com",
+    "https://example.com:8080/x, example.com",
+    "http://user@example.com?q=1, example.com",
+    "http://example.com, example.com",
+    "http://user:pw@Example.com/x, example.com",
+    "http://user:pw@example.com:8080, example.com",
+    "http://a@b:c@example.com/x?d=e@f, example.com",
+    "HTTP://Example.com/, example.com",
+    "Https://example.com#top, example.com",
+    "http://[::1]:8080/x, [::1]",
+    "http://[::1]/x, [::1]",
+    "/home/me/page.html, ''"
+  })
+  @DisplayName("Tests extracting the host name from a URL.")
+  void testHostOf(String url, String expected) {
+    assertEquals(expected, HostScheduler.hostOf(url));
+  }
+
+  @Test
+  @DisplayName("Tests that an unlimited scheduler always lets requests through.")
+  void testUnlimited() {
+    HostScheduler scheduler = new HostScheduler();
+    for (int i = 0; i < 100; i++) {
+      assertEquals(0, scheduler.tryAcquire("example.com", 0));
+    }
+  }
+
+  @Test
+  @DisplayName("Tests the per-host requests-per-second limit.")
+  void testRateLimit() {
+    HostScheduler scheduler = new HostScheduler(2, 0);
+    assertEquals(0, scheduler.tryAcquire("example.com", 0));
+    assertEquals(0, scheduler.tryAcquire("example.com", 0));
+    long wait = scheduler.tryAcquire("example.com", 0);
+    assertAll(
+      () -> assertEquals(SECOND / 2, wait),
+      () -> assertEquals(0, scheduler.tryAcquire("other.com", 0)),
+      () -> assertEquals(0, scheduler.tryAcquire("example.com", SECOND / 2))
+    );
+  }
+
+  @Test
+  @DisplayName("Tests the per-host concurrency cap.")
+  void testConcurrencyCap() {
+    HostScheduler scheduler = new HostScheduler(0, 1);
+    assertEquals(0, scheduler.tryAcquire("example.com", 0));
+    assertEquals(HostScheduler.BUSY, scheduler.tryAcquire("example.com", 0));
+    scheduler.release("example.com");
+    assertEquals(0, scheduler.tryAcquire("example.com", 0));
+  }
+
+  @Test
+  @DisplayName("Tests that backoff grows with each refusal and is cleared by a success.")
+  void testBackoff() {
+    HostScheduler scheduler = new HostScheduler();
+    scheduler.backoff("example.com", 0);
+    long first = scheduler.tryAcquire("example.com", 0);
+    scheduler.backoff("example.com", 0);
+    long second = scheduler.tryAcquire("example.com", 0);
+    assertTrue(first > 0);
+    assertEquals(2 * first, second);
+
+    scheduler.success("example.com");
+    scheduler.backoff("example.com", 0);
+    assertEquals(first, scheduler.tryAcquire("example.com", 0));
+  }
+
+  @Test
+  @DisplayName("Tests that local files are never throttled.")
+  void testLocalFilesUnlimited() {
+    HostScheduler scheduler = new HostScheduler(1, 1);
+    for (int i = 0; i < 10; i++) {
+      assertEquals(0, scheduler.tryAcquire("", 0));
+    }
+  }
+}
@@ -0,0 +1,35 @@
+package edu.depaul.email;
+
+import java.util.Arrays;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class KeywordScorerTest {
+
+  @ParameterizedTest
+  @CsvSource({
+    "http://cdm.depaul.edu/contact.html, 1",
+    "http://cdm.depaul.edu/Faculty-Staff/Directory, 3",
+    "http://staff.depaul.edu/people, 2",
+    "http://cdm.depaul.edu/news/2020, 0"
+  })
+  @DisplayName("Tests scoring URLs with the default keywords.")
+  void testDefaultKeywords(String url, double expected) {
+    assertEquals(expected, new KeywordScorer().score(url, 1));
+  }
+
+  @Test
+  @DisplayName("Tests scoring URLs with custom keywords, ignoring case.")
+  void testCustomKeywords() {
+    KeywordScorer scorer = new KeywordScorer(Arrays.asList("Admissions", "apply"));
+    assertAll(
+      () -> assertEquals(2, scorer.score("http://x.edu/ADMISSIONS/apply", 0)),
+      () -> assertEquals(0, scorer.score("http://x.edu/contact", 0))
+    );
+  }
+}
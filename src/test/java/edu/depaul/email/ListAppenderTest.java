@@ -0,0 +1,37 @@
+package edu.depaul.email;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ListAppenderTest {
+  @Test
+  @DisplayName("Tests that items reach the stream once a batch is full.")
+  void testBatch() throws IOException {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    ListAppender appender = new ListAppender(stream, 2);
+
+    appender.append("one");
+    assertEquals("", stream.toString());
+    appender.append("two");
+    assertEquals("one\ntwo\n", stream.toString());
+  }
+
+  @Test
+  @DisplayName("Tests that flush() and close() write out a partial batch.")
+  void testFlush() throws IOException {
+    ByteArrayOutputStream stream = new ByteArrayOutputStream();
+    ListAppender appender = new ListAppender(stream, 10);
+
+    appender.append("one");
+    appender.flush();
+    assertEquals("one\n", stream.toString());
+    appender.append("two");
+    appender.close();
+    assertEquals("one\ntwo\n", stream.toString());
+  }
+}
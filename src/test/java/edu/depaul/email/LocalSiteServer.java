@@ -0,0 +1,163 @@
+package edu.depaul.email;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Serves a SiteGenerator site from an embedded HTTP server on the loopback
+ * interface, so crawls can be tested and benchmarked without a network.
+ * Each response can be delayed to imitate a slow host, and a fixed share
+ * of pages can be made to fail with HTTP 500.  Which pages fail depends
+ * only on the page number, so repeated crawls see the same errors.
+ * Pages carry an ETag, and a request whose If-None-Match matches it gets
+ * 304 Not Modified.
+ */
+class LocalSiteServer implements AutoCloseable {
+
+  private final SiteGenerator site;
+  private final HttpServer server;
+  private final ExecutorService threads;
+  private final AtomicLong requests = new AtomicLong();
+  private final AtomicLong notModified = new AtomicLong();
+  private volatile long latencyMillis = 0;
+  private volatile long jitterMillis = 0;
+  private volatile double errorRate = 0;
+  private volatile String[] hosts = {"127.0.0.1"};
+
+  LocalSiteServer(SiteGenerator site) throws IOException {
+    this.site = site;
+    this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 1024);
+    this.threads = Executors.newCachedThreadPool(runnable -> {
+      Thread thread = new Thread(runnable, "local-site");
+      thread.setDaemon(true);
+      return thread;
+    });
+    server.createContext("/", this::handle);
+    server.setExecutor(threads);
+    server.start();
+  }
+
+  /**
+   * Delays every response by latency plus a random amount up to jitter.
+   */
+  LocalSiteServer withLatency(long latency, long jitter) {
+    this.latencyMillis = latency;
+    this.jitterMillis = jitter;
+    return this;
+  }
+
+  /**
+   * Makes roughly the given fraction of pages answer with HTTP 500.
+   */
+  LocalSiteServer withErrorRate(double rate) {
+    this.errorRate = rate;
+    return this;
+  }
+
+  /**
+   * Spreads the pages over several names for the loopback address (such
+   * as 127.0.0.1 and localhost): page i is linked to, and served, as
+   * belonging to host i modulo the number of hosts.
+   */
+  LocalSiteServer withHosts(String... hosts) {
+    this.hosts = hosts;
+    return this;
+  }
+
+  String prefix(int page) {
+    return "http://" + hosts[page % hosts.length] + ":" + server.getAddress().getPort() + "/";
+  }
+
+  String url(int page) {
+    return prefix(page) + SiteGenerator.pageName(page);
+  }
+
+  String rootUrl() {
+    return url(0);
+  }
+
+  /**
+   * True if the given page is one of those set up to fail.
+   */
+  boolean fails(int page) {
+    return page != 0 && Math.floorMod(page * 0x9E3779B9, 1000) < errorRate * 1000;
+  }
+
+  long requestCount() {
+    return requests.get();
+  }
+
+  long notModifiedCount() {
+    return notModified.get();
+  }
+
+  private void handle(HttpExchange exchange) throws IOException {
+    requests.incrementAndGet();
+    try {
+      pause();
+      int page = pageNumber(exchange.getRequestURI().getPath());
+      if (page < 0 || page >= site.getPageCount()) {
+        exchange.sendResponseHeaders(404, -1);
+      } else if (fails(page)) {
+        exchange.sendResponseHeaders(500, -1);
+      } else if (etag(page).equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+        notModified.incrementAndGet();
+        exchange.sendResponseHeaders(304, -1);
+      } else {
+        byte[] body = site.page(page, this::prefix).getBytes(StandardCharsets.UTF_8);
+        exchange.getResponseHeaders().add("Content-Type", "text/html; charset=UTF-8");
+        exchange.getResponseHeaders().add("ETag", etag(page));
+        exchange.sendResponseHeaders(200, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(body);
+        }
+      }
+    } finally {
+      exchange.close();
+    }
+  }
+
+  private static String etag(int page) {
+    return "\"page-" + page + "\"";
+  }
+
+  private void pause() {
+    long delay = latencyMillis;
+    if (jitterMillis > 0) {
+      delay += ThreadLocalRandom.current().nextLong(jitterMillis + 1);
+    }
+    if (delay > 0) {
+      try {
+        Thread.sleep(delay);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private static int pageNumber(String path) {
+    if (!path.startsWith("/page-") || !path.endsWith(".html")) {
+      return -1;
+    }
+    try {
+      return Integer.parseInt(path.substring(6, path.length() - 5));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  @Override
+  public void close() {
+    server.stop(0);
+    threads.shutdownNow();
+  }
+}
@@ -3,20 +3,34 @@ package edu.depaul.email;
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryNotEmptyException;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 
 class PageCrawlerTest {
   private static final String EMAIL_PATH = "src/test/resources/email.txt";
@@ -251,4 +265,394 @@ class PageCrawlerTest {
     String url = System.getProperty("user.dir") + "\\src\\test\\resources\\test-2.html";
     crawler.crawl(url);
   }
-}
\ No newline at end of file
+
+  @Test
+  @DisplayName("Tests that a crawler cannot be created without any workers.")
+  void testConstructorNoWorkers() {
+    StorageService storage = mock(StorageService.class);
+    assertThrows(IllegalArgumentException.class, () -> new PageCrawler(storage, 20, 0));
+  }
+
+  @Test
+  @Timeout(10)
+  @DisplayName("Tests email detection with several worker threads.")
+  void testCrawlEmailsConcurrent() {
+    StorageService storage = mock(StorageService.class);
+    PageCrawler crawler = new PageCrawler(storage, 50, 4);
+
+    String url = Paths.get("src", "test", "resources", "test-4.html").toAbsolutePath().toString();
+    crawler.crawl(url);
+
+    Set<String> expected = new HashSet<String>();
+    expected.add("foo@gmail.com");
+    expected.add("bar@gmail.com");
+    expected.add("baz@gmail.com");
+
+    assertAll(
+      () -> assertEquals(expected, crawler.getEmails()),
+      () -> assertTrue(crawler.getGoodLinks().contains(url)),
+      () -> assertTrue(crawler.getBadLinks().isEmpty())
+    );
+  }
+
+  @Test
+  @Timeout(10)
+  @DisplayName("Tests email detection in streaming mode.")
+  void testCrawlEmailsStreaming() {
+    StorageService storage = mock(StorageService.class);
+    PageCrawler crawler = new PageCrawler(storage, 50, 2).setStreaming(true);
+
+    String url = Paths.get("src", "test", "resources", "test-4.html").toAbsolutePath().toString();
+    crawler.crawl(url);
+
+    Set<String> expected = new HashSet<String>();
+    expected.add("foo@gmail.com");
+    expected.add("bar@gmail.com");
+    expected.add("baz@gmail.com");
+
+    assertEquals(expected, crawler.getEmails());
+  }
+
+  @Test
+  @Timeout(10)
+  @DisplayName("Tests email detection in the raw bytes of each page.")
+  void testCrawlEmailsByteScan() {
+    StorageService storage = mock(StorageService.class);
+    PageCrawler crawler = new PageCrawler(storage, 50, 2).setByteScan(true);
+
+    String url = Paths.get("src", "test", "resources", "test-4.html").toAbsolutePath().toString();
+    crawler.crawl(url);
+
+    Set<String> expected = new HashSet<String>();
+    expected.add("foo@gmail.com");
+    expected.add("bar@gmail.com");
+    expected.add("baz@gmail.com");
+
+    assertEquals(expected, crawler.getEmails());
+  }
+
+  @Test
+  @Timeout(10)
+  @DisplayName("Tests that spellings of one address are counted once and image names are dropped.")
+  void testCrawlEmailsNormalized() {
+    StorageService storage = mock(StorageService.class);
+    PageCrawler crawler = new PageCrawler(storage, 2, 2);
+
+    String url = Paths.get("src", "test", "resources", "test-8.html").toAbsolutePath().toString();
+    crawler.crawl(url);
+
+    Set<String> expected = new HashSet<String>();
+    expected.add("foo@gmail.com");
+    expected.add("bar@gmail.com");
+
+    assertEquals(expected, crawler.getEmails());
+  }
+
+  @Test
+  @Timeout(10)
+  @DisplayName("Tests email detection with a Bloom filter visited set.")
+  void testCrawlEmailsBloom() {
+    StorageService storage = mock(StorageService.class);
+    PageCrawler crawler = new PageCrawler(storage, 50, 2).setVisitedSet(new BloomVisitedSet(1000));
+
+    String url = Paths.get("src", "test", "resources", "test-4.html").toAbsolutePath().toString();
+    crawler.crawl(url);
+
+    Set<String> expected = new HashSet<String>();
+    expected.add("foo@gmail.com");
+    expected.add("bar@gmail.com");
+    expected.add("baz@gmail.com");
+
+    assertEquals(expected, crawler.getEmails());
+  }
+
+  @Test
+  @Timeout(10)
+  @DisplayName("Tests writing results to storage as they are found.")
+  void testCrawlIncremental() {
+    StorageService storage = mock(StorageService.class);
+    PageCrawler crawler = new PageCrawler(storage, 50, 2).setIncremental(true);
+
+    String url = Paths.get("src", "test", "resources", "test-4.html").toAbsolutePath().toString();
+    crawler.crawl(url);
+    crawler.report();
+
+    InOrder order = inOrder(storage);
+    order.verify(storage).open();
+    order.verify(storage).append(StorageService.StorageType.GOODLINKS, url);
+    order.verify(storage).close();
+    verify(storage).append(StorageService.StorageType.EMAIL, "foo@gmail.com");
+    verify(storage).append(StorageService.StorageType.EMAIL, "bar@gmail.com");
+    verify(storage).append(StorageService.StorageType.EMAIL, "baz@gmail.com");
+    verify(storage, never()).storeList(any(), any());
+    assertTrue(crawler.getGoodLinks().isEmpty());
+  }
+
+  @Test
+  @Timeout(30)
+  @DisplayName("Tests a concurrent crawl of a generated site served over HTTP with slow and failing pages.")
+  void testCrawlLocalSite() throws IOException {
+    SiteGenerator site = new SiteGenerator(200, 4, 10, 2, 1024, 7);
+    try (LocalSiteServer server = new LocalSiteServer(site).withLatency(5, 5).withErrorRate(0.1)) {
+      StorageService storage = mock(StorageService.class);
+      PageCrawler crawler = new PageCrawler(storage, Integer.MAX_VALUE, 16);
+      crawler.crawl(server.rootUrl());
+
+      // Work out which pages can be reached when failing pages yield no links
+      Set<String> expectedGood = new HashSet<String>();
+      Set<String> expectedBad = new HashSet<String>();
+      Set<String> expectedEmails = new HashSet<String>();
+      Set<Integer> seen = new HashSet<Integer>();
+      List<Integer> queue = new ArrayList<Integer>();
+      queue.add(0);
+      seen.add(0);
+      while (!queue.isEmpty()) {
+        int page = queue.remove(queue.size() - 1);
+        if (server.fails(page)) {
+          expectedBad.add(server.url(page));
+          continue;
+        }
+        expectedGood.add(server.url(page));
+        expectedEmails.addAll(site.emailsOf(page));
+        for (int link : site.linksOf(page)) {
+          if (seen.add(link)) {
+            queue.add(link);
+          }
+        }
+      }
+
+      assertFalse(expectedBad.isEmpty());
+      assertEquals(expectedGood, crawler.getGoodLinks());
+      assertEquals(expectedBad, crawler.getBadLinks());
+      assertEquals(expectedGood.size(), crawler.getMetrics().getPagesFetched());
+      assertEquals(expectedBad.size(), crawler.getMetrics().getPagesFailed());
+      assertTrue(crawler.getMetrics().getBytesFetched() > 0);
+      assertEquals(expectedEmails, crawler.getEmails());
+    }
+  }
+
+  @Test
+  @Timeout(30)
+  @DisplayName("Tests that a crawl completes when the parse and store stages hold one page at a time.")
+  void testCrawlNarrowPipeline() throws IOException {
+    SiteGenerator site = new SiteGenerator(100, 4, 10, 2, 1024, 11);
+    try (LocalSiteServer server = new LocalSiteServer(site)) {
+      StorageService storage = mock(StorageService.class);
+      PageCrawler crawler = new PageCrawler(storage, Integer.MAX_VALUE, 16)
+          .setParseWorkers(1)
+          .setStageCapacity(1);
+      crawler.crawl(server.rootUrl());
+
+      assertAll(
+        () -> assertEquals(100, crawler.getGoodLinks().size()),
+        () -> assertTrue(crawler.getBadLinks().isEmpty()),
+        () -> assertEquals(site.allEmails(), crawler.getEmails()),
+        () -> assertEquals(0, crawler.getMetrics().getParseQueueDepth()),
+        () -> assertEquals(0, crawler.getMetrics().getStoreQueueDepth())
+      );
+    }
+  }
+
+  @Test
+  @DisplayName("Tests that the pipeline needs at least one parse worker and one queue slot.")
+  void testPipelineLimits() {
+    PageCrawler crawler = new PageCrawler(mock(StorageService.class));
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> crawler.setParseWorkers(0)),
+      () -> assertThrows(IllegalArgumentException.class, () -> crawler.setStageCapacity(0))
+    );
+  }
+
+  @Test
+  @Timeout(30)
+  @DisplayName("Tests that a concurrent crawl keeps exactly the maximum number of emails.")
+  void testStopsAtMaxEmails() throws IOException {
+    SiteGenerator site = new SiteGenerator(500, 4, 10, 2, 1024, 3);
+    try (LocalSiteServer server = new LocalSiteServer(site).withLatency(5, 5)) {
+      StorageService storage = mock(StorageService.class);
+      PageCrawler crawler = new PageCrawler(storage, 25, 16);
+      crawler.crawl(server.rootUrl());
+
+      // Every page has two new emails, so the 13th page reaches the limit
+      assertAll(
+        () -> assertEquals(25, crawler.getEmails().size()),
+        () -> assertTrue(site.allEmails().containsAll(crawler.getEmails())),
+        () -> assertEquals(13, crawler.getGoodLinks().size()),
+        () -> assertEquals(25, crawler.getMetrics().getEmailsFound())
+      );
+    }
+  }
+
+  @Test
+  @Timeout(30)
+  @DisplayName("Tests that an incremental crawl writes exactly the maximum number of emails.")
+  void testStopsAtMaxEmailsIncremental() throws IOException {
+    SiteGenerator site = new SiteGenerator(500, 4, 10, 3, 1024, 3);
+    try (LocalSiteServer server = new LocalSiteServer(site).withLatency(5, 5)) {
+      StorageService storage = mock(StorageService.class);
+      PageCrawler crawler = new PageCrawler(storage, 10, 16).setIncremental(true);
+      crawler.crawl(server.rootUrl());
+      crawler.report();
+
+      verify(storage, times(10)).append(eq(StorageService.StorageType.EMAIL), any());
+      verify(storage, times(4)).append(eq(StorageService.StorageType.GOODLINKS), any());
+      verify(storage, times(10)).appendSource(any(), any());
+    }
+  }
+
+  @Test
+  @Timeout(30)
+  @DisplayName("Tests that links beyond the maximum depth are not followed.")
+  void testMaxDepth() throws IOException {
+    SiteGenerator site = new SiteGenerator(200, 4, 10, 1, 256, 5);
+    try (LocalSiteServer server = new LocalSiteServer(site)) {
+      StorageService storage = mock(StorageService.class);
+      PageCrawler crawler = new PageCrawler(storage, Integer.MAX_VALUE, 8).setMaxDepth(1);
+      crawler.crawl(server.rootUrl());
+
+      Set<String> expected = new HashSet<String>();
+      expected.add(server.url(0));
+      for (int link : site.linksOf(0)) {
+        expected.add(server.url(link));
+      }
+      assertEquals(expected, crawler.getGoodLinks());
+    }
+  }
+
+  @Test
+  @Timeout(30)
+  @DisplayName("Tests that the crawl stops after the maximum number of pages.")
+  void testMaxPages() throws IOException {
+    SiteGenerator site = new SiteGenerator(200, 4, 10, 1, 256, 5);
+    try (LocalSiteServer server = new LocalSiteServer(site)) {
+      StorageService storage = mock(StorageService.class);
+      PageCrawler crawler = new PageCrawler(storage, Integer.MAX_VALUE, 16).setMaxPages(7);
+      crawler.crawl(server.rootUrl());
+
+      assertAll(
+        () -> assertEquals(7, crawler.getGoodLinks().size()),
+        () -> assertEquals(7, crawler.getEmails().size())
+      );
+    }
+  }
+
+  @Test
+  @Timeout(30)
+  @DisplayName("Tests that best-first traversal fetches the highest scoring link next.")
+  void testBestFirst() throws IOException {
+    SiteGenerator site = new SiteGenerator(200, 4, 10, 1, 256, 5);
+    try (LocalSiteServer server = new LocalSiteServer(site)) {
+      StorageService storage = mock(StorageService.class);
+      PageCrawler crawler = new PageCrawler(storage, Integer.MAX_VALUE, 1)
+          .setTraversal(Frontier.Traversal.BEST_FIRST)
+          .setLinkScorer((url, depth) -> url.endsWith(SiteGenerator.pageName(3)) ? 1 : 0)
+          .setMaxPages(2);
+      crawler.crawl(server.rootUrl());
+
+      Set<String> expected = new HashSet<String>();
+      expected.add(server.url(0));
+      expected.add(server.url(3));
+      assertEquals(expected, crawler.getGoodLinks());
+    }
+  }
+
+  /**
+   * Runs one crawler per node on its own thread, sharing the directory,
+   * and returns them once they have all reported.
+   */
+  private List<PageCrawler> crawlCluster(Path dir, String url, int nodes, int maxEmails,
+      List<StorageService> storages) throws Exception {
+    ExecutorService threads = Executors.newFixedThreadPool(nodes);
+    try {
+      List<PageCrawler> crawlers = new ArrayList<>();
+      List<Future<?>> runs = new ArrayList<>();
+      for (int i = 0; i < nodes; i++) {
+        StorageService storage = mock(StorageService.class);
+        PageCrawler crawler = new PageCrawler(storage, maxEmails, 4)
+            .setCoordinator(new FileCoordinator(dir, i, nodes));
+        storages.add(storage);
+        crawlers.add(crawler);
+        runs.add(threads.submit(() -> {
+          crawler.crawl(url);
+          crawler.report();
+        }));
+      }
+      for (Future<?> run : runs) {
+        run.get();
+      }
+      return crawlers;
+    } finally {
+      threads.shutdownNow();
+    }
+  }
+
+  @SuppressWarnings("unchecked")
+  private static Set<String> stored(StorageService storage, StorageService.StorageType type) {
+    ArgumentCaptor<Collection<String>> list = ArgumentCaptor.forClass(Collection.class);
+    verify(storage).storeList(eq(type), list.capture());
+    return new HashSet<>(list.getValue());
+  }
+
+  @Test
+  @Timeout(30)
+  @DisplayName("Tests a crawl shared by three nodes, each fetching only its own hosts.")
+  void testDistributedCrawl(@TempDir Path dir) throws Exception {
+    SiteGenerator site = new SiteGenerator(100, 4, 10, 1, 256, 11);
+    try (LocalSiteServer server = new LocalSiteServer(site).withHosts("127.0.0.1", "localhost")) {
+      List<StorageService> storages = new ArrayList<>();
+      List<PageCrawler> crawlers = crawlCluster(dir, server.rootUrl(), 3, Integer.MAX_VALUE, storages);
+
+      // 127.0.0.1 belongs to node 0, localhost to node 1 and neither to node 2
+      Set<String> expectedGood = new HashSet<String>();
+      for (int i = 0; i < site.getPageCount(); i++) {
+        expectedGood.add(server.url(i));
+      }
+      Set<String> crawled = new HashSet<String>();
+      for (PageCrawler crawler : crawlers) {
+        crawled.addAll(crawler.getGoodLinks());
+      }
+      assertAll(
+        () -> assertEquals(expectedGood, crawled),
+        () -> assertEquals(site.getPageCount(), server.requestCount()),
+        () -> assertTrue(crawlers.get(0).getGoodLinks().stream().allMatch(u -> u.contains("//127.0.0.1:"))),
+        () -> assertTrue(crawlers.get(1).getGoodLinks().stream().allMatch(u -> u.contains("//localhost:"))),
+        () -> assertFalse(crawlers.get(1).getGoodLinks().isEmpty()),
+        () -> assertTrue(crawlers.get(2).getGoodLinks().isEmpty()),
+        () -> assertEquals(site.allEmails(), stored(storages.get(0), StorageService.StorageType.EMAIL)),
+        () -> assertEquals(expectedGood, stored(storages.get(0), StorageService.StorageType.GOODLINKS)),
+        () -> verify(storages.get(1), never()).storeList(any(), any()),
+        () -> verify(storages.get(2), never()).storeList(any(), any())
+      );
+    }
+  }
+
+  @Test
+  @Timeout(30)
+  @DisplayName("Tests that the whole cluster stops once it has found max emails between them.")
+  void testDistributedMaxEmails(@TempDir Path dir) throws Exception {
+    SiteGenerator site = new SiteGenerator(2000, 4, 10, 2, 256, 13);
+    try (LocalSiteServer server = new LocalSiteServer(site).withHosts("127.0.0.1", "localhost")
+        .withLatency(2, 0)) {
+      List<StorageService> storages = new ArrayList<>();
+      crawlCluster(dir, server.rootUrl(), 2, 30, storages);
+
+      Set<String> emails = stored(storages.get(0), StorageService.StorageType.EMAIL);
+      assertAll(
+        () -> assertEquals(30, emails.size()),
+        () -> assertTrue(site.allEmails().containsAll(emails)),
+        () -> assertTrue(server.requestCount() < site.getPageCount())
+      );
+    }
+  }
+
+  @Test
+  @DisplayName("Tests that crawl budgets must be positive.")
+  void testBudgetLimits() {
+    PageCrawler crawler = new PageCrawler(mock(StorageService.class));
+    assertAll(
+      () -> assertThrows(IllegalArgumentException.class, () -> crawler.setMaxDepth(-1)),
+      () -> assertThrows(IllegalArgumentException.class, () -> crawler.setMaxPages(0)),
+      () -> assertThrows(IllegalArgumentException.class, () -> crawler.setMaxBytes(0))
+    );
+  }
+}
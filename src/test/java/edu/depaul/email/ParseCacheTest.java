@@ -0,0 +1,90 @@
+package edu.depaul.email;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ParseCacheTest {
+  private static PageContent content(String email) {
+    return new PageContent(Collections.singleton(email), Collections.<String>emptySet());
+  }
+
+  @Test
+  @DisplayName("Tests that an identical body is only extracted once.")
+  void testHit() {
+    ParseCache cache = new ParseCache(10);
+    AtomicInteger calls = new AtomicInteger();
+    byte[] first = "<p>foo@gmail.com</p>".getBytes(StandardCharsets.UTF_8);
+    byte[] copy = "<p>foo@gmail.com</p>".getBytes(StandardCharsets.UTF_8);
+    byte[] other = "<p>bar@gmail.com</p>".getBytes(StandardCharsets.UTF_8);
+
+    PageContent a = cache.get(first, body -> { calls.incrementAndGet(); return content("foo@gmail.com"); });
+    PageContent b = cache.get(copy, body -> { calls.incrementAndGet(); return content("foo@gmail.com"); });
+    cache.get(other, body -> { calls.incrementAndGet(); return content("bar@gmail.com"); });
+
+    assertAll(
+      () -> assertSame(a, b),
+      () -> assertEquals(2, calls.get()),
+      () -> assertEquals(1, cache.getHits()),
+      () -> assertEquals(2, cache.getMisses())
+    );
+  }
+
+  @Test
+  @DisplayName("Tests that the least recently used results are evicted.")
+  void testEviction() {
+    ParseCache cache = new ParseCache(2);
+    AtomicInteger calls = new AtomicInteger();
+    for (String page : new String[] {"one", "two", "one", "three", "one", "two"}) {
+      cache.get(page.getBytes(StandardCharsets.UTF_8), body -> { calls.incrementAndGet(); return content(page); });
+    }
+    assertEquals(2, cache.size());
+    assertEquals(4, calls.get());
+  }
+
+  @Test
+  @DisplayName("Tests that the hash depends on every byte.")
+  void testHash() {
+    byte[] bytes = new byte[37];
+    long base = ParseCache.hash(bytes);
+    for (int i = 0; i < bytes.length; i++) {
+      bytes[i] = 1;
+      assertNotEquals(base, ParseCache.hash(bytes));
+      bytes[i] = 0;
+    }
+    assertNotEquals(ParseCache.hash(new byte[8]), ParseCache.hash(new byte[9]));
+  }
+
+  @Test
+  @DisplayName("Tests a crawl where two URLs serve the same page.")
+  void testCrawlDuplicates(@TempDir Path dir) throws IOException {
+    Path first = dir.resolve("a.html");
+    Path second = dir.resolve("print-a.html");
+    String page = "<html><body><p>foo@gmail.com</p></body></html>";
+    Files.write(first, page.getBytes(StandardCharsets.UTF_8));
+    Files.write(second, page.getBytes(StandardCharsets.UTF_8));
+    Path index = dir.resolve("index.html");
+    Files.write(index, ("<html><body><a href=\"" + first + "\">a</a><a href=\"" + second
+        + "\">print</a></body></html>").getBytes(StandardCharsets.UTF_8));
+
+    ParseCache cache = new ParseCache(10);
+    PageCrawler crawler = new PageCrawler(mock(StorageService.class), 50, 1).setParseCache(cache);
+    crawler.crawl(index.toString());
+
+    assertAll(
+      () -> assertEquals(3, crawler.getGoodLinks().size()),
+      () -> assertEquals(Collections.singleton("foo@gmail.com"), crawler.getEmails()),
+      () -> assertEquals(1, cache.getHits())
+    );
+  }
+}
@@ -0,0 +1,94 @@
+package edu.depaul.email;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.Timeout;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.Mockito.mock;
+
+class ResponseCacheTest {
+  private static RawPage page(String url, String etag) {
+    return new RawPage(url, new byte[1000], "UTF-8", etag, "Tue, 01 Sep 2020 00:00:00 GMT");
+  }
+
+  private static PageContent content(String email) {
+    return new PageContent(Collections.singleton(email), Collections.singleton("/next.html"));
+  }
+
+  @Test
+  @DisplayName("Tests storing and reading back an entry, across instances.")
+  void testPutGet(@TempDir Path dir) {
+    new ResponseCache(dir).put(page("http://A.com/x#top", "\"v1\""), content("foo@gmail.com"));
+
+    ResponseCache cache = new ResponseCache(dir);
+    ResponseCache.Entry entry = cache.get("http://a.com/x");
+    assertAll(
+      () -> assertNotNull(entry),
+      () -> assertEquals("\"v1\"", entry.getEtag()),
+      () -> assertEquals("Tue, 01 Sep 2020 00:00:00 GMT", entry.getLastModified()),
+      () -> assertEquals(Collections.singleton("foo@gmail.com"), entry.getContent().getEmails()),
+      () -> assertEquals(Collections.singleton("/next.html"), entry.getContent().getLinks()),
+      () -> assertNull(cache.get("http://a.com/y")),
+      () -> assertEquals(1, cache.getHits()),
+      () -> assertEquals(1, cache.getMisses())
+    );
+  }
+
+  @Test
+  @DisplayName("Tests that pages without validators are not stored.")
+  void testNoValidators(@TempDir Path dir) {
+    ResponseCache cache = new ResponseCache(dir);
+    cache.put(new RawPage("http://a.com/x", new byte[10], null), content("foo@gmail.com"));
+    assertNull(cache.get("http://a.com/x"));
+    assertEquals(0, cache.getEntryCount());
+  }
+
+  @Test
+  @DisplayName("Tests that the least recently used entries are evicted.")
+  void testEviction(@TempDir Path dir) {
+    ResponseCache cache = new ResponseCache(dir, 320);
+    cache.put(page("http://a.com/1", "1"), content("one@gmail.com"));
+    cache.put(page("http://a.com/2", "2"), content("two@gmail.com"));
+    cache.put(page("http://a.com/3", "3"), content("three@gmail.com"));
+    assertNotNull(cache.get("http://a.com/1"));
+    cache.put(page("http://a.com/4", "4"), content("four@gmail.com"));
+
+    assertAll(
+      () -> assertTrue(cache.getSizeInBytes() <= 320),
+      () -> assertEquals(3, cache.getEntryCount()),
+      () -> assertNotNull(cache.get("http://a.com/1")),
+      () -> assertNull(cache.get("http://a.com/2")),
+      () -> assertNotNull(cache.get("http://a.com/4"))
+    );
+  }
+
+  @Test
+  @Timeout(30)
+  @DisplayName("Tests that a re-crawl revalidates cached pages instead of downloading them.")
+  void testRecrawl(@TempDir Path dir) throws IOException {
+    SiteGenerator site = new SiteGenerator(30, 3, 5, 1, 512, 5);
+    try (LocalSiteServer server = new LocalSiteServer(site)) {
+      StorageService storage = mock(StorageService.class);
+      PageCrawler first = new PageCrawler(storage, Integer.MAX_VALUE, 4).setResponseCache(new ResponseCache(dir));
+      first.crawl(server.rootUrl());
+      assertEquals(0, server.notModifiedCount());
+
+      PageCrawler second = new PageCrawler(storage, Integer.MAX_VALUE, 4).setResponseCache(new ResponseCache(dir));
+      second.crawl(server.rootUrl());
+
+      assertAll(
+        () -> assertEquals(site.getPageCount(), server.notModifiedCount()),
+        () -> assertEquals(first.getGoodLinks(), second.getGoodLinks()),
+        () -> assertEquals(new HashSet<>(site.allEmails()), second.getEmails()),
+        () -> assertEquals(0, second.getMetrics().getBytesFetched())
+      );
+    }
+  }
+}
@@ -0,0 +1,148 @@
+package edu.depaul.email;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.IntFunction;
+
+/**
+ * Generates a deterministic web site for load tests and benchmarks.  Pages
+ * form a tree (page i links to its fanOut children) cut off at the given
+ * depth, plus one extra cross link per page so the crawler also has to
+ * deal with URLs it has already seen.  Every page carries emailsPerPage
+ * unique addresses and is padded with filler text to about pageBytes.
+ * Pages are built on demand from their index, so even very large sites
+ * cost nothing until they are requested.
+ */
+class SiteGenerator {
+
+  private static final String[] WORDS = {
+    "department", "faculty", "research", "student", "program", "office", "the", "of",
+    "and", "computing", "digital", "media", "contact", "information", "hours", "room"
+  };
+
+  private final int pageCount;
+  private final int fanOut;
+  private final int emailsPerPage;
+  private final int pageBytes;
+  private final long seed;
+
+  /**
+   * @param pages the most pages the site may have
+   * @param fanOut the number of child pages each page links to
+   * @param depth the deepest level of the tree (the root is depth 0)
+   * @param emailsPerPage unique email addresses on each page
+   * @param pageBytes approximate size of each page
+   * @param seed seed for the filler text and cross links
+   */
+  SiteGenerator(int pages, int fanOut, int depth, int emailsPerPage, int pageBytes, long seed) {
+    this.pageCount = Math.min(pages, treeSize(fanOut, depth));
+    this.fanOut = fanOut;
+    this.emailsPerPage = emailsPerPage;
+    this.pageBytes = pageBytes;
+    this.seed = seed;
+  }
+
+  private static int treeSize(int fanOut, int depth) {
+    long size = 0;
+    long level = 1;
+    for (int d = 0; d <= depth && size < Integer.MAX_VALUE; d++) {
+      size += level;
+      level *= Math.max(1, fanOut);
+    }
+    return (int) Math.min(size, Integer.MAX_VALUE);
+  }
+
+  int getPageCount() {
+    return pageCount;
+  }
+
+  static String pageName(int index) {
+    return "page-" + index + ".html";
+  }
+
+  /**
+   * The pages that page index links to.
+   */
+  List<Integer> linksOf(int index) {
+    List<Integer> links = new ArrayList<>();
+    for (int k = 1; k <= fanOut; k++) {
+      long child = (long) index * fanOut + k;
+      if (child < pageCount) {
+        links.add((int) child);
+      }
+    }
+    links.add(new Random(seed ^ index).nextInt(pageCount));
+    return links;
+  }
+
+  Set<String> emailsOf(int index) {
+    Set<String> emails = new LinkedHashSet<>();
+    for (int k = 0; k < emailsPerPage; k++) {
+      emails.add("person" + k + ".page" + index + "@site.example.edu");
+    }
+    return emails;
+  }
+
+  Set<String> allEmails() {
+    Set<String> emails = new LinkedHashSet<>();
+    for (int i = 0; i < pageCount; i++) {
+      emails.addAll(emailsOf(i));
+    }
+    return emails;
+  }
+
+  /**
+   * Builds the HTML of one page.  Links are written as linkPrefix followed
+   * by the page name, so the same site can be served over HTTP or written
+   * to disk.
+   */
+  String page(int index, String linkPrefix) {
+    return page(index, link -> linkPrefix);
+  }
+
+  /**
+   * Builds the HTML of one page, with each link written as the prefix for
+   * the linked page followed by its name, so that pages can be spread
+   * over several hosts.
+   */
+  String page(int index, IntFunction<String> linkPrefix) {
+    Random random = new Random(seed * 31 + index);
+    StringBuilder html = new StringBuilder(pageBytes + 512);
+    html.append("<!DOCTYPE html>\n<html><head><meta charset=\"UTF-8\"><title>Page ")
+        .append(index).append("</title></head><body>\n<ul>\n");
+    for (int link : linksOf(index)) {
+      html.append("<li><a href=\"").append(linkPrefix.apply(link)).append(pageName(link)).append("\">Page ")
+          .append(link).append("</a></li>\n");
+    }
+    html.append("</ul>\n<p>");
+    for (String email : emailsOf(index)) {
+      html.append(email).append("<br>\n");
+    }
+    html.append("</p>\n<p>");
+    while (html.length() < pageBytes) {
+      html.append(WORDS[random.nextInt(WORDS.length)]).append(' ');
+    }
+    html.append("</p>\n</body></html>\n");
+    return html.toString();
+  }
+
+  /**
+   * Writes every page to the directory, linking pages by absolute path.
+   * Returns the path of the root page.
+   */
+  Path writeTo(Path dir) throws IOException {
+    Files.createDirectories(dir);
+    String prefix = dir.toAbsolutePath().toString() + dir.getFileSystem().getSeparator();
+    for (int i = 0; i < pageCount; i++) {
+      Files.write(dir.resolve(pageName(i)), page(i, prefix).getBytes(StandardCharsets.UTF_8));
+    }
+    return dir.resolve(pageName(0)).toAbsolutePath();
+  }
+}
@@ -0,0 +1,48 @@
+package edu.depaul.email;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SiteGeneratorTest {
+  @Test
+  @DisplayName("Tests that the page count is limited by both size and depth.")
+  void testPageCount() {
+    assertEquals(100, new SiteGenerator(100, 3, 10, 1, 0, 1).getPageCount());
+    assertEquals(13, new SiteGenerator(100, 3, 2, 1, 0, 1).getPageCount());
+  }
+
+  @Test
+  @DisplayName("Tests that the same seed always produces the same page.")
+  void testDeterministic() {
+    SiteGenerator first = new SiteGenerator(50, 4, 5, 2, 2048, 99);
+    SiteGenerator second = new SiteGenerator(50, 4, 5, 2, 2048, 99);
+    assertEquals(first.page(17, "/"), second.page(17, "/"));
+    assertTrue(first.page(17, "/").length() >= 2048);
+  }
+
+  @Test
+  @DisplayName("Tests that every generated email is found by PageParser.")
+  void testEmailsParse() {
+    SiteGenerator site = new SiteGenerator(10, 2, 5, 3, 512, 1);
+    PageParser parser = new PageParser();
+    assertEquals(site.emailsOf(4), parser.findEmails(org.jsoup.Jsoup.parse(site.page(4, "/"))));
+  }
+
+  @Test
+  @DisplayName("Tests writing the site to disk.")
+  void testWriteTo(@TempDir Path dir) throws IOException {
+    SiteGenerator site = new SiteGenerator(20, 3, 5, 1, 256, 1);
+    Path root = site.writeTo(dir);
+    assertAll(
+      () -> assertTrue(Files.exists(root)),
+      () -> assertEquals(20, Files.list(dir).count())
+    );
+  }
+}
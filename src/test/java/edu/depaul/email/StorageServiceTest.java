@@ -2,14 +2,17 @@ package edu.depaul.email;
 
 import org.junit.jupiter.api.DisplayName;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 import java.io.IOException;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.DirectoryNotEmptyException;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.List;
 
@@ -188,4 +191,54 @@ class StorageServiceTest {
 
     assertThrows(EmailFinderException.class, () -> storage.storeList(StorageService.StorageType.EMAIL, collection));
   }
-}
\ No newline at end of file
+
+  @Test
+  @DisplayName("Tests appending items one at a time between open() and close().")
+  void testAppend(@TempDir Path dir) throws IOException {
+    Path emails = dir.resolve("email.txt");
+    Path good = dir.resolve("good.txt");
+    StorageService storage = new StorageService();
+    storage.addLocation(StorageService.StorageType.EMAIL, emails.toString())
+        .addLocation(StorageService.StorageType.GOODLINKS, good.toString());
+
+    storage.open();
+    assertTrue(storage.isOpen());
+    storage.append(StorageService.StorageType.EMAIL, "email1@gmail.com");
+    storage.append(StorageService.StorageType.EMAIL, "email2@gmail.com");
+    storage.flush();
+    assertEquals(Arrays.asList("email1@gmail.com", "email2@gmail.com"),
+        Files.readAllLines(emails, StandardCharsets.US_ASCII));
+
+    storage.append(StorageService.StorageType.GOODLINKS, "www.link1.com");
+    storage.close();
+    assertFalse(storage.isOpen());
+    assertEquals(Arrays.asList("www.link1.com"), Files.readAllLines(good, StandardCharsets.US_ASCII));
+  }
+
+  @Test
+  @DisplayName("Tests that appended items are flushed on a timer.")
+  void testAppendFlushInterval(@TempDir Path dir) throws Exception {
+    Path emails = dir.resolve("email.txt");
+    StorageService storage = new StorageService().setFlushInterval(10);
+    storage.addLocation(StorageService.StorageType.EMAIL, emails.toString());
+
+    storage.open();
+    try {
+      storage.append(StorageService.StorageType.EMAIL, "email1@gmail.com");
+      long deadline = System.currentTimeMillis() + 5000;
+      while (Files.size(emails) == 0 && System.currentTimeMillis() < deadline) {
+        Thread.sleep(10);
+      }
+      assertEquals(Arrays.asList("email1@gmail.com"), Files.readAllLines(emails, StandardCharsets.US_ASCII));
+    } finally {
+      storage.close();
+    }
+  }
+
+  @Test
+  @DisplayName("Tests for thrown exception when appending to a location that is not open.")
+  void testAppendNotOpen() {
+    StorageService storage = new StorageService();
+    assertThrows(EmailFinderException.class, () -> storage.append(StorageService.StorageType.EMAIL, "email1@gmail.com"));
+  }
+}
@@ -0,0 +1,121 @@
+package edu.depaul.email;
+
+import org.jsoup.Jsoup;
+import org.jsoup.nodes.Document;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingExtractorTest {
+
+  private PageContent extract(String html) {
+    return new StreamingExtractor().extract(html.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static Set<String> setOf(String... items) {
+    return new HashSet<>(Arrays.asList(items));
+  }
+
+  @ParameterizedTest
+  @ValueSource(strings = {"test-1.html", "test-4.html", "test-5.html", "test-7.html"})
+  @DisplayName("Tests that the streaming extractor agrees with PageParser on the sample pages.")
+  void testMatchesPageParser(String name) throws IOException {
+    File file = Paths.get("src", "test", "resources", name).toFile();
+    Document doc = Jsoup.parse(file, "UTF-8");
+    PageParser parser = new PageParser();
+
+    PageContent content = new StreamingExtractor().extract(Files.readAllBytes(file.toPath()));
+    assertAll(
+      () -> assertEquals(parser.findEmails(doc), content.getEmails()),
+      () -> assertEquals(parser.findLinks(doc), content.getLinks())
+    );
+  }
+
+  @Test
+  @DisplayName("Tests scanning a memory-mapped file whose emails and links span map windows.")
+  void testMappedWindows(@TempDir Path dir) throws IOException {
+    Path file = dir.resolve("page.html");
+    Files.write(file, "<p>first.last@example.com <a href=\"/people.html\">x</a></p>".getBytes(StandardCharsets.UTF_8));
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+      PageContent content = new StreamingExtractor(5).extract(channel);
+      assertAll(
+        () -> assertEquals(setOf("first.last@example.com"), content.getEmails()),
+        () -> assertEquals(setOf("/people.html"), content.getLinks())
+      );
+    }
+  }
+
+  @Test
+  @DisplayName("Tests scanning a direct buffer from its position to its limit.")
+  void testByteBuffer() {
+    byte[] page = "junk a@b.org <p>c@d.org</p>".getBytes(StandardCharsets.UTF_8);
+    ByteBuffer buffer = ByteBuffer.allocateDirect(page.length);
+    buffer.put(page).flip();
+    buffer.position(13);
+    assertEquals(setOf("c@d.org"), new StreamingExtractor().extract(buffer).getEmails());
+    assertEquals(13, buffer.position());
+  }
+
+  @Test
+  @DisplayName("Tests that emails split across read boundaries are still found.")
+  void testChunkBoundaries() throws IOException {
+    byte[] page = "<p>first.last@example.com and a@b.org</p>".getBytes(StandardCharsets.UTF_8);
+    InputStream trickle = new ByteArrayInputStream(page) {
+      @Override
+      public synchronized int read(byte[] b, int off, int len) {
+        return super.read(b, off, Math.min(len, 3));
+      }
+    };
+    PageContent content = new StreamingExtractor().extract(trickle);
+    assertEquals(setOf("first.last@example.com", "a@b.org"), content.getEmails());
+  }
+
+  @Test
+  @DisplayName("Tests that comments, scripts, styles and attributes are not searched for emails.")
+  void testSkipsNonText() {
+    String html = "<html><head><style>p { x: y@z.com }</style>"
+        + "<script>var s = '<b>'; // hidden@script.com</script></head>"
+        + "<body><!-- hidden@comment.com --><img alt='hidden@attr.com'>"
+        + "shown@text.com</body></html>";
+    assertEquals(setOf("shown@text.com"), extract(html).getEmails());
+  }
+
+  @Test
+  @DisplayName("Tests the different ways an href can be written.")
+  void testHrefForms() {
+    String html = "<A HREF=\"one.html\">1</A>"
+        + "<a class=x href='two.html?a=1&amp;b=2'>2</a>"
+        + "<a href=three.html>3</a>"
+        + "<a name=\"n\">no href</a>"
+        + "<link href=\"style.css\">";
+    assertEquals(setOf("one.html", "two.html?a=1&b=2", "three.html"), extract(html).getLinks());
+  }
+
+  @Test
+  @DisplayName("Tests the email matching rules on tricky input.")
+  void testEmailRules() {
+    String html = "<p>a@b@c.com x@y. @nolocal.com trailing@dots.com. under_score+tag@sub.ex-ample.co.uk</p>";
+    assertEquals(
+        setOf("b@c.com", "trailing@dots.com.", "under_score+tag@sub.ex-ample.co.uk"),
+        extract(html).getEmails());
+  }
+}
@@ -0,0 +1,92 @@
+package edu.depaul.email;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.CsvSource;
+
+import java.nio.file.Paths;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class UrlCanonicalizerTest {
+  private static final String PAGE = "http://www.example.com/a/b/page.html?x=1";
+
+  @ParameterizedTest
+  @DisplayName("Tests resolving links against the page they were found on.")
+  @CsvSource({
+    "other.html, http://www.example.com/a/b/other.html",
+    "./other.html, http://www.example.com/a/b/other.html",
+    "../other.html, http://www.example.com/a/other.html",
+    "../../../../other.html, http://www.example.com/other.html",
+    "/root.html, http://www.example.com/root.html",
+    "//cdn.example.com/x, http://cdn.example.com/x",
+    "?y=2, http://www.example.com/a/b/page.html?y=2",
+    "#section, http://www.example.com/a/b/page.html?x=1",
+    "'', http://www.example.com/a/b/page.html?x=1",
+    "sub/, http://www.example.com/a/b/sub/",
+    "sub/.., http://www.example.com/a/b/",
+    "'  spaced.html  ', http://www.example.com/a/b/spaced.html",
+    "HTTPS://WWW.Example.COM:443/Path, https://www.example.com/Path",
+    "http://example.com:80, http://example.com/",
+    "http://example.com:8080/x#frag, http://example.com:8080/x",
+    "http://user@Example.com/, http://user@example.com/",
+    "https://example.com:80/, https://example.com:80/"
+  })
+  void testResolve(String href, String expected) {
+    assertEquals(expected, new UrlCanonicalizer().resolve(PAGE, href));
+  }
+
+  @ParameterizedTest
+  @DisplayName("Tests that links that cannot be crawled resolve to null.")
+  @CsvSource({"mailto:foo@gmail.com", "javascript:void(0)", "tel:+15551234", "ftp://example.com/file"})
+  void testNotCrawlable(String href) {
+    assertNull(new UrlCanonicalizer().resolve(PAGE, href));
+  }
+
+  @Test
+  @DisplayName("Tests stripping tracking parameters and sorting the rest.")
+  void testQuery() {
+    UrlCanonicalizer canonicalizer = new UrlCanonicalizer();
+    assertAll(
+      () -> assertEquals("http://a.com/p?a=1&b=2&b=1",
+          canonicalizer.canonicalize("http://a.com/p?b=2&utm_source=x&a=1&gclid=abc&b=1")),
+      () -> assertEquals("http://a.com/p", canonicalizer.canonicalize("http://a.com/p?utm_medium=email")),
+      () -> assertEquals("http://a.com/p?a=2&ab=1",
+          canonicalizer.canonicalize("http://a.com/p?ab=1&a=2")),
+      () -> assertEquals("http://a.com/p?b=2&a=1",
+          new UrlCanonicalizer().setSortQuery(false).canonicalize("http://a.com/p?b=2&a=1")),
+      () -> assertEquals("http://a.com/p?utm_source=x",
+          new UrlCanonicalizer(Arrays.asList("sid")).canonicalize("http://a.com/p?sid=9&utm_source=x"))
+    );
+  }
+
+  @Test
+  @DisplayName("Tests a query with more parameters than can be sorted.")
+  void testLongQuery() {
+    StringBuilder query = new StringBuilder("http://a.com/?");
+    for (int i = 100; i > 0; i--) {
+      query.append("p").append(i).append("=1&utm_x=").append(i).append('&');
+    }
+    String result = new UrlCanonicalizer().canonicalize(query.toString());
+    assertFalse(result.contains("utm_"));
+    assertEquals(100, result.split("&").length);
+  }
+
+  @Test
+  @DisplayName("Tests links on local files.")
+  void testLocalFiles() {
+    UrlCanonicalizer canonicalizer = new UrlCanonicalizer();
+    String page = Paths.get("/tmp", "site", "index.html").toString();
+    assertAll(
+      () -> assertEquals(Paths.get("/tmp", "site", "other.html").toString(),
+          canonicalizer.resolve(page, "other.html#top")),
+      () -> assertEquals(Paths.get("/tmp", "other.html").toString(), canonicalizer.resolve(page, "../other.html")),
+      () -> assertEquals("/abs/file.html", canonicalizer.resolve(page, "/abs/file.html")),
+      () -> assertEquals("C:\\site\\file.html", canonicalizer.resolve(page, "C:\\site\\file.html")),
+      () -> assertEquals("http://a.com/", canonicalizer.resolve(page, "http://A.com")),
+      () -> assertNull(canonicalizer.resolve(page, "mailto:foo@gmail.com"))
+    );
+  }
+}
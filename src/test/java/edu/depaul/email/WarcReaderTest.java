@@ -0,0 +1,153 @@
+package edu.depaul.email;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.zip.GZIPOutputStream;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WarcReaderTest {
+
+  /**
+   * Builds a WARC record with the given type, target and block.
+   */
+  static byte[] record(String type, String uri, String contentType, String block) {
+    return record(type, uri, contentType, block.getBytes(StandardCharsets.UTF_8));
+  }
+
+  static byte[] record(String type, String uri, String contentType, byte[] body) {
+    String header = "WARC/1.0\r\n"
+        + "WARC-Type: " + type + "\r\n"
+        + "WARC-Target-URI: " + uri + "\r\n"
+        + "Content-Type: " + contentType + "\r\n"
+        + "Content-Length: " + body.length + "\r\n\r\n";
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    out.write(header.getBytes(StandardCharsets.US_ASCII), 0, header.length());
+    out.write(body, 0, body.length);
+    out.write('\r');
+    out.write('\n');
+    out.write('\r');
+    out.write('\n');
+    return out.toByteArray();
+  }
+
+  static byte[] response(String uri, String status, String contentType, String body) {
+    return record("response", uri, "application/http; msgtype=response",
+        "HTTP/1.1 " + status + "\r\nContent-Type: " + contentType + "\r\n\r\n" + body);
+  }
+
+  /**
+   * Writes the records to a .warc.gz file, one gzip member per record.
+   */
+  static Path writeWarcGz(Path file, byte[]... records) throws IOException {
+    try (OutputStream out = Files.newOutputStream(file)) {
+      for (byte[] record : records) {
+        GZIPOutputStream member = new GZIPOutputStream(out);
+        member.write(record);
+        member.finish();
+      }
+    }
+    return file;
+  }
+
+  @Test
+  @DisplayName("Tests that only successful HTML and text records are returned.")
+  void testSkipsOtherRecords() throws IOException {
+    ByteArrayOutputStream warc = new ByteArrayOutputStream();
+    warc.write(record("warcinfo", "", "application/warc-fields", "software: test\r\n"));
+    warc.write(record("request", "http://a.com/", "application/http; msgtype=request", "GET / HTTP/1.1\r\n\r\n"));
+    warc.write(response("http://a.com/", "200 OK", "text/html; charset=ISO-8859-1", "<p>a@a.com</p>"));
+    warc.write(response("http://a.com/logo.png", "200 OK", "image/png", "PNG"));
+    warc.write(response("http://a.com/gone", "404 Not Found", "text/html", "<p>no@a.com</p>"));
+    warc.write(record("resource", "<file:///notes.txt>", "text/plain", "b@a.com"));
+
+    try (WarcReader reader = new WarcReader(new ByteArrayInputStream(warc.toByteArray()))) {
+      RawPage first = reader.next();
+      RawPage second = reader.next();
+      assertAll(
+        () -> assertEquals("http://a.com/", first.getUrl()),
+        () -> assertEquals("ISO-8859-1", first.getCharset()),
+        () -> assertEquals("<p>a@a.com</p>", new String(first.getBody(), StandardCharsets.UTF_8)),
+        () -> assertEquals("file:///notes.txt", second.getUrl()),
+        () -> assertNull(reader.next()),
+        () -> assertEquals(4, reader.getSkipped())
+      );
+    }
+  }
+
+  @Test
+  @DisplayName("Tests reading a gzip-member WARC with a chunked response.")
+  void testGzipMembers(@TempDir Path dir) throws IOException {
+    Path file = writeWarcGz(dir.resolve("crawl.warc.gz"),
+        response("http://a.com/1", "200 OK", "text/html", "<p>one@a.com</p>"),
+        record("response", "http://a.com/2", "application/http; msgtype=response",
+            "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\n5\r\n<p>tw\r\nB\r\no@a.com</p>\r\n0\r\n\r\n"));
+
+    try (WarcReader reader = WarcReader.open(file)) {
+      assertEquals("http://a.com/1", reader.next().getUrl());
+      RawPage chunked = reader.next();
+      assertEquals("<p>two@a.com</p>", new String(chunked.getBody(), StandardCharsets.UTF_8));
+      assertNull(reader.next());
+    }
+  }
+
+  @Test
+  @DisplayName("Tests that malformed HTTP records are skipped without ending the scan.")
+  void testMalformedRecords(@TempDir Path dir) throws IOException {
+    Path file = writeWarcGz(dir.resolve("crawl.warc.gz"),
+        response("http://a.com/1", "200 OK", "text/html", "<p>one@a.com</p>"),
+        record("response", "http://a.com/empty", "application/http; msgtype=response", ""),
+        record("response", "http://a.com/chunk", "application/http; msgtype=response",
+            "HTTP/1.1 200 OK\r\nTransfer-Encoding: chunked\r\n\r\nzz\r\n<p>x@a.com</p>\r\n0\r\n\r\n"),
+        record("response", "http://a.com/gzip", "application/http; msgtype=response",
+            "HTTP/1.1 200 OK\r\nContent-Encoding: gzip\r\n\r\nnot gzip at all"),
+        response("http://a.com/2", "200 OK", "text/html", "<p>two@a.com</p>"));
+
+    try (WarcReader reader = WarcReader.open(file)) {
+      RawPage first = reader.next();
+      RawPage second = reader.next();
+      assertAll(
+        () -> assertEquals("http://a.com/1", first.getUrl()),
+        () -> assertEquals("http://a.com/2", second.getUrl()),
+        () -> assertEquals("<p>two@a.com</p>", new String(second.getBody(), StandardCharsets.UTF_8)),
+        () -> assertNull(reader.next()),
+        () -> assertEquals(3, reader.getSkipped())
+      );
+    }
+  }
+
+  @Test
+  @DisplayName("Tests that a body which decompresses past the size limit is skipped.")
+  void testGzipBodyLimit() throws IOException {
+    ByteArrayOutputStream block = new ByteArrayOutputStream();
+    block.write("HTTP/1.1 200 OK\r\nContent-Encoding: gzip\r\n\r\n".getBytes(StandardCharsets.US_ASCII));
+    try (GZIPOutputStream body = new GZIPOutputStream(block)) {
+      body.write(new byte[100000]);
+    }
+    ByteArrayOutputStream warc = new ByteArrayOutputStream();
+    warc.write(record("response", "http://a.com/bomb", "application/http; msgtype=response", block.toByteArray()));
+    warc.write(response("http://a.com/", "200 OK", "text/html", "<p>a@a.com</p>"));
+
+    try (WarcReader reader = new WarcReader(new ByteArrayInputStream(warc.toByteArray()), 10000)) {
+      assertEquals("http://a.com/", reader.next().getUrl());
+      assertNull(reader.next());
+      assertEquals(1, reader.getSkipped());
+    }
+  }
+
+  @Test
+  @DisplayName("Tests that a file that is not a WARC is rejected.")
+  void testNotWarc() {
+    WarcReader reader = new WarcReader(new ByteArrayInputStream("<html>".getBytes(StandardCharsets.UTF_8)));
+    assertThrows(IOException.class, reader::next);
+  }
+}
@@ -0,0 +1,32 @@
+package edu.depaul.email;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class WorkerPoolsTest {
+  @Test
+  @DisplayName("Tests that the virtual-thread pool runs tasks on any supported JVM.")
+  void testVirtualRunsTasks() throws Exception {
+    ExecutorService pool = WorkerPools.create(WorkerPools.ThreadMode.VIRTUAL, 4);
+    Future<String> result = pool.submit(() -> "done");
+    assertEquals("done", result.get(5, TimeUnit.SECONDS));
+    pool.shutdown();
+    assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+  }
+
+  @Test
+  @DisplayName("Tests that the platform pool runs tasks.")
+  void testPlatformRunsTasks() throws Exception {
+    ExecutorService pool = WorkerPools.create(WorkerPools.ThreadMode.PLATFORM, 2);
+    Future<String> result = pool.submit(() -> "done");
+    assertEquals("done", result.get(5, TimeUnit.SECONDS));
+    pool.shutdown();
+    assertTrue(pool.awaitTermination(5, TimeUnit.SECONDS));
+  }
+}